@@ -6,8 +6,10 @@ package org.babich.crawler;
 import com.google.common.graph.Traverser;
 import com.google.common.reflect.Reflection;
 import com.google.common.util.concurrent.MoreExecutors;
+import org.babich.crawler.api.CrawlStatistics;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.PageFetcher;
 import org.babich.crawler.api.PageProcessing;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.api.messages.CrawlerStarted;
@@ -22,18 +24,24 @@ import org.babich.crawler.configuration.SelectiveConstructor;
 import org.babich.crawler.configuration.exception.CrawlerConfigurationException;
 import org.babich.crawler.configuration.processing.CustomPageProcessingConfig;
 import org.babich.crawler.configuration.processing.CustomPageProcessingConfig.Builder;
-import org.babich.crawler.configuration.processing.CustomProcessingFilter;
+import org.babich.crawler.configuration.processing.RouteTable;
 import org.babich.crawler.event.LocalEventBus;
 import org.babich.crawler.exporters.S3PageSourceExporter;
+import org.babich.crawler.fetcher.PooledHttpPageFetcher;
 import org.babich.crawler.interceptor.CustomMessagesDispatcher;
 import org.babich.crawler.interceptor.DefaultMessageProducer;
 import org.babich.crawler.interceptor.filter.PageFilterCombiner;
 import org.babich.crawler.interceptor.service.SuccessorPagesPostProcessing;
 import org.babich.crawler.metrics.InfluxRegistry;
 import org.babich.crawler.processing.CombinePageProcessing;
+import org.babich.crawler.traversal.ConcurrentPageTraverser;
+import org.babich.crawler.traversal.Frontier;
+import org.babich.crawler.traversal.PolitenessScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.Executor;
@@ -47,7 +55,7 @@ import java.util.stream.StreamSupport;
 
 
 @SuppressWarnings("UnstableApiUsage")
-public class WebCrawler {
+public class WebCrawler implements Closeable {
 
     protected static final Logger logger = LoggerFactory.getLogger(WebCrawler.class);
 
@@ -67,6 +75,8 @@ public class WebCrawler {
 
     private final AtomicBoolean isActive = new AtomicBoolean();
 
+    private final CrawlStatistics statistics = new CrawlStatistics();
+
     private WebCrawler(String name, String lendingPage, ApplicationConfig applicationConfig) {
         this.name = name;
         this.landingUrl = lendingPage;
@@ -92,11 +102,40 @@ public class WebCrawler {
         return isActive.get();
     }
 
+    /**
+     * @return counters of the crawl, they are updated while the crawler is running
+     */
+    public CrawlStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Releases the fetcher shared by the configuration, e.g. its connections and threads,
+     * the crawler is not started again after it is closed.
+     */
+    @Override
+    public void close() {
+        if (isActive()) {
+            throw new IllegalStateException("The " + name + " Crawler is still running.");
+        }
+
+        PageFetcher fetcher = applicationConfig.getFetcher();
+        if (!(fetcher instanceof Closeable)) {
+            return;
+        }
+        try {
+            ((Closeable) fetcher).close();
+        } catch (IOException e) {
+            logger.warn("Unable to close the page fetcher of the {} Crawler.", name, e);
+        }
+    }
+
 
     static ApplicationConfig loadYmlConfiguration(Path configurationPath) throws CrawlerConfigurationException {
 
         String[] packages = Stream.of(CombinePageProcessing.class, PageFilterCombiner.class, S3PageSourceExporter.class,
-                SuccessorPagesPostProcessing.class, CustomMessagesDispatcher.class, InfluxRegistry.class)
+                SuccessorPagesPostProcessing.class, CustomMessagesDispatcher.class, InfluxRegistry.class,
+                PooledHttpPageFetcher.class)
                 .map(Reflection::getPackageName)
                 .toArray(String[]::new);
 
@@ -112,7 +151,7 @@ public class WebCrawler {
         }
 
         pageFilterCombiner = new PageFilterCombiner(applicationConfig.getEventBus()
-                , arrayAsStream(customPageFilters).collect(Collectors.toSet()));
+                , arrayAsStream(customPageFilters).collect(Collectors.toCollection(LinkedHashSet::new)));
     }
 
     void setCustomerPageProcessors(AssignedPageProcessing[] customPageProcessors) {
@@ -169,8 +208,7 @@ public class WebCrawler {
 
     private Function<Consumer<Page>, Runnable> preparePageContext() {
         PageContext.Builder pageContextBuilder = new PageContext.Builder()
-                .pagesProcessed(0)
-                .pageCount(0);
+                .statistics(statistics);
 
         registerPageProcessors(pageContextBuilder);
         registerPagePreProcessors(pageContextBuilder);
@@ -181,7 +219,7 @@ public class WebCrawler {
         return pageConsumer -> () -> {
             eventBus.post(new CrawlerStarted(name));
             try {
-                startAsStream(preparePageIterator(context), pageConsumer);
+                traverse(context, pageConsumer);
                 eventBus.post(new CrawlerStopped(name));
             } catch (Throwable e) {
                 eventBus.post(new CrawlerStopped(name, true));
@@ -192,6 +230,44 @@ public class WebCrawler {
         };
     }
 
+    private void traverse(PageContext pageContext, Consumer<Page> pageConsumer) {
+        ApplicationConfig.Traverser traverserConfig = applicationConfig.getTraverser();
+        if (!traverserConfig.isFrontierRequired()) {
+            startAsStream(preparePageIterator(pageContext), pageConsumer);
+            return;
+        }
+
+        startConcurrently(pageContext, pageConsumer);
+    }
+
+    void startConcurrently(PageContext pageContext, Consumer<Page> pageConsumer) {
+        pageConsumer = null == pageConsumer ? page -> {
+        } : pageConsumer;
+
+        ApplicationConfig.Traverser traverserConfig = applicationConfig.getTraverser();
+        logger.debug("The crawler {} is started with {} workers.", name, traverserConfig.getWorkers());
+
+        Frontier frontier = Frontier.create(traverserConfig, new AtomicReference<>(pageContext), name);
+        try {
+            new ConcurrentPageTraverser(name
+                    , frontier
+                    , traverserConfig.getWorkers()
+                    , applicationConfig.getLimit().getCount()
+                    , getPolitenessScheduler())
+                    .traverse(getStartPages(pageContext), pageConsumer);
+        } finally {
+            frontier.close();
+        }
+    }
+
+    private PolitenessScheduler getPolitenessScheduler() {
+        return collectionAsStream(applicationConfig.getInterceptorList())
+                .filter(PolitenessScheduler.class::isInstance)
+                .map(PolitenessScheduler.class::cast)
+                .findFirst()
+                .orElse(null);
+    }
+
     void startAsStream(Iterable<Page> pageIterator, Consumer<Page> pageConsumer) {
         pageConsumer = null == pageConsumer ? page -> {
         } : pageConsumer;
@@ -284,6 +360,10 @@ public class WebCrawler {
 
         private ApplicationConfig.Traverser.Mode mode;
 
+        private Integer workers;
+
+        private Boolean streaming;
+
         private final List<CustomPageProcessingConfig> processingConfigList = new LinkedList<>();
 
         private PageProcessing defaultPageProcessing;
@@ -340,6 +420,22 @@ public class WebCrawler {
             return this;
         }
 
+        /**
+         * @param workers number of threads processing pages concurrently
+         */
+        public WebCrawlerBuilder traverserWorkers(Integer workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * @param streaming processed pages are released, so the memory is bounded by the size of the frontier
+         */
+        public WebCrawlerBuilder traverserStreaming(Boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
         public WebCrawlerBuilder useDefaultPageProcessing(PageProcessing defaultPageProcessing) {
             this.defaultPageProcessing = defaultPageProcessing;
             return this;
@@ -351,13 +447,18 @@ public class WebCrawler {
 
             setMaxDepth(config);
             setTraversalMode(config);
+            setTraversalWorkers(config);
             setDefaultPageProcessing(config);
 
             crawler.setCustomPageConsumer(pageConsumer);
             crawler.registerEventListeners(eventListeners);
-            crawler.setCustomerPageProcessors(getCustomPageProcessors());
-            crawler.setCustomerPageFilters(getCustomPageProcessingFilter());
-            crawler.setCustomerMessagesProducers(getCustomMessagesProducers());
+            if (!processingConfigList.isEmpty()) {
+                //the custom processing, filters and messages share the routes of the pages
+                RouteTable routeTable = new RouteTable(processingConfigList);
+                crawler.setCustomerPageProcessors(getCustomPageProcessors(routeTable));
+                crawler.setCustomerPageFilters(getCustomPageProcessingFilter(routeTable));
+                crawler.setCustomerMessagesProducers(getCustomMessagesProducers(routeTable));
+            }
 
             return crawler;
         }
@@ -372,33 +473,32 @@ public class WebCrawler {
                     .ifPresent(value -> config.getTraverser().setMode(value));
         }
 
+        private void setTraversalWorkers(ApplicationConfig config) {
+            Optional.ofNullable(workers)
+                    .ifPresent(value -> config.getTraverser().setWorkers(value));
+            Optional.ofNullable(streaming)
+                    .ifPresent(value -> config.getTraverser().setStreaming(value));
+        }
+
         private void setDefaultPageProcessing(ApplicationConfig config) {
             Optional.ofNullable(defaultPageProcessing)
                     .ifPresent(value -> config.getProcessing().setDefaultProcessing(value));
         }
 
-        private AssignedPageFilter[] getCustomPageProcessingFilter() {
-            return processingConfigList.stream()
-                    .map(pp -> AssignedPageFilter.of(pp.getPredicate()
-                            , Optional.ofNullable(pp.getFilter()).map(CustomProcessingFilter::getPredicate)
-                                    .orElse(filter -> false)
-                            , Optional.ofNullable(pp.getFilter()).map(CustomProcessingFilter::getMessageFactory)
-                                    .orElse(null)
-                    ))
-                    .toArray(AssignedPageFilter[]::new);
+        private AssignedPageFilter[] getCustomPageProcessingFilter(RouteTable routeTable) {
+            return processingConfigList.stream().anyMatch(pp -> Objects.nonNull(pp.getFilter()))
+                    ? new AssignedPageFilter[]{routeTable.pageFilter()}
+                    : null;
         }
 
-        private AssignedPagePostProcessing[] getCustomMessagesProducers() {
-            return processingConfigList.stream()
-                    .map(pp -> AssignedPagePostProcessing.of(pp.getPredicate(), pp.getMessageProducer()))
-                    .toArray(AssignedPagePostProcessing[]::new);
+        private AssignedPagePostProcessing[] getCustomMessagesProducers(RouteTable routeTable) {
+            return new AssignedPagePostProcessing[]{routeTable.messageProducer()};
         }
 
-        private AssignedPageProcessing[] getCustomPageProcessors() {
-            return processingConfigList.stream()
-                    .filter(pp -> Objects.nonNull(pp.getPageProcessing()))
-                    .map(pp -> AssignedPageProcessing.of(pp.getPredicate(), pp.getPageProcessing()))
-                    .toArray(AssignedPageProcessing[]::new);
+        private AssignedPageProcessing[] getCustomPageProcessors(RouteTable routeTable) {
+            return processingConfigList.stream().anyMatch(pp -> Objects.nonNull(pp.getPageProcessing()))
+                    ? new AssignedPageProcessing[]{routeTable.pageProcessing()}
+                    : null;
         }
 
     }
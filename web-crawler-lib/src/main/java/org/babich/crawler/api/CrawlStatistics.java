@@ -0,0 +1,111 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.api;
+
+import java.io.Serializable;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a crawl, a single object is shared by the {@link PageContext} of all its pages.
+ * <br/>The counters are {@code LongAdder}s, so the processing threads update them without contention,
+ * a read sums the cells and is a moment-in-time estimate while the crawl is running.
+ */
+public class CrawlStatistics implements Serializable {
+    private static final long serialVersionUID = 1;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder discovered = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public CrawlStatistics() {
+    }
+
+    /**
+     * @param processed  the number of pages processed
+     * @param discovered the number of pages found
+     */
+    public CrawlStatistics(long processed, long discovered) {
+        this.processed.add(processed);
+        this.discovered.add(discovered);
+    }
+
+    /**
+     * @param size       data size of the page source
+     * @param successors the number of the successors found on the page
+     */
+    public void pageProcessed(long size, int successors) {
+        processed.increment();
+        bytes.add(size);
+        discovered.add(successors);
+    }
+
+    public void pageSkipped() {
+        skipped.increment();
+    }
+
+    public void pageFailed() {
+        errors.increment();
+    }
+
+    /**
+     * raises the processed and found counters to the values of the restored crawl,
+     * it is used when the pages are restored from a backup before the crawl is started.
+     */
+    public void restore(CrawlStatistics statistics) {
+        if (null == statistics || statistics == this) {
+            return;
+        }
+        processed.add(Math.max(0, statistics.getProcessed() - getProcessed()));
+        discovered.add(Math.max(0, statistics.getDiscovered() - getDiscovered()));
+    }
+
+    /**
+     * @return the number of pages processed
+     */
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * @return count off all found pages
+     */
+    public long getDiscovered() {
+        return discovered.sum();
+    }
+
+    /**
+     * @return the number of pages skipped by the filters
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * @return data size of the processed page sources
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return the number of pages whose processing failed
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CrawlStatistics.class.getSimpleName() + "[", "]")
+                .add("processed=" + getProcessed())
+                .add("discovered=" + getDiscovered())
+                .add("skipped=" + getSkipped())
+                .add("bytes=" + getBytes())
+                .add("errors=" + getErrors())
+                .toString();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.api;
+
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * The result of the page check that is made by an interceptor before the page processing.
+ * <br/>The reason of a skip is built lazily, only if it's requested, e.g. by a message listener or the debug log.
+ */
+public final class FilterDecision {
+
+    private static final FilterDecision PROCEED = new FilterDecision(null);
+
+    private final Supplier<String> reason;
+
+    private FilterDecision(Supplier<String> reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * @return the decision to continue the page processing
+     */
+    public static FilterDecision proceed() {
+        return PROCEED;
+    }
+
+    /**
+     * @param reason supplier of the description of the reason why the page is skipped
+     * @return the decision to skip the page processing, no successor pages will be returned for this page
+     */
+    public static FilterDecision skip(Supplier<String> reason) {
+        return new FilterDecision(null == reason ? () -> null : reason);
+    }
+
+    public boolean isSkipped() {
+        return this != PROCEED;
+    }
+
+    public Supplier<String> getReasonSupplier() {
+        return null == reason ? () -> null : reason;
+    }
+
+    public String getReason() {
+        return null == reason ? null : reason.get();
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", FilterDecision.class.getSimpleName() + "[", "]")
+                .add("skipped=" + isSkipped())
+                .toString();
+    }
+}
@@ -19,6 +19,8 @@ public class Page implements Serializable{
     private final AtomicReference<PageContext> pageContextRef;
     //successors found when processing this page
     private transient Iterable<Page> successorPages;
+    //the value cached on this page by a crawler component, it is shared by the copies
+    private transient PageAttachment attachment;
 
     //HTML of the page as a string
     private String pageSource;
@@ -69,30 +71,43 @@ public class Page implements Serializable{
         this.depth = page.depth;
         this.size = page.size;
         this.payload = page.payload;
+        this.attachment = page.attachment;
     }
 
     /**
      * This is the contract used by page TreeTraverser.
      * Using {@code PageProcessing} from the end-to-end context to process the current page.
+     * The successors are kept by this page, so the page is processed only once.
      * @return collection of successors found when processing this page.
      */
     public Iterable<Page> getSuccessorPages() {
 
-        if(getPageContextRef().get().getPageProcessing() == null){
-            throw new UnsupportedOperationException("The page has detached the context.");
-        }
-
         if(null != this.successorPages){
             return this.successorPages;
         }
 
-        this.successorPages = pageContextRef.get()
-                .getPageProcessing()
-                .process(this);
+        this.successorPages = processSuccessorPages();
 
         return successorPages;
     }
 
+    /**
+     * Using {@code PageProcessing} from the end-to-end context to process the current page.
+     * Unlike {@link #getSuccessorPages()} the successors are not kept by this page,
+     * so a processed page doesn't hold its subtree in memory.
+     * @return collection of successors found when processing this page.
+     */
+    public Iterable<Page> processSuccessorPages() {
+
+        if(getPageContextRef().get().getPageProcessing() == null){
+            throw new UnsupportedOperationException("The page has detached the context.");
+        }
+
+        return pageContextRef.get()
+                .getPageProcessing()
+                .process(this);
+    }
+
     public String getCrawlerName() {
         return crawlerName;
     }
@@ -161,6 +176,14 @@ public class Page implements Serializable{
         this.payload = payload;
     }
 
+    public PageAttachment getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(PageAttachment attachment) {
+        this.attachment = attachment;
+    }
+
 
     @Override
     public String toString() {
@@ -0,0 +1,12 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.api;
+
+/**
+ * {@code PageAttachment} is a transient value that a crawler component caches on the {@link Page},
+ * e.g. the resolved processing rules of the page. The attachment is opaque to the page, it is shared by the copies
+ * of the page and is not serialized.
+ */
+public interface PageAttachment {
+}
@@ -3,12 +3,13 @@
  */
 package org.babich.crawler.api;
 
+import com.google.common.primitives.Ints;
 import java.io.Serializable;
-import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
 import java.util.function.Consumer;
+import org.babich.crawler.configuration.PageProcessingChain;
 import org.babich.crawler.configuration.ProxyFactory;
 
 /**
@@ -16,27 +17,25 @@ import org.babich.crawler.configuration.ProxyFactory;
  * state of the process, such as the number of pages processed and all found at the moment.
  * It is a class of an immutable object that can be changed using a {@code transform} method
  * and {@code PageContext.Builder} to create a new one.
+ * <br/>The state is kept by the {@link CrawlStatistics} of the crawl, it is referenced by the context and is shared
+ * by the transformed and copied contexts, so the counters are updated in place without rebuilding the context.
  */
 public class PageContext implements Serializable {
 
     private final transient PageProcessing pageProcessing;
 
-    private final int pageCount;
+    private final CrawlStatistics statistics;
 
-    private final int pagesProcessed;
 
-
-    private PageContext(PageProcessing pageProcessing, int pageCount, int pagesProcessed) {
+    private PageContext(PageProcessing pageProcessing, CrawlStatistics statistics) {
 
         this.pageProcessing = pageProcessing;
-        this.pageCount = pageCount;
-        this.pagesProcessed = pagesProcessed;
+        this.statistics = statistics;
     }
 
     PageContext(PageContext pageContext){
         this.pageProcessing = null;
-        this.pageCount = pageContext.pageCount;
-        this.pagesProcessed = pageContext.pagesProcessed;
+        this.statistics = pageContext.statistics;
     }
 
 
@@ -44,7 +43,7 @@ public class PageContext implements Serializable {
      * @return count off all found pages
      */
     public int getPageCount() {
-        return pageCount;
+        return Ints.saturatedCast(statistics.getDiscovered());
     }
 
     /**
@@ -58,17 +57,23 @@ public class PageContext implements Serializable {
      * @return page processing service that downloads and parses resources
      */
     public int getPagesProcessed() {
-        return pagesProcessed;
+        return Ints.saturatedCast(statistics.getProcessed());
+    }
+
+    /**
+     * @return counters of the crawl
+     */
+    public CrawlStatistics getStatistics() {
+        return statistics;
     }
 
     /**
      * @param builderConsumer use the consumer's builder to change the context.
-     * @return new modified context.
+     * @return new modified context that shares the statistics with this one.
      */
     public PageContext transform(Consumer<Builder> builderConsumer) {
         Builder builder = new Builder()
-                .pageCount(this.pageCount)
-                .pagesProcessed(this.pagesProcessed)
+                .statistics(this.statistics)
                 .pageProcessing(this.pageProcessing);
 
         builderConsumer.accept(builder);
@@ -79,8 +84,8 @@ public class PageContext implements Serializable {
     public String toString() {
         return new StringJoiner(", ", PageContext.class.getSimpleName() + "[", "]")
                 .add("processingFlow=" + pageProcessing)
-                .add("pageCount=" + pageCount)
-                .add("pagePassed=" + pagesProcessed)
+                .add("pageCount=" + getPageCount())
+                .add("pagePassed=" + getPagesProcessed())
                 .toString();
     }
 
@@ -91,6 +96,7 @@ public class PageContext implements Serializable {
 
         private List<PageProcessingInterceptor> interceptors;
         private PageProcessing pageProcessing;
+        private CrawlStatistics statistics;
         private int pageCount;
         private int pagesProcessed;
 
@@ -105,6 +111,14 @@ public class PageContext implements Serializable {
             return this;
         }
 
+        /**
+         * @param statistics counters of the crawl, if they are set the page count and the pages processed are ignored
+         */
+        public Builder statistics(CrawlStatistics statistics) {
+            this.statistics = statistics;
+            return this;
+        }
+
         public Builder pageProcessing(PageProcessing pageProcessing) {
             this.pageProcessing = pageProcessing;
             return this;
@@ -121,26 +135,30 @@ public class PageContext implements Serializable {
 
         public PageContext build() {
             PageProcessing processing = pageProcessingSetUp(this.pageProcessing, this.interceptors);
-            return new PageContext(processing, pageCount, pagesProcessed);
+            return new PageContext(processing, null == statistics
+                    ? new CrawlStatistics(pagesProcessed, pageCount)
+                    : statistics);
         }
 
         /**
          * setting interceptors on a page processing service
          * @param pageProcessing origin {@code PageProcessing} object.
          * @param interceptors a list of interceptors that should invoke around the pageProcessing object.
-         * @return proxied {@code PageProcessing} instance
+         * @return {@code PageProcessing} instance with the interceptors
          */
         private PageProcessing pageProcessingSetUp(PageProcessing pageProcessing,
                 List<PageProcessingInterceptor> interceptors) {
 
-            //interceptors are based on Java proxy object, so multiple proxies must be avoided.
+            //a chain already contains the interceptors, so nested chains must be avoided.
             return isProxyRequired(pageProcessing, interceptors)
                     ? ProxyFactory.configureProcessingProxy(pageProcessing, interceptors)
                     : pageProcessing;
         }
 
         private boolean isProxyRequired(PageProcessing pageProcessing, List<PageProcessingInterceptor> interceptors) {
-            return !((null == interceptors || interceptors.isEmpty()) && Proxy.isProxyClass(pageProcessing.getClass()));
+            //a context without processing is detached, e.g. decoded from a backup
+            return null != pageProcessing
+                    && !((null == interceptors || interceptors.isEmpty()) && pageProcessing instanceof PageProcessingChain);
         }
     }
 }
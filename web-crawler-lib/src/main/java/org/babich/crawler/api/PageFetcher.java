@@ -0,0 +1,22 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.api;
+
+import java.io.IOException;
+
+/**
+ * Page fetcher service interface that provides a contract for downloading page sources.
+ * It is used by page processing services and interceptors that need the page source,
+ * so an implementation can be shared by all of them and reuse the connections to the same host.
+ */
+public interface PageFetcher {
+
+    /**
+     * Download the resource.
+     * @param pageUrl the URL of the resource
+     * @return the page source as a string
+     * @throws IOException if the resource cannot be loaded
+     */
+    String fetch(String pageUrl) throws IOException;
+}
@@ -17,6 +17,19 @@ public interface PageProcessingInterceptor extends Order {
     default void beforeProcessing(Page page){
     }
 
+    /**
+     * called before invoking the method {@link PageProcessing#process(org.babich.crawler.api.Page)}
+     * instead of {@link #beforeProcessing(Page)}. Filters override it to skip the page without an exception.
+     * <br/>By default, it calls {@link #beforeProcessing(Page)}, the interceptors that throw
+     * {@code PreProcessingChainException} to skip the page are still supported.
+     * @param page currently processed page
+     * @return the decision whether the page should be processed
+     */
+    default FilterDecision decide(Page page) {
+        beforeProcessing(page);
+        return FilterDecision.proceed();
+    }
+
     /**
      * called after invoking the method {@link PageProcessing#process(org.babich.crawler.api.Page)}
      * @param page currently processed page
@@ -25,4 +38,12 @@ public interface PageProcessingInterceptor extends Order {
     default void afterProcessing(Page page, List<Page> successorPages) {
     }
 
+    /**
+     * called instead of {@link #afterProcessing(Page, List)} when the page is skipped by a filter
+     * or its processing fails, the page has no successor pages
+     * @param page currently processed page
+     */
+    default void afterInterruption(Page page) {
+    }
+
 }
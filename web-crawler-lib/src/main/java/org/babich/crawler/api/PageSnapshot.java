@@ -0,0 +1,132 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.api;
+
+import java.io.Serializable;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Immutable state of a {@link Page} at the moment the message was posted, it is carried by the page messages
+ * instead of a copy of the page.
+ * <br/>The snapshot is a single object: the strings and the payload are shared with the page,
+ * the page source is not copied and the context is kept as the page counters.
+ * A detached {@code Page} is created from the snapshot only on demand by {@link #toPage()}.
+ */
+public final class PageSnapshot implements Serializable {
+    private static final long serialVersionUID = 1;
+
+    private final String crawlerName;
+    private final String pageUrl;
+    private final String pageName;
+    private final String pageSource;
+    private final int delay;
+    private final int depth;
+    private final long size;
+    private final Serializable payload;
+
+    //counters of the page context, the context is absent if the page count is negative
+    private final int pageCount;
+    private final int pagesProcessed;
+
+    private transient volatile Page page;
+
+    private PageSnapshot(Page page) {
+        this.crawlerName = page.getCrawlerName();
+        this.pageUrl = page.getPageUrl();
+        this.pageName = page.getPageName();
+        this.pageSource = page.getPageSource();
+        this.delay = page.getDelay();
+        this.depth = page.getDepth();
+        this.size = page.getSize();
+        this.payload = page.getPayload();
+
+        AtomicReference<PageContext> pageContextRef = page.getPageContextRef();
+        PageContext pageContext = null == pageContextRef ? null : pageContextRef.get();
+        this.pageCount = null == pageContext ? -1 : pageContext.getPageCount();
+        this.pagesProcessed = null == pageContext ? 0 : pageContext.getPagesProcessed();
+    }
+
+    public static PageSnapshot of(Page page) {
+        if (null == page) {
+            throw new IllegalArgumentException("page cannot be null.");
+        }
+        return new PageSnapshot(page);
+    }
+
+    public String getCrawlerName() {
+        return crawlerName;
+    }
+
+    public String getPageUrl() {
+        return pageUrl;
+    }
+
+    public String getPageName() {
+        return pageName;
+    }
+
+    public String getPageSource() {
+        return pageSource;
+    }
+
+    public int getDelay() {
+        return delay;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Serializable getPayload() {
+        return payload;
+    }
+
+    public boolean hasContext() {
+        return pageCount >= 0;
+    }
+
+    public int getPageCount() {
+        return Math.max(pageCount, 0);
+    }
+
+    public int getPagesProcessed() {
+        return pagesProcessed;
+    }
+
+    /**
+     * @return page with a detached context, it is created once on the first call
+     */
+    public Page toPage() {
+        Page result = page;
+        if (null != result) {
+            return result;
+        }
+
+        PageContext pageContext = hasContext()
+                ? new PageContext.Builder().pageCount(pageCount).pagesProcessed(pagesProcessed).build()
+                : null;
+        result = new Page(new AtomicReference<>(pageContext), crawlerName, pageUrl, pageName
+                , pageSource, delay, depth, size, payload);
+        page = result;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", PageSnapshot.class.getSimpleName() + "[", "]")
+                .add("crawlerName='" + crawlerName + "'")
+                .add("pageUrl='" + pageUrl + "'")
+                .add("pageSource='" + StringUtils.length(pageSource) + "'")
+                .add("pageName='" + pageName + "'")
+                .add("delay=" + delay)
+                .add("depth=" + depth)
+                .toString();
+    }
+}
@@ -20,6 +20,13 @@ public class ProcessingMessage implements Serializable {
         this.time = LocalDateTime.now();
     }
 
+    /**
+     * @param time the time when the message was created, it is used when the message is decoded
+     */
+    protected ProcessingMessage(LocalDateTime time) {
+        this.time = time;
+    }
+
     public LocalDateTime getTime() {
         return time;
     }
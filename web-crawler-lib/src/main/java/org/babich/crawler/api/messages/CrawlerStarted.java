@@ -4,6 +4,7 @@
 package org.babich.crawler.api.messages;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.StringJoiner;
 import org.babich.crawler.api.ProcessingMessage;
 
@@ -22,6 +23,11 @@ public class CrawlerStarted extends ProcessingMessage {
         this.payload = payload;
     }
 
+    public CrawlerStarted(Serializable payload, LocalDateTime time) {
+        super(time);
+        this.payload = payload;
+    }
+
     public Serializable getPayload() {
         return payload;
     }
@@ -4,6 +4,7 @@
 package org.babich.crawler.api.messages;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.StringJoiner;
 import org.babich.crawler.api.ProcessingMessage;
 
@@ -30,6 +31,12 @@ public class CrawlerStopped extends ProcessingMessage {
         this.abnormal = abnormal;
     }
 
+    public CrawlerStopped(Serializable payload, boolean abnormal, LocalDateTime time) {
+        super(time);
+        this.payload = payload;
+        this.abnormal = abnormal;
+    }
+
     public Serializable getPayload() {
         return payload;
     }
@@ -3,8 +3,13 @@
  */
 package org.babich.crawler.api.messages;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
 import java.util.StringJoiner;
+import java.util.function.Supplier;
 import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageSnapshot;
 import org.babich.crawler.api.ProcessingMessage;
 
 
@@ -14,35 +19,68 @@ import org.babich.crawler.api.ProcessingMessage;
  */
 public class PageProcessingSkippe extends ProcessingMessage {
 
-    private static final long serialVersionUID = 1;
+    private static final long serialVersionUID = 2;
 
-    private final Page page;
+    private final PageSnapshot snapshot;
 
     //the cause why page processing was skipped
-    private final String cause;
+    private String cause;
+    //builds the cause on demand
+    private transient Supplier<String> causeSupplier;
 
     public PageProcessingSkippe(Page page) {
-        this(page, null);
+        this(page, (String) null);
     }
 
     public PageProcessingSkippe(Page page, String cause) {
-        this.page = page;
+        this.snapshot = PageSnapshot.of(page);
         this.cause = cause;
     }
 
+    public PageProcessingSkippe(Page page, Supplier<String> causeSupplier) {
+        this(PageSnapshot.of(page), causeSupplier);
+    }
+
+    public PageProcessingSkippe(PageSnapshot snapshot, Supplier<String> causeSupplier) {
+        this.snapshot = snapshot;
+        this.causeSupplier = causeSupplier;
+    }
+
+    public PageProcessingSkippe(Page page, String cause, LocalDateTime time) {
+        super(time);
+        this.snapshot = PageSnapshot.of(page);
+        this.cause = cause;
+    }
+
+    public PageSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return detached page created from the snapshot, use {@link #getSnapshot()} to read the page fields
+     */
     public Page getPage() {
-        return page;
+        return snapshot.toPage();
     }
 
     public String getCause() {
+        if (null == cause && null != causeSupplier) {
+            cause = causeSupplier.get();
+            causeSupplier = null;
+        }
         return cause;
     }
 
+    private void writeObject(ObjectOutputStream outputStream) throws IOException {
+        getCause();
+        outputStream.defaultWriteObject();
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", PageProcessingSkippe.class.getSimpleName() + "[", "]")
-                .add("page=" + page)
-                .add("cause='" + cause + "'")
+                .add("page=" + snapshot)
+                .add("cause='" + getCause() + "'")
                 .toString();
     }
 }
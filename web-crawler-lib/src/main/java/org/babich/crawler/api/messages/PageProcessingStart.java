@@ -3,8 +3,10 @@
  */
 package org.babich.crawler.api.messages;
 
+import java.time.LocalDateTime;
 import java.util.StringJoiner;
 import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageSnapshot;
 import org.babich.crawler.api.ProcessingMessage;
 
 
@@ -14,23 +16,39 @@ import org.babich.crawler.api.ProcessingMessage;
  */
 public class PageProcessingStart extends ProcessingMessage {
 
-    private static final long serialVersionUID = 1;
+    private static final long serialVersionUID = 2;
 
-    private final Page page;
+    private final PageSnapshot snapshot;
 
     public PageProcessingStart(Page page) {
-        this.page = page;
+        this(PageSnapshot.of(page));
     }
 
+    public PageProcessingStart(PageSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public PageProcessingStart(Page page, LocalDateTime time) {
+        super(time);
+        this.snapshot = PageSnapshot.of(page);
+    }
+
+    public PageSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return detached page created from the snapshot, use {@link #getSnapshot()} to read the page fields
+     */
     public Page getPage() {
-        return page;
+        return snapshot.toPage();
     }
 
     @Override
     public String toString() {
         return new StringJoiner(", ", PageProcessingStart.class.getSimpleName() + "[", "]")
                 .add("time=" + time)
-                .add("page=" + page)
+                .add("page=" + snapshot)
                 .toString();
     }
 }
@@ -3,6 +3,7 @@
  */
 package org.babich.crawler.api.messages;
 
+import java.time.LocalDateTime;
 import java.util.StringJoiner;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.ProcessingMessage;
@@ -29,6 +30,12 @@ public class PageRecovered extends ProcessingMessage {
         this.page = page;
     }
 
+    public PageRecovered(Page page, boolean processed, LocalDateTime time) {
+        super(time);
+        this.processed = processed;
+        this.page = page;
+    }
+
     public Page getPage() {
         return page;
     }
@@ -0,0 +1,20 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.codec;
+
+/**
+ * The data cannot be encoded or decoded by the binary codec.
+ */
+public class CodecException extends RuntimeException {
+
+    private static final long serialVersionUID = 1;
+
+    public CodecException(String message) {
+        super(message);
+    }
+
+    public CodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader of the primitives written by {@link CodecOutput}.
+ * <br/>{@link CodecException} is thrown if the data is truncated or damaged.
+ */
+public class CodecInput {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    public CodecInput(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public CodecInput(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++];
+    }
+
+    public boolean readBoolean() {
+        return 0 != readByte();
+    }
+
+    public int readVarInt() {
+        int value = (int) readUnsignedVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readVarLong() {
+        long value = readUnsignedVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readUnsignedVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte current = buffer[position++];
+            value |= (long) (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new CodecException("Malformed varint.");
+    }
+
+    public String readString() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public byte[] readBytes() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+
+        require(length);
+        byte[] value = new byte[length];
+        System.arraycopy(buffer, position, value, 0, length);
+        position += length;
+        return value;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    private int readLength() {
+        long length = readUnsignedVarLong() - 1;
+        if (length > Integer.MAX_VALUE) {
+            throw new CodecException("Incorrect length " + length);
+        }
+        return (int) length;
+    }
+
+    private void require(int length) {
+        if (length > limit - position) {
+            throw new CodecException("Unexpected end of data.");
+        }
+    }
+}
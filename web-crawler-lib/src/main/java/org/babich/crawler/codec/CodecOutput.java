@@ -0,0 +1,103 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the primitives of the binary format: varints and length-prefixed UTF-8 strings.
+ * <br/>Signed numbers are zigzag encoded, so small negative values are short too.
+ */
+public class CodecOutput {
+
+    private byte[] buffer;
+    private int position;
+
+    public CodecOutput() {
+        this(256);
+    }
+
+    public CodecOutput(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public CodecOutput writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public CodecOutput writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    public CodecOutput writeVarInt(int value) {
+        return writeUnsignedVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    public CodecOutput writeVarLong(long value) {
+        return writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public CodecOutput writeUnsignedVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * The length is written increased by one, zero means {@code null}.
+     */
+    public CodecOutput writeString(String value) {
+        if (null == value) {
+            return writeUnsignedVarLong(0);
+        }
+
+        return writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The length is written increased by one, zero means {@code null}.
+     */
+    public CodecOutput writeBytes(byte[] value) {
+        if (null == value) {
+            return writeUnsignedVarLong(0);
+        }
+
+        writeUnsignedVarLong(value.length + 1L);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+        return this;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public void reset() {
+        position = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(buffer, 0, position);
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.codec;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import org.babich.crawler.api.ProcessingMessage;
+import org.babich.crawler.api.messages.CrawlerStarted;
+import org.babich.crawler.api.messages.CrawlerStopped;
+import org.babich.crawler.api.messages.PageProcessingComplete;
+import org.babich.crawler.api.messages.PageProcessingSkippe;
+import org.babich.crawler.api.messages.PageProcessingStart;
+import org.babich.crawler.api.messages.PageRecovered;
+import org.babich.crawler.api.messages.SuccessorsProcessingComplete;
+
+/**
+ * Compact binary format of the crawler messages, the pages of the messages are encoded by the {@link PageCodec}.
+ * <br/>The encoded message starts with the {@code MAGIC} bytes, the format version and the message type
+ * followed by the time and the fields of the message.
+ * <p/>The class is thread safe.
+ */
+public class MessageCodec {
+
+    private static final byte[] MAGIC = {(byte) 0xCB, 'M'};
+    private static final int VERSION = 1;
+
+    private static final int CRAWLER_STARTED = 1;
+    private static final int CRAWLER_STOPPED = 2;
+    private static final int PAGE_PROCESSING_START = 3;
+    private static final int PAGE_PROCESSING_COMPLETE = 4;
+    private static final int PAGE_PROCESSING_SKIPPED = 5;
+    private static final int PAGE_RECOVERED = 6;
+    private static final int SUCCESSORS_PROCESSING_COMPLETE = 7;
+
+    private final PageCodec pageCodec;
+    private final PayloadCodec payloadCodec;
+
+    public MessageCodec() {
+        this(PayloadCodec.DEFAULT);
+    }
+
+    public MessageCodec(PayloadCodec payloadCodec) {
+        this.pageCodec = new PageCodec(payloadCodec);
+        this.payloadCodec = payloadCodec;
+    }
+
+    public byte[] encode(ProcessingMessage message) {
+        CodecOutput output = new CodecOutput();
+        output.writeByte(MAGIC[0]).writeByte(MAGIC[1]).writeByte(VERSION);
+        write(output, message);
+        return output.toByteArray();
+    }
+
+    public ProcessingMessage decode(byte[] bytes) {
+        if (null == bytes || bytes.length <= MAGIC.length || MAGIC[0] != bytes[0] || MAGIC[1] != bytes[1]) {
+            throw new CodecException("The data is not an encoded message.");
+        }
+
+        CodecInput input = new CodecInput(bytes, MAGIC.length, bytes.length - MAGIC.length);
+        int version = input.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new CodecException("Unsupported message format version " + version);
+        }
+        return read(input);
+    }
+
+    public void write(CodecOutput output, ProcessingMessage message) {
+        int type = typeOf(message);
+        output.writeByte(type);
+        writeTime(output, message.getTime());
+
+        switch (type) {
+            case CRAWLER_STARTED:
+                payloadCodec.write(output, ((CrawlerStarted) message).getPayload());
+                break;
+            case CRAWLER_STOPPED:
+                CrawlerStopped crawlerStopped = (CrawlerStopped) message;
+                payloadCodec.write(output, crawlerStopped.getPayload());
+                output.writeBoolean(crawlerStopped.isAbnormal());
+                break;
+            case PAGE_PROCESSING_START:
+                pageCodec.write(output, ((PageProcessingStart) message).getSnapshot());
+                break;
+            case PAGE_PROCESSING_COMPLETE:
+                pageCodec.write(output, ((PageProcessingComplete) message).getSnapshot());
+                break;
+            case PAGE_PROCESSING_SKIPPED:
+                PageProcessingSkippe processingSkipped = (PageProcessingSkippe) message;
+                pageCodec.write(output, processingSkipped.getSnapshot());
+                output.writeString(processingSkipped.getCause());
+                break;
+            case PAGE_RECOVERED:
+                PageRecovered pageRecovered = (PageRecovered) message;
+                pageCodec.write(output, pageRecovered.getPage());
+                output.writeBoolean(pageRecovered.isProcessed());
+                break;
+            default:
+                pageCodec.write(output, ((SuccessorsProcessingComplete) message).getSnapshot());
+        }
+    }
+
+    public ProcessingMessage read(CodecInput input) {
+        int type = input.readByte();
+        LocalDateTime time = readTime(input);
+
+        switch (type) {
+            case CRAWLER_STARTED:
+                return new CrawlerStarted(payloadCodec.read(input), time);
+            case CRAWLER_STOPPED:
+                return new CrawlerStopped(payloadCodec.read(input), input.readBoolean(), time);
+            case PAGE_PROCESSING_START:
+                return new PageProcessingStart(pageCodec.read(input), time);
+            case PAGE_PROCESSING_COMPLETE:
+                return new PageProcessingComplete(pageCodec.read(input), time);
+            case PAGE_PROCESSING_SKIPPED:
+                return new PageProcessingSkippe(pageCodec.read(input), input.readString(), time);
+            case PAGE_RECOVERED:
+                return new PageRecovered(pageCodec.read(input), input.readBoolean(), time);
+            case SUCCESSORS_PROCESSING_COMPLETE:
+                return new SuccessorsProcessingComplete(pageCodec.read(input), time);
+            default:
+                throw new CodecException("Unknown message type " + type);
+        }
+    }
+
+    private static int typeOf(ProcessingMessage message) {
+        if (message instanceof CrawlerStarted) {
+            return CRAWLER_STARTED;
+        } else if (message instanceof CrawlerStopped) {
+            return CRAWLER_STOPPED;
+        } else if (message instanceof PageProcessingStart) {
+            return PAGE_PROCESSING_START;
+        } else if (message instanceof PageProcessingComplete) {
+            return PAGE_PROCESSING_COMPLETE;
+        } else if (message instanceof PageProcessingSkippe) {
+            return PAGE_PROCESSING_SKIPPED;
+        } else if (message instanceof PageRecovered) {
+            return PAGE_RECOVERED;
+        } else if (message instanceof SuccessorsProcessingComplete) {
+            return SUCCESSORS_PROCESSING_COMPLETE;
+        }
+        throw new CodecException("Unsupported message " + message.getClass());
+    }
+
+    private static void writeTime(CodecOutput output, LocalDateTime time) {
+        output.writeVarLong(time.toLocalDate().toEpochDay())
+                .writeUnsignedVarLong(time.toLocalTime().toNanoOfDay());
+    }
+
+    private static LocalDateTime readTime(CodecInput input) {
+        return LocalDateTime.of(LocalDate.ofEpochDay(input.readVarLong())
+                , LocalTime.ofNanoOfDay(input.readUnsignedVarLong()));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.codec;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.PageSnapshot;
+
+/**
+ * Compact binary format of the {@link Page} and its {@link PageContext}, it replaces JDK serialization
+ * for backups and page transfer.
+ * <br/>The encoded page starts with the {@code MAGIC} bytes and the format version followed by the fields:
+ * numbers are varints, strings are length-prefixed UTF-8. The page processing is not encoded,
+ * so a decoded page has a detached context like a deserialized one.
+ * <p/>The class is thread safe.
+ */
+public class PageCodec {
+
+    private static final byte[] MAGIC = {(byte) 0xCB, 'P'};
+    private static final int VERSION = 1;
+
+    private final PayloadCodec payloadCodec;
+
+    public PageCodec() {
+        this(PayloadCodec.DEFAULT);
+    }
+
+    public PageCodec(PayloadCodec payloadCodec) {
+        if (null == payloadCodec) {
+            throw new IllegalArgumentException("payloadCodec cannot be null.");
+        }
+        this.payloadCodec = payloadCodec;
+    }
+
+    /**
+     * @return {@code true} if the data starts with the magic bytes of this format
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return null != bytes && bytes.length > MAGIC.length && MAGIC[0] == bytes[0] && MAGIC[1] == bytes[1];
+    }
+
+    public byte[] encode(Page page) {
+        CodecOutput output = new CodecOutput(estimateSize(page));
+        output.writeByte(MAGIC[0]).writeByte(MAGIC[1]).writeByte(VERSION);
+        write(output, page);
+        return output.toByteArray();
+    }
+
+    public Page decode(byte[] bytes) {
+        if (!isEncoded(bytes)) {
+            throw new CodecException("The data is not an encoded page.");
+        }
+
+        CodecInput input = new CodecInput(bytes, MAGIC.length, bytes.length - MAGIC.length);
+        int version = input.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new CodecException("Unsupported page format version " + version);
+        }
+        return read(input);
+    }
+
+    /**
+     * writes the page fields without the header, it is used to embed the page to other records
+     */
+    public void write(CodecOutput output, Page page) {
+        AtomicReference<PageContext> pageContextRef = page.getPageContextRef();
+        writeContext(output, null == pageContextRef ? null : pageContextRef.get());
+
+        output.writeString(page.getCrawlerName())
+                .writeString(page.getPageUrl())
+                .writeString(page.getPageName())
+                .writeString(page.getPageSource())
+                .writeVarInt(page.getDelay())
+                .writeVarInt(page.getDepth())
+                .writeVarLong(page.getSize());
+        payloadCodec.write(output, page.getPayload());
+    }
+
+    /**
+     * writes the snapshot in the format of the page, so it is read back by {@link #read(CodecInput)}
+     */
+    public void write(CodecOutput output, PageSnapshot snapshot) {
+        output.writeBoolean(snapshot.hasContext());
+        if (snapshot.hasContext()) {
+            output.writeVarInt(snapshot.getPageCount())
+                    .writeVarInt(snapshot.getPagesProcessed());
+        }
+
+        output.writeString(snapshot.getCrawlerName())
+                .writeString(snapshot.getPageUrl())
+                .writeString(snapshot.getPageName())
+                .writeString(snapshot.getPageSource())
+                .writeVarInt(snapshot.getDelay())
+                .writeVarInt(snapshot.getDepth())
+                .writeVarLong(snapshot.getSize());
+        payloadCodec.write(output, snapshot.getPayload());
+    }
+
+    public Page read(CodecInput input) {
+        PageContext pageContext = readContext(input);
+
+        String crawlerName = input.readString();
+        String pageUrl = input.readString();
+        String pageName = input.readString();
+        String pageSource = input.readString();
+        int delay = input.readVarInt();
+        int depth = input.readVarInt();
+        long size = input.readVarLong();
+
+        return new Page(new AtomicReference<>(pageContext), crawlerName, pageUrl, pageName
+                , pageSource, delay, depth, size, payloadCodec.read(input));
+    }
+
+    /**
+     * writes the reference of the page: the url, the name and the depth, without the context, the source
+     * and the payload, it is used by the records that keep only the place of the page in the crawl
+     */
+    public void writeReference(CodecOutput output, Page page) {
+        output.writeString(page.getPageUrl())
+                .writeString(page.getPageName())
+                .writeVarInt(page.getDepth());
+    }
+
+    /**
+     * reads the page written by {@link #writeReference(CodecOutput, Page)}
+     */
+    public Page readReference(CodecInput input, String crawlerName, PageContext pageContext) {
+        String pageUrl = input.readString();
+        String pageName = input.readString();
+
+        Page page = new Page(new AtomicReference<>(pageContext), crawlerName, pageUrl, pageName);
+        page.setDepth(input.readVarInt());
+        return page;
+    }
+
+    public void writeContext(CodecOutput output, PageContext pageContext) {
+        output.writeBoolean(null != pageContext);
+        if (null != pageContext) {
+            output.writeVarInt(pageContext.getPageCount())
+                    .writeVarInt(pageContext.getPagesProcessed());
+        }
+    }
+
+    public PageContext readContext(CodecInput input) {
+        if (!input.readBoolean()) {
+            return null;
+        }
+
+        return new PageContext.Builder()
+                .pageCount(input.readVarInt())
+                .pagesProcessed(input.readVarInt())
+                .build();
+    }
+
+    private static int estimateSize(Page page) {
+        return 64 + length(page.getPageUrl()) + length(page.getPageName()) + length(page.getCrawlerName())
+                + length(page.getPageSource());
+    }
+
+    private static int length(String value) {
+        return null == value ? 0 : value.length();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Hook to encode the payload of pages and messages, it is any serializable object, so the codec cannot know
+ * its structure.
+ * <br/>The {@link #DEFAULT} codec writes strings as they are and falls back to JDK serialization for other types.
+ */
+public interface PayloadCodec {
+
+    PayloadCodec DEFAULT = new PayloadCodec() {
+
+        private static final int NULL = 0;
+        private static final int STRING = 1;
+        private static final int SERIALIZED = 2;
+
+        @Override
+        public void write(CodecOutput output, Serializable payload) {
+            if (null == payload) {
+                output.writeByte(NULL);
+            } else if (payload instanceof String) {
+                output.writeByte(STRING).writeString((String) payload);
+            } else {
+                output.writeByte(SERIALIZED).writeBytes(serialize(payload));
+            }
+        }
+
+        @Override
+        public Serializable read(CodecInput input) {
+            int type = input.readByte();
+            switch (type) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return input.readString();
+                case SERIALIZED:
+                    return deserialize(input.readBytes());
+                default:
+                    throw new CodecException("Unknown payload type " + type);
+            }
+        }
+
+        private byte[] serialize(Serializable payload) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+                outputStream.writeObject(payload);
+            } catch (IOException e) {
+                throw new CodecException("Unable to serialize the payload " + payload.getClass(), e);
+            }
+            return bytes.toByteArray();
+        }
+
+        private Serializable deserialize(byte[] bytes) {
+            try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return (Serializable) inputStream.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new CodecException("Unable to deserialize the payload.", e);
+            }
+        }
+    };
+
+    void write(CodecOutput output, Serializable payload);
+
+    Serializable read(CodecInput input);
+}
@@ -4,13 +4,19 @@
 package org.babich.crawler.configuration;
 
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.StringJoiner;
 import java.util.function.Predicate;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
 import org.babich.crawler.api.BackupService;
 import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageFetcher;
 import org.babich.crawler.api.PageProcessing;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.api.processing.AssignedPageProcessing;
@@ -42,6 +48,16 @@ public class ApplicationConfig {
     //page processing delay settings
     private Delay delay;
     private PageConfig page;
+    //settings of the http connections used to load pages
+    private Connection connection;
+    //page fetcher shared by page processing services and interceptors
+    private PageFetcher fetcher;
+    //storage of the urls of the processed pages
+    private VisitedUrls visitedUrls;
+    //settings of the journal of the processed and found pages used to restore the crawler
+    private Journal journal;
+    //storage of the page sources
+    private SourceStore pageSourceStore;
     //Processing restrictions
     private Limit limit;
     private Traverser traverser;
@@ -134,6 +150,282 @@ public class ApplicationConfig {
         }
     }
 
+    /**
+     * settings of the http connections used to load pages. The timeouts are in ms.
+     */
+    public static class Connection {
+
+        private int maxConnections = 200;
+        private int maxConnectionsPerHost = 8;
+        private int connectTimeout = 10000;
+        private int readTimeout = 30000;
+        //how long an idle connection is kept alive if the server doesn't specify it
+        private int keepAlive = 30000;
+        //the body of a page is truncated to the size in bytes, 0 is unlimited
+        private int maxBodySize = 2 * 1024 * 1024;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerHost() {
+            return maxConnectionsPerHost;
+        }
+
+        public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+        }
+
+        public int getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public int getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(int readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public int getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(int keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public int getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Connection.class.getSimpleName() + "[", "]")
+                    .add("maxConnections=" + maxConnections)
+                    .add("maxConnectionsPerHost=" + maxConnectionsPerHost)
+                    .add("connectTimeout=" + connectTimeout)
+                    .add("readTimeout=" + readTimeout)
+                    .add("keepAlive=" + keepAlive)
+                    .add("maxBodySize=" + maxBodySize)
+                    .toString();
+        }
+    }
+
+    /**
+     * settings of the set of the processed page urls.
+     * <br/>{@code EXACT} keeps the url strings on heap, {@code FINGERPRINT} keeps 64-bit url hashes
+     * and {@code BLOOM} is a Bloom filter with the {@code falsePositiveRate} at the expected {@code capacity}.
+     * The last two are stored off-heap, in the direct memory or in mapped files of the {@code path} directory.
+     */
+    public static class VisitedUrls {
+
+        public enum Mode {
+            EXACT,
+            FINGERPRINT,
+            BLOOM
+        }
+
+        private Mode mode = Mode.EXACT;
+        private long capacity = 1_000_000;
+        private double falsePositiveRate = 0.01;
+        private String path;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", VisitedUrls.class.getSimpleName() + "[", "]")
+                    .add("mode=" + mode)
+                    .add("capacity=" + capacity)
+                    .add("falsePositiveRate=" + falsePositiveRate)
+                    .add("path='" + path + "'")
+                    .toString();
+        }
+    }
+
+    /**
+     * settings of the append-only journal of the processed and found pages.
+     * <br/>Records are written to the disk in batches of {@code batchSize}, so at most one batch is lost
+     * after a hard crash, and they are forced to the storage device according to the {@code sync} policy.
+     * The journal is compacted to a snapshot every {@code snapshotInterval} records.
+     */
+    public static class Journal {
+
+        public enum Sync {
+            //after every batch
+            BATCH,
+            //not more often than once in syncInterval ms
+            INTERVAL,
+            //left to the operating system
+            NONE
+        }
+
+        //a temporary directory is used if the path is empty
+        private String path;
+        private int batchSize = 100;
+        private Sync sync = Sync.BATCH;
+        private long syncInterval = 1000;
+        private long snapshotInterval = 100_000;
+        //expected number of pages, used to size the fingerprint sets when the journal is compacted
+        private long capacity = 1_000_000;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Sync getSync() {
+            return sync;
+        }
+
+        public void setSync(Sync sync) {
+            this.sync = sync;
+        }
+
+        public long getSyncInterval() {
+            return syncInterval;
+        }
+
+        public void setSyncInterval(long syncInterval) {
+            this.syncInterval = syncInterval;
+        }
+
+        public long getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(long snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Journal.class.getSimpleName() + "[", "]")
+                    .add("path='" + path + "'")
+                    .add("batchSize=" + batchSize)
+                    .add("sync=" + sync)
+                    .add("syncInterval=" + syncInterval)
+                    .add("snapshotInterval=" + snapshotInterval)
+                    .add("capacity=" + capacity)
+                    .toString();
+        }
+    }
+
+    /**
+     * settings of the storage that appends page sources to the segment files of the {@code path} directory,
+     * a new segment is started when the current one reaches the {@code segmentSize} in bytes.
+     * A temporary directory is used if the path is not set, it is created once and shared by the stores
+     * of the settings, so the sources written by a persister are read by an exporter.
+     */
+    public static class SourceStore {
+
+        private String path;
+        private long segmentSize = 256 * 1024 * 1024;
+        private Path temporaryDirectory;
+
+        public String getPath() {
+            return path;
+        }
+
+        public synchronized void setPath(String path) {
+            this.path = path;
+            this.temporaryDirectory = null;
+        }
+
+        /**
+         * @return the existing directory of the path or the temporary directory of these settings
+         */
+        public synchronized Path resolveDirectory() throws IOException {
+            if (StringUtils.isNotBlank(path)) {
+                return Files.createDirectories(Paths.get(path));
+            }
+            if (null == temporaryDirectory) {
+                temporaryDirectory = Files.createTempDirectory("page_source_store");
+            }
+            //the empty directory is removed by the store when the crawler is stopped
+            return Files.createDirectories(temporaryDirectory);
+        }
+
+        public long getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(long segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", SourceStore.class.getSimpleName() + "[", "]")
+                    .add("path='" + path + "'")
+                    .add("segmentSize=" + segmentSize)
+                    .toString();
+        }
+    }
+
     /**
      * page processing delay settings {@code min} and {@code max} delay in ms that applied before page processing.
      */
@@ -223,6 +515,12 @@ public class ApplicationConfig {
         }
 
         private Mode mode;
+        //number of threads processing pages, pages are processed one by one by the crawler thread if it's 1.
+        private int workers = 1;
+        //pages are traversed through the frontier and processed pages are released even with a single worker
+        private boolean streaming;
+        //the breadth-first frontier is kept on a disk if the path is set
+        private FrontierConfig frontier;
 
         public Mode getMode() {
             return mode;
@@ -232,7 +530,103 @@ public class ApplicationConfig {
             this.mode = mode;
         }
 
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public boolean isStreaming() {
+            return streaming;
+        }
+
+        public void setStreaming(boolean streaming) {
+            this.streaming = streaming;
+        }
+
+        public FrontierConfig getFrontier() {
+            return frontier;
+        }
+
+        public void setFrontier(FrontierConfig frontier) {
+            this.frontier = frontier;
+        }
+
+        /**
+         * @return true if pages are traversed through the frontier instead of the single-threaded iterator
+         */
+        public boolean isFrontierRequired() {
+            return workers > 1 || streaming || (null != frontier && null != frontier.getPath());
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Traverser.class.getSimpleName() + "[", "]")
+                    .add("mode=" + mode)
+                    .add("workers=" + workers)
+                    .add("streaming=" + streaming)
+                    .add("frontier=" + frontier)
+                    .toString();
+        }
 
+        /**
+         * settings of the disk-backed frontier of the breadth-first traversal
+         */
+        public static class FrontierConfig {
+
+            //directory of the frontier files
+            private String path;
+            //size of a memory-mapped segment file in bytes
+            private int segmentSize = 64 * 1024 * 1024;
+            //number of pages read from the disk in advance
+            private int bufferSize = 1024;
+            //the traversal continues from the pages left in the frontier by the previous run
+            private boolean resume;
+
+            public String getPath() {
+                return path;
+            }
+
+            public void setPath(String path) {
+                this.path = path;
+            }
+
+            public int getSegmentSize() {
+                return segmentSize;
+            }
+
+            public void setSegmentSize(int segmentSize) {
+                this.segmentSize = segmentSize;
+            }
+
+            public int getBufferSize() {
+                return bufferSize;
+            }
+
+            public void setBufferSize(int bufferSize) {
+                this.bufferSize = bufferSize;
+            }
+
+            public boolean isResume() {
+                return resume;
+            }
+
+            public void setResume(boolean resume) {
+                this.resume = resume;
+            }
+
+            @Override
+            public String toString() {
+                return new StringJoiner(", ", FrontierConfig.class.getSimpleName() + "[", "]")
+                        .add("path='" + path + "'")
+                        .add("segmentSize=" + segmentSize)
+                        .add("bufferSize=" + bufferSize)
+                        .add("resume=" + resume)
+                        .toString();
+            }
+        }
     }
 
     /**
@@ -285,6 +679,46 @@ public class ApplicationConfig {
         this.page = page;
     }
 
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public void setConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    public PageFetcher getFetcher() {
+        return fetcher;
+    }
+
+    public void setFetcher(PageFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    public VisitedUrls getVisitedUrls() {
+        return visitedUrls;
+    }
+
+    public void setVisitedUrls(VisitedUrls visitedUrls) {
+        this.visitedUrls = visitedUrls;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public SourceStore getPageSourceStore() {
+        return pageSourceStore;
+    }
+
+    public void setPageSourceStore(SourceStore pageSourceStore) {
+        this.pageSourceStore = pageSourceStore;
+    }
+
     public Delay getDelay() {
         return delay;
     }
@@ -366,6 +800,11 @@ public class ApplicationConfig {
                 .add("eventBus=" + eventBus)
                 .add("timeout=" + delay)
                 .add("page=" + page)
+                .add("connection=" + connection)
+                .add("fetcher=" + fetcher)
+                .add("visitedUrls=" + visitedUrls)
+                .add("journal=" + journal)
+                .add("pageSourceStore=" + pageSourceStore)
                 .add("limit=" + limit)
                 .add("traverser=" + traverser)
                 .add("metrics=" + metrics)
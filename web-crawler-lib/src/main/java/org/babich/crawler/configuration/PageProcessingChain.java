@@ -0,0 +1,169 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.configuration;
+
+import com.google.common.collect.Lists;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.babich.crawler.api.CrawlStatistics;
+import org.babich.crawler.api.FilterDecision;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.PageProcessing;
+import org.babich.crawler.api.PageProcessingInterceptor;
+import org.babich.crawler.configuration.exception.PreProcessingChainException;
+import org.babich.crawler.metrics.PageProcessingServiceMetricsProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Page processing with the interceptors invoked around it. The chain is built once and sorted in order,
+ * the minimum value is executed first in both phases.
+ * An interceptor takes part only in the phases whose methods it implements.
+ * <br/>The preprocessing phase is interrupted by the first interceptor that skips the page,
+ * in this case the page is not processed and no successor pages are returned.
+ * The skipped and the failed pages are counted by the {@link CrawlStatistics} of the page context,
+ * the interceptors are notified about them by {@link PageProcessingInterceptor#afterInterruption(Page)}.
+ */
+public final class PageProcessingChain implements PageProcessing {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final PageProcessing delegate;
+    private final PageProcessingInterceptor[] beforeProcessing;
+    private final PageProcessingInterceptor[] afterProcessing;
+    private final PageProcessingInterceptor[] afterInterruption;
+
+    PageProcessingChain(PageProcessing delegate, Collection<PageProcessingInterceptor> interceptors) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("delegate cannot be null.");
+        }
+
+        List<PageProcessingInterceptor> sortedInterceptors = null == interceptors
+                ? Collections.emptyList()
+                : interceptors.stream()
+                .sorted(Comparator.comparingInt(PageProcessingInterceptor::getOrder))
+                .collect(Collectors.toList());
+
+        this.delegate = delegate;
+        this.beforeProcessing = sortedInterceptors.stream()
+                .filter(interceptor -> isImplemented(interceptor, "decide", Page.class)
+                        || isImplemented(interceptor, "beforeProcessing", Page.class))
+                .map(PageProcessingServiceMetricsProducer::new)
+                .toArray(PageProcessingInterceptor[]::new);
+        this.afterProcessing = sortedInterceptors.stream()
+                .filter(interceptor -> isImplemented(interceptor, "afterProcessing", Page.class, List.class))
+                .map(PageProcessingServiceMetricsProducer::new)
+                .toArray(PageProcessingInterceptor[]::new);
+        this.afterInterruption = sortedInterceptors.stream()
+                .filter(interceptor -> isImplemented(interceptor, "afterInterruption", Page.class))
+                .map(PageProcessingServiceMetricsProducer::new)
+                .toArray(PageProcessingInterceptor[]::new);
+    }
+
+    @Override
+    public Iterable<Page> process(Page page) {
+        try {
+            for (PageProcessingInterceptor interceptor : beforeProcessing) {
+                FilterDecision decision = interceptor.decide(page);
+                if (decision.isSkipped()) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Processing of a page {} has been interrupted for reason {}"
+                                , page.getPageName()
+                                , decision.getReason());
+                    }
+                    statisticsOf(page).ifPresent(CrawlStatistics::pageSkipped);
+                    interrupted(page);
+                    return Collections.emptyList();
+                }
+            }
+
+            //interceptors can remove the successor pages, e.g. duplicates
+            List<Page> successorPages;
+            try {
+                successorPages = toMutableList(delegate.process(page));
+            } catch (RuntimeException e) {
+                statisticsOf(page).ifPresent(CrawlStatistics::pageFailed);
+                interrupted(page);
+                throw e;
+            }
+
+            for (PageProcessingInterceptor interceptor : afterProcessing) {
+                interceptor.afterProcessing(page, successorPages);
+            }
+            return successorPages;
+
+        } catch (PreProcessingChainException e) {
+            logger.debug("Processing of a page {} has been interrupted for reason {}"
+                    , page.getPageName()
+                    , e.getMessage());
+
+            statisticsOf(page).ifPresent(CrawlStatistics::pageSkipped);
+            interrupted(page);
+            return Collections.emptyList();
+        }
+    }
+
+    private void interrupted(Page page) {
+        for (PageProcessingInterceptor interceptor : afterInterruption) {
+            try {
+                interceptor.afterInterruption(page);
+            } catch (RuntimeException e) {
+                logger.warn("Interceptor {} failed after the interruption of the page {}."
+                        , interceptor, page.getPageName(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the page processing without interceptors
+     */
+    public PageProcessing getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return {@code false} if the interceptor inherits the empty default method
+     */
+    private static boolean isImplemented(PageProcessingInterceptor interceptor, String methodName
+            , Class<?>... parameterTypes) {
+        try {
+            Method method = interceptor.getClass().getMethod(methodName, parameterTypes);
+            return method.getDeclaringClass() != PageProcessingInterceptor.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    private static Optional<CrawlStatistics> statisticsOf(Page page) {
+        return Optional.ofNullable(page.getPageContextRef())
+                .map(AtomicReference::get)
+                .map(PageContext::getStatistics);
+    }
+
+    private static List<Page> toMutableList(Iterable<Page> value) {
+        if (value instanceof ArrayList) {
+            return (List<Page>) value;
+        }
+        return null == value ? new ArrayList<>() : Lists.newArrayList(value);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", PageProcessingChain.class.getSimpleName() + "[", "]")
+                .add("delegate=" + delegate)
+                .add("beforeProcessing=" + beforeProcessing.length)
+                .add("afterProcessing=" + afterProcessing.length)
+                .add("afterInterruption=" + afterInterruption.length)
+                .toString();
+    }
+}
@@ -6,6 +6,7 @@ package org.babich.crawler.configuration.processing;
 import com.google.common.base.Verify;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Locale;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -147,11 +148,43 @@ public class CustomPageProcessingConfig {
          * @return page predicate
          */
         public static Predicate<Page> hostNameMatcher(String hostName){
-            return page -> {
-                try {
-                    return new URL(page.getPageUrl()).getHost().matches(hostName);
-                } catch (MalformedURLException e) {
-                    return false;
+            Pattern pattern = Pattern.compile(hostName);
+            return new UrlMatcher() {
+                @Override
+                boolean matches(String host, String path) {
+                    return pattern.matcher(host).matches();
+                }
+            };
+        }
+
+        /**
+         * matching the hostname of the page url with the provided hostname ignoring case,
+         * the {@link RouteTable} finds the matcher by the hostname without evaluating it.
+         * @param hostName hostname for example: www.host.com
+         * @return page predicate
+         */
+        public static Predicate<Page> hostMatcher(String hostName){
+            Verify.verifyNotNull(hostName, "hostName cannot be null.");
+            return new UrlMatcher(hostName.toLowerCase(Locale.ROOT), null) {
+                @Override
+                boolean matches(String host, String path) {
+                    return getHost().equalsIgnoreCase(host);
+                }
+            };
+        }
+
+        /**
+         * matching the path of the page url with the provided prefix,
+         * the {@link RouteTable} finds the matcher by the prefix without evaluating it.
+         * @param pathPrefix path prefix for example: /wiki/
+         * @return page predicate
+         */
+        public static Predicate<Page> pathPrefixMatcher(String pathPrefix){
+            Verify.verifyNotNull(pathPrefix, "pathPrefix cannot be null.");
+            return new UrlMatcher(null, pathPrefix) {
+                @Override
+                boolean matches(String host, String path) {
+                    return path.startsWith(getPathPrefix());
                 }
             };
         }
@@ -164,5 +197,44 @@ public class CustomPageProcessingConfig {
             return page -> true;
         }
 
+        /**
+         * page predicate on the host and the path of the page url, the url is parsed once per page
+         * when the predicate is evaluated by the {@link RouteTable}.
+         */
+        abstract static class UrlMatcher implements Predicate<Page> {
+
+            //the exact host or the path prefix the matcher is indexed by
+            private final String host;
+            private final String pathPrefix;
+
+            UrlMatcher() {
+                this(null, null);
+            }
+
+            UrlMatcher(String host, String pathPrefix) {
+                this.host = host;
+                this.pathPrefix = pathPrefix;
+            }
+
+            String getHost() {
+                return host;
+            }
+
+            String getPathPrefix() {
+                return pathPrefix;
+            }
+
+            abstract boolean matches(String host, String path);
+
+            @Override
+            public boolean test(Page page) {
+                try {
+                    URL url = new URL(page.getPageUrl());
+                    return matches(url.getHost(), url.getPath());
+                } catch (MalformedURLException e) {
+                    return false;
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,282 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.configuration.processing;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageAttachment;
+import org.babich.crawler.api.PageProcessing;
+import org.babich.crawler.api.ProcessingMessage;
+import org.babich.crawler.api.messages.PageProcessingComplete;
+import org.babich.crawler.api.messages.PageProcessingSkippe;
+import org.babich.crawler.api.processing.AssignedPageFilter;
+import org.babich.crawler.api.processing.AssignedPagePostProcessing;
+import org.babich.crawler.api.processing.AssignedPageProcessing;
+import org.babich.crawler.configuration.processing.CustomPageProcessingConfig.Matchers.UrlMatcher;
+
+/**
+ * Routes of the pages compiled once from the list of the {@link CustomPageProcessingConfig}.
+ * The processing, the filter and the message producer of a page are assigned by the first config
+ * whose predicate matches the page, like the configs are scanned in the order they are added.
+ * <br/>The configs matched by {@link CustomPageProcessingConfig.Matchers#hostMatcher(String)} and
+ * {@link CustomPageProcessingConfig.Matchers#pathPrefixMatcher(String)} are indexed by the host and the path prefix,
+ * so they are found by a lookup without evaluating them. Other predicates are evaluated lazily,
+ * at most once per page, the url is parsed once for all the url matchers.
+ * <br/>The resolved {@link Route} is cached on the page as its attachment and is shared by its copies,
+ * it is resolved again if the page url is changed.
+ */
+public final class RouteTable {
+
+    private static final int UNRESOLVED = -2;
+    private static final int NONE = -1;
+
+    private final Rule[] rules;
+
+    //the rules that are not indexed, their predicates are evaluated
+    private final BitSet evaluatedRules = new BitSet();
+    private final Map<String, BitSet> rulesByHost = new HashMap<>();
+    private final Map<String, BitSet> rulesByPathPrefix = new HashMap<>();
+    private final int[] pathPrefixLengths;
+
+    public RouteTable(List<CustomPageProcessingConfig> configs) {
+        if (null == configs) {
+            throw new IllegalArgumentException("configs cannot be null.");
+        }
+
+        this.rules = configs.stream().map(Rule::new).toArray(Rule[]::new);
+
+        TreeSet<Integer> prefixLengths = new TreeSet<>();
+        for (int i = 0; i < rules.length; i++) {
+            Predicate<Page> predicate = rules[i].predicate;
+            UrlMatcher matcher = predicate instanceof UrlMatcher ? (UrlMatcher) predicate : null;
+            if (null != matcher && null != matcher.getHost()) {
+                rulesByHost.computeIfAbsent(matcher.getHost(), key -> new BitSet()).set(i);
+            } else if (null != matcher && null != matcher.getPathPrefix()) {
+                rulesByPathPrefix.computeIfAbsent(matcher.getPathPrefix(), key -> new BitSet()).set(i);
+                prefixLengths.add(matcher.getPathPrefix().length());
+            } else {
+                evaluatedRules.set(i);
+            }
+        }
+        this.pathPrefixLengths = prefixLengths.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the route of the page, it is cached on the page
+     */
+    public Route routeOf(Page page) {
+        PageAttachment attachment = page.getAttachment();
+        if (attachment instanceof Route) {
+            Route route = (Route) attachment;
+            if (route.table == this && Objects.equals(route.pageUrl, page.getPageUrl())) {
+                return route;
+            }
+        }
+
+        Route route = new Route(this, page.getPageUrl());
+        page.setAttachment(route);
+        return route;
+    }
+
+    /**
+     * @return processing of the pages whose first matching config has a processing
+     */
+    public AssignedPageProcessing pageProcessing() {
+        return new AssignedPageProcessing() {
+            @Override
+            public Iterable<Page> process(Page page) {
+                Rule rule = rules[routeOf(page).processingRule(page)];
+                return rule.pageProcessing.process(page);
+            }
+
+            @Override
+            public boolean matches(Page page) {
+                return NONE != routeOf(page).processingRule(page);
+            }
+        };
+    }
+
+    /**
+     * @return filter of the pages whose first matching config with the filter excludes them
+     */
+    public AssignedPageFilter pageFilter() {
+        return new AssignedPageFilter() {
+            @Override
+            public PageProcessingSkippe apply(Page page) {
+                Rule rule = rules[routeOf(page).filterRule(page)];
+                return null == rule.filterMessage
+                        ? new PageProcessingSkippe(page, "Custom page processing filter.")
+                        : rule.filterMessage.apply(page);
+            }
+
+            @Override
+            public boolean matches(Page page) {
+                return NONE != routeOf(page).filterRule(page);
+            }
+        };
+    }
+
+    /**
+     * @return message producer of the pages that match any config
+     */
+    public AssignedPagePostProcessing messageProducer() {
+        return new AssignedPagePostProcessing() {
+            @Override
+            public ProcessingMessage apply(Page page) {
+                Rule rule = rules[routeOf(page).messageRule(page)];
+                return null == rule.messageProducer
+                        ? new PageProcessingComplete(page)
+                        : rule.messageProducer.apply(page);
+            }
+
+            @Override
+            public boolean matches(Page page) {
+                return NONE != routeOf(page).messageRule(page);
+            }
+        };
+    }
+
+    int size() {
+        return rules.length;
+    }
+
+    /**
+     * rules matched by the index for the host and the path of the url
+     */
+    private BitSet indexedMatches(String host, String path) {
+        BitSet matches = new BitSet();
+        if (null == host) {
+            return matches;
+        }
+
+        Optional.ofNullable(rulesByHost.get(host.toLowerCase(Locale.ROOT))).ifPresent(matches::or);
+        for (int length : pathPrefixLengths) {
+            if (length > path.length()) {
+                break;
+            }
+            Optional.ofNullable(rulesByPathPrefix.get(path.substring(0, length))).ifPresent(matches::or);
+        }
+        return matches;
+    }
+
+    /**
+     * rules of the page resolved by the route table, the predicates are evaluated on demand and only once
+     */
+    public static final class Route implements PageAttachment {
+
+        private final RouteTable table;
+        private final String pageUrl;
+        private final String host;
+        private final String path;
+
+        //the rules that can match the page, they are cleared when a predicate is false
+        private final BitSet candidates;
+        //the rules that are known to match the page
+        private final BitSet matches;
+
+        private int processingRule = UNRESOLVED;
+        private int filterRule = UNRESOLVED;
+        private int messageRule = UNRESOLVED;
+
+        private Route(RouteTable table, String pageUrl) {
+            this.table = table;
+            this.pageUrl = pageUrl;
+
+            URL url = toUrl(pageUrl);
+            this.host = null == url ? null : url.getHost();
+            this.path = null == url ? null : url.getPath();
+
+            this.matches = table.indexedMatches(host, path);
+            this.candidates = (BitSet) table.evaluatedRules.clone();
+            this.candidates.or(matches);
+        }
+
+        int processingRule(Page page) {
+            if (UNRESOLVED == processingRule) {
+                processingRule = firstRule(page, i -> null != table.rules[i].pageProcessing);
+            }
+            return processingRule;
+        }
+
+        int filterRule(Page page) {
+            if (UNRESOLVED == filterRule) {
+                filterRule = firstRule(page, i -> null != table.rules[i].filter && table.rules[i].filter.test(page));
+            }
+            return filterRule;
+        }
+
+        int messageRule(Page page) {
+            if (UNRESOLVED == messageRule) {
+                messageRule = firstRule(page, i -> true);
+            }
+            return messageRule;
+        }
+
+        private int firstRule(Page page, IntPredicate condition) {
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (matches(page, i) && condition.test(i)) {
+                    return i;
+                }
+            }
+            return NONE;
+        }
+
+        private boolean matches(Page page, int rule) {
+            if (matches.get(rule)) {
+                return true;
+            }
+
+            Predicate<Page> predicate = table.rules[rule].predicate;
+            boolean matched = predicate instanceof UrlMatcher
+                    ? null != host && ((UrlMatcher) predicate).matches(host, path)
+                    : predicate.test(page);
+            if (matched) {
+                matches.set(rule);
+            } else {
+                candidates.clear(rule);
+            }
+            return matched;
+        }
+
+        private static URL toUrl(String pageUrl) {
+            try {
+                return null == pageUrl ? null : new URL(pageUrl);
+            } catch (MalformedURLException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * custom processing config compiled for the route table
+     */
+    private static class Rule {
+
+        private final Predicate<Page> predicate;
+        private final PageProcessing pageProcessing;
+        private final Predicate<Page> filter;
+        private final Function<Page, PageProcessingSkippe> filterMessage;
+        private final Function<Page, ProcessingMessage> messageProducer;
+
+        Rule(CustomPageProcessingConfig config) {
+            this.predicate = config.getPredicate();
+            this.pageProcessing = config.getPageProcessing();
+            this.filter = null == config.getFilter() ? null : config.getFilter().getPredicate();
+            this.filterMessage = null == config.getFilter() ? null : config.getFilter().getMessageFactory();
+            this.messageProducer = config.getMessageProducer();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.event;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatcher of the {@link LocalEventBus} in the bounded {@code ASYNC} mode, the posted events wait in a queue
+ * of limited capacity and are dispatched by a fixed set of threads.
+ * <br/>When the queue is full the event is handled by the overflow policy of its type:
+ * <ul>
+ *     <li>{@code BLOCK} - the producer waits for a room in the queue, it throttles the crawl to the listeners</li>
+ *     <li>{@code DROP} - the event is dropped and counted by the {@code crawler.eventbus.messages.dropped.count}</li>
+ *     <li>{@code COALESCE} - the events of the type are never queued twice, a pending event is replaced
+ *     with the latest one, so they don't take the capacity</li>
+ * </ul>
+ * The policy of a type is looked up by the simple name of the event class and of its superclasses,
+ * the default is {@code BLOCK}. A producer that waits for the room gives up when the bus is shut down
+ * and dispatches the event in place.
+ * <p/>The queue size is reported by the {@code crawler.eventbus.queue.size} gauge tagged by the name of the bus.
+ */
+class BoundedEventDispatcher implements LocalEventBus.EventDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedEventDispatcher.class);
+
+    private static final long CAPACITY_CHECK_MS = 100;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    public enum Overflow {
+        BLOCK,
+        DROP,
+        COALESCE
+    }
+
+    private final EventBus eventBus = new EventBus(new EventBusExceptionHandler());
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final Map<String, Overflow> overflowByName;
+    private final Map<Class<?>, Overflow> overflowByClass = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Coalesced> coalesced = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final ExecutorService workers;
+    private final ThreadLocal<Boolean> isWorker = ThreadLocal.withInitial(() -> false);
+    private volatile boolean running = true;
+
+    BoundedEventDispatcher(int capacity, int threads, Map<String, String> overflow) {
+        if (capacity < 1 || threads < 1) {
+            throw new IllegalArgumentException("capacity and threads must be positive.");
+        }
+
+        this.capacity = new Semaphore(capacity);
+        Map<String, Overflow> policies = new HashMap<>();
+        if (null != overflow) {
+            overflow.forEach((type, policy) -> policies.put(type, Overflow.valueOf(policy)));
+        }
+        this.overflowByName = Collections.unmodifiableMap(policies);
+
+        this.name = "event-bus-" + INSTANCES.incrementAndGet();
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build();
+        this.workers = Executors.newFixedThreadPool(threads, threadFactory);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::dispatchQueued);
+        }
+
+        Metrics.gauge("crawler.eventbus.queue.size", Tags.of("bus", name), queue, Collection::size);
+    }
+
+    @Override
+    public void register(Object listener) {
+        eventBus.register(listener);
+    }
+
+    @Override
+    public void unregister(Object listener) {
+        eventBus.unregister(listener);
+    }
+
+    @Override
+    public void post(Object event) {
+        if (!running) {
+            eventBus.post(event);
+            return;
+        }
+
+        switch (overflowOf(event.getClass())) {
+            case COALESCE:
+                Coalesced holder = coalesced.computeIfAbsent(event.getClass(), key -> new Coalesced());
+                if (null == holder.latest.getAndSet(event)) {
+                    queue.add(holder);
+                }
+                return;
+            case DROP:
+                if (capacity.tryAcquire()) {
+                    queue.add(event);
+                } else {
+                    Metrics.counter("crawler.eventbus.messages.dropped.count"
+                            , "class", event.getClass().getSimpleName()).increment();
+                    logger.debug("The event queue is full, the event {} is dropped.", event.getClass());
+                }
+                return;
+            default:
+                if (capacity.tryAcquire()) {
+                    queue.add(event);
+                } else if (isWorker.get()) {
+                    //a listener that posts to the full queue cannot wait for itself
+                    eventBus.post(event);
+                } else if (awaitCapacity()) {
+                    queue.add(event);
+                } else {
+                    //the bus has been shut down while the producer waited
+                    eventBus.post(event);
+                }
+        }
+    }
+
+    /**
+     * waits until the queued events are dispatched and stops the threads
+     */
+    @Override
+    public void shutdown(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(Math.max(1, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getQueueSize() {
+        return queue.size();
+    }
+
+    private void dispatchQueued() {
+        isWorker.set(true);
+        try {
+            while (running || !queue.isEmpty()) {
+                Object entry = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (null == entry) {
+                    continue;
+                }
+
+                if (entry instanceof Coalesced) {
+                    entry = ((Coalesced) entry).latest.getAndSet(null);
+                } else {
+                    capacity.release();
+                }
+                eventBus.post(entry);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * waits for a room in the queue while the bus is running, the interrupt doesn't stop the waiting
+     *
+     * @return {@code false} if the bus has been shut down
+     */
+    private boolean awaitCapacity() {
+        boolean interrupted = false;
+        try {
+            while (running) {
+                try {
+                    if (!capacity.tryAcquire(CAPACITY_CHECK_MS, TimeUnit.MILLISECONDS)) {
+                        continue;
+                    }
+                    if (running) {
+                        return true;
+                    }
+                    //the room is left by the workers that complete the queue after the shutdown
+                    capacity.release();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Overflow overflowOf(Class<?> eventClass) {
+        if (overflowByName.isEmpty()) {
+            return Overflow.BLOCK;
+        }
+
+        return overflowByClass.computeIfAbsent(eventClass, key -> {
+            for (Class<?> type = key; null != type; type = type.getSuperclass()) {
+                Overflow overflow = overflowByName.get(type.getSimpleName());
+                if (null != overflow) {
+                    return overflow;
+                }
+            }
+            return Overflow.BLOCK;
+        });
+    }
+
+    /**
+     * queue entry of the coalesced type that holds the latest pending event
+     */
+    private static class Coalesced {
+
+        private final AtomicReference<Object> latest = new AtomicReference<>();
+    }
+}
@@ -7,23 +7,59 @@ import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.MoreExecutors;
 import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
+import org.babich.crawler.event.RingBufferEventDispatcher.WaitStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * Event bus of the crawler, the {@code SYNC} and {@code ASYNC} modes delegate to the Guava {@code EventBus}.
+ * <br/>The {@code RING} mode dispatches events through a preallocated ring buffer to a fixed set of consumers,
+ * it is configured via the crawler yml file like this:
+ * <pre>{@code
+ *     eventBus: &EventBus
+ *         !!org.babich.crawler.event.LocalEventBus { mode: 'RING', bufferSize: 65536, consumers: 4, waitStrategy: 'BLOCKING' }
+ * }</pre>
+ * See {@link RingBufferEventDispatcher.WaitStrategy} for the wait strategies.
+ * <p/>The {@code ASYNC} mode with a capacity queues events to a bounded queue, the overflow policy
+ * of an event type is set by the simple name of the event class, see {@link BoundedEventDispatcher}:
+ * <pre>{@code
+ *     eventBus: &EventBus
+ *         !!org.babich.crawler.event.LocalEventBus { mode: 'ASYNC', capacity: 10000, threads: 4, overflow: { PageProcessingStart: 'DROP' } }
+ * }</pre>
+ */
 @SuppressWarnings("UnstableApiUsage")
 public class LocalEventBus {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    private static final int DEFAULT_BUFFER_SIZE = 65536;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
     public enum Mode {
         ASYNC,
-        SYNC;
+        SYNC,
+        RING;
+    }
+
+    /**
+     * dispatches the posted events to the registered listeners
+     */
+    interface EventDispatcher {
+
+        void register(Object listener);
+
+        void unregister(Object listener);
+
+        void post(Object event);
+
+        void shutdown(Duration timeout);
     }
 
-    private final EventBus delegate;
+    private final EventDispatcher delegate;
 
     private final Mode mode;
 
@@ -32,21 +68,65 @@ public class LocalEventBus {
     }
 
     public LocalEventBus(String mode) {
-        this(mode, null);
+        this(mode, (ExecutorService) null);
     }
 
     public LocalEventBus(String mode, ExecutorService executor) {
         this.mode = Mode.valueOf(mode);
+        if (this.mode == Mode.RING) {
+            this.delegate = ringDispatcher(DEFAULT_BUFFER_SIZE, Runtime.getRuntime().availableProcessors()
+                    , WaitStrategy.BLOCKING.name());
+            return;
+        }
 
         if (null == executor) {
             executor = this.mode == Mode.ASYNC ? new ForkJoinPool() : MoreExecutors.newDirectExecutorService();
         }
 
-        setupShutdownHook(executor);
-
-        this.delegate = this.mode == Mode.ASYNC
+        EventBus eventBus = this.mode == Mode.ASYNC
                 ? new AsyncEventBus(executor, new EventBusExceptionHandler())
                 : new EventBus(new EventBusExceptionHandler());
+        this.delegate = guavaDispatcher(eventBus, executor);
+        setupShutdownHook(delegate);
+    }
+
+    /**
+     * creates the event bus in the {@code RING} mode
+     *
+     * @param bufferSize   size of the ring, it must be a power of 2
+     * @param consumers    number of the consumer threads
+     * @param waitStrategy name of the {@link WaitStrategy}
+     */
+    public LocalEventBus(String mode, Integer bufferSize, Integer consumers, String waitStrategy) {
+        this.mode = Mode.valueOf(mode);
+        if (this.mode != Mode.RING) {
+            throw new IllegalArgumentException("The ring buffer settings are supported by the RING mode only.");
+        }
+        this.delegate = ringDispatcher(bufferSize, consumers, waitStrategy);
+    }
+
+    /**
+     * creates the event bus in the bounded {@code ASYNC} mode, the producers wait when the queue is full
+     */
+    public LocalEventBus(String mode, Integer capacity, Integer threads) {
+        this(mode, capacity, threads, (Map<String, String>) null);
+    }
+
+    /**
+     * creates the event bus in the bounded {@code ASYNC} mode
+     *
+     * @param capacity capacity of the event queue
+     * @param threads  number of the dispatching threads
+     * @param overflow overflow policy by the simple name of the event class: {@code BLOCK}, {@code DROP}
+     *                 or {@code COALESCE}
+     */
+    public LocalEventBus(String mode, Integer capacity, Integer threads, Map<String, String> overflow) {
+        this.mode = Mode.valueOf(mode);
+        if (this.mode != Mode.ASYNC) {
+            throw new IllegalArgumentException("The event queue capacity is supported by the ASYNC mode only.");
+        }
+        this.delegate = new BoundedEventDispatcher(capacity, threads, overflow);
+        setupShutdownHook(delegate);
     }
 
     public Mode getMode() {
@@ -67,9 +147,40 @@ public class LocalEventBus {
         delegate.post(event);
     }
 
-    private void setupShutdownHook(ExecutorService executor){
+    private EventDispatcher ringDispatcher(int bufferSize, int consumers, String waitStrategy) {
+        EventDispatcher dispatcher = new RingBufferEventDispatcher(bufferSize, consumers, DEFAULT_BATCH_SIZE
+                , WaitStrategy.valueOf(waitStrategy));
+        setupShutdownHook(dispatcher);
+        return dispatcher;
+    }
+
+    private static EventDispatcher guavaDispatcher(EventBus eventBus, ExecutorService executor) {
+        return new EventDispatcher() {
+            @Override
+            public void register(Object listener) {
+                eventBus.register(listener);
+            }
+
+            @Override
+            public void unregister(Object listener) {
+                eventBus.unregister(listener);
+            }
+
+            @Override
+            public void post(Object event) {
+                eventBus.post(event);
+            }
+
+            @Override
+            public void shutdown(Duration timeout) {
+                MoreExecutors.shutdownAndAwaitTermination(executor, timeout);
+            }
+        };
+    }
+
+    private void setupShutdownHook(EventDispatcher dispatcher){
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            MoreExecutors.shutdownAndAwaitTermination(executor, Duration.ofMinutes(2));
+            dispatcher.shutdown(Duration.ofMinutes(2));
             logger.debug("EventBus has been stopped");
         }));
     }
@@ -0,0 +1,391 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.event;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.reflect.TypeToken;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatcher of the {@link LocalEventBus} that passes events through a preallocated ring buffer
+ * to a fixed set of consumer threads.
+ * <br/>The handlers of a listener are resolved once, when it is registered, and the handlers of an event class
+ * are cached, so dispatch doesn't scan the listeners. Consumers take the published events in batches
+ * and invoke the handlers directly, handlers without {@link AllowConcurrentEvents} are invoked by one thread
+ * at a time like in the Guava {@code EventBus}.
+ * <p/>Producers and consumers claim the slots of the ring with CAS, every slot has a sequence that tells
+ * if it is free or published. When the ring is full a producer waits by the wait strategy,
+ * except the consumer threads that handle their events in place, so a handler that posts cannot deadlock the bus.
+ */
+class RingBufferEventDispatcher implements LocalEventBus.EventDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RingBufferEventDispatcher.class);
+
+    /**
+     * how the producers and the consumers wait for the ring
+     */
+    public enum WaitStrategy {
+        /**
+         * parks the thread on a condition, the lowest CPU usage and the highest latency
+         */
+        BLOCKING,
+        /**
+         * spins, then yields and then parks the thread for a short time
+         */
+        SLEEPING,
+        /**
+         * spins and then yields the thread
+         */
+        YIELDING,
+        /**
+         * spins, the lowest latency, it occupies a core by every consumer
+         */
+        BUSY_SPIN
+    }
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+
+    private final Object[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final AtomicInteger blockedThreads = new AtomicInteger();
+
+    private final Set<Thread> consumers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile boolean running = true;
+
+    private volatile Registry registry = new Registry(Collections.emptyList());
+
+    RingBufferEventDispatcher(int bufferSize, int consumerCount, int batchSize, WaitStrategy waitStrategy) {
+        if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2.");
+        }
+        if (consumerCount < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("consumerCount and batchSize must be positive.");
+        }
+        if (null == waitStrategy) {
+            throw new IllegalArgumentException("waitStrategy cannot be null.");
+        }
+
+        this.entries = new Object[bufferSize];
+        this.sequences = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = bufferSize - 1;
+        this.batchSize = batchSize;
+        this.waitStrategy = waitStrategy;
+
+        for (int i = 0; i < consumerCount; i++) {
+            Thread consumer = new Thread(this::consume, "event-bus-ring-" + i);
+            consumer.setDaemon(true);
+            consumers.add(consumer);
+            consumer.start();
+        }
+    }
+
+    @Override
+    public synchronized void register(Object listener) {
+        List<Handler> handlers = new ArrayList<>(registry.handlers);
+        handlers.addAll(resolveHandlers(listener));
+        registry = new Registry(handlers);
+    }
+
+    @Override
+    public synchronized void unregister(Object listener) {
+        List<Handler> handlers = new ArrayList<>(registry.handlers);
+        if (!handlers.removeIf(handler -> handler.target == listener)) {
+            throw new IllegalArgumentException("missing event subscriber for an annotated method. Is "
+                    + listener + " registered?");
+        }
+        registry = new Registry(handlers);
+    }
+
+    @Override
+    public void post(Object event) {
+        if (!running) {
+            logger.debug("The event bus is stopped, the event {} is dispatched in place.", event.getClass());
+            dispatch(event);
+            return;
+        }
+
+        long position;
+        int tries = 0;
+        while (true) {
+            position = enqueuePosition.get();
+            long sequence = sequences.get(index(position));
+            if (sequence == position) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                //the ring is full
+                if (consumers.contains(Thread.currentThread())) {
+                    dispatch(event);
+                    return;
+                }
+                tries = await(tries);
+            }
+        }
+
+        int index = index(position);
+        entries[index] = event;
+        sequences.set(index, position + 1);
+        signal();
+    }
+
+    /**
+     * waits until the published events are handled and stops the consumers
+     */
+    @Override
+    public void shutdown(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (dequeuePosition.get() < enqueuePosition.get() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        running = false;
+        lock.lock();
+        try {
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void consume() {
+        Object[] batch = new Object[batchSize];
+        int tries = 0;
+        while (running || dequeuePosition.get() < enqueuePosition.get()) {
+            int count = take(batch);
+            if (0 == count) {
+                tries = await(tries);
+                continue;
+            }
+
+            tries = 0;
+            for (int i = 0; i < count; i++) {
+                dispatch(batch[i]);
+                batch[i] = null;
+            }
+        }
+    }
+
+    /**
+     * claims up to a batch of the published events and frees their slots
+     */
+    private int take(Object[] batch) {
+        while (true) {
+            long position = dequeuePosition.get();
+            int count = 0;
+            while (count < batchSize && sequences.get(index(position + count)) == position + count + 1) {
+                count++;
+            }
+            if (0 == count) {
+                return 0;
+            }
+            if (!dequeuePosition.compareAndSet(position, position + count)) {
+                continue;
+            }
+
+            for (int i = 0; i < count; i++) {
+                int index = index(position + i);
+                batch[i] = entries[index];
+                entries[index] = null;
+                sequences.set(index, position + i + entries.length);
+            }
+            if (blockedThreads.get() > 0) {
+                signal();
+            }
+            return count;
+        }
+    }
+
+    private void dispatch(Object event) {
+        for (Handler handler : registry.handlersFor(event.getClass())) {
+            handler.handle(event);
+        }
+    }
+
+    private int index(long position) {
+        return (int) position & mask;
+    }
+
+    private int await(int tries) {
+        switch (waitStrategy) {
+            case BUSY_SPIN:
+                return tries;
+            case YIELDING:
+                if (tries > SPIN_TRIES) {
+                    Thread.yield();
+                }
+                return tries + 1;
+            case SLEEPING:
+                if (tries > SPIN_TRIES + YIELD_TRIES) {
+                    LockSupport.parkNanos(100_000);
+                } else if (tries > SPIN_TRIES) {
+                    Thread.yield();
+                }
+                return tries + 1;
+            default:
+                if (tries < SPIN_TRIES) {
+                    return tries + 1;
+                }
+                blockedThreads.incrementAndGet();
+                lock.lock();
+                try {
+                    //the timeout guards against a signal that is sent between the check and the wait
+                    published.await(1, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lock.unlock();
+                    blockedThreads.decrementAndGet();
+                }
+                return tries;
+        }
+    }
+
+    private void signal() {
+        if (waitStrategy != WaitStrategy.BLOCKING || 0 == blockedThreads.get()) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static List<Handler> resolveHandlers(Object listener) {
+        List<Handler> handlers = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        for (Class<?> type : TypeToken.of(listener.getClass()).getTypes().rawTypes()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(Subscribe.class) || method.isSynthetic()) {
+                    continue;
+                }
+
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length != 1) {
+                    throw new IllegalArgumentException("Method " + method + " has @Subscribe annotation but has "
+                            + parameterTypes.length + " parameters. Subscriber methods must have exactly 1 parameter.");
+                }
+                //an overridden method is handled once
+                if (signatures.add(method.getName() + Arrays.toString(parameterTypes))) {
+                    handlers.add(new Handler(listener, method));
+                }
+            }
+        }
+        return handlers;
+    }
+
+    /**
+     * immutable snapshot of the handlers with the cache of the handlers by the event class
+     */
+    private static class Registry {
+
+        private final List<Handler> handlers;
+        private final Map<Class<?>, Handler[]> handlersByEvent = new ConcurrentHashMap<>();
+
+        Registry(List<Handler> handlers) {
+            this.handlers = handlers;
+        }
+
+        Handler[] handlersFor(Class<?> eventClass) {
+            Handler[] result = handlersByEvent.get(eventClass);
+            if (null != result) {
+                return result;
+            }
+
+            return handlersByEvent.computeIfAbsent(eventClass, key -> handlers.stream()
+                    .filter(handler -> handler.eventType.isAssignableFrom(key))
+                    .toArray(Handler[]::new));
+        }
+    }
+
+    /**
+     * subscriber method resolved on the registration, it is bound to the listener once
+     * so the dispatch doesn't go through the reflection
+     */
+    private static class Handler {
+
+        private static final MethodType HANDLE_TYPE = MethodType.methodType(void.class, Object.class);
+
+        private final Object target;
+        private final Method method;
+        private final MethodHandle handle;
+        private final Class<?> eventType;
+        private final boolean concurrent;
+
+        Handler(Object target, Method method) {
+            this.target = target;
+            this.method = method;
+            this.eventType = method.getParameterTypes()[0];
+            this.concurrent = method.isAnnotationPresent(AllowConcurrentEvents.class);
+            method.setAccessible(true);
+            try {
+                this.handle = MethodHandles.lookup().unreflect(method).bindTo(target).asType(HANDLE_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("The listener method is not accessible " + method, e);
+            }
+        }
+
+        void handle(Object event) {
+            try {
+                if (concurrent) {
+                    handle.invokeExact(event);
+                } else {
+                    synchronized (this) {
+                        handle.invokeExact(event);
+                    }
+                }
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                logger.warn("The message {} got an error in the listener {}.", event.getClass(), method, e);
+            }
+        }
+    }
+}
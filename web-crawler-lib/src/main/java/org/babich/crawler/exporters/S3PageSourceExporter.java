@@ -13,25 +13,33 @@ import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import org.apache.commons.lang3.StringUtils;
-import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageSnapshot;
 import org.babich.crawler.api.messages.CrawlerStarted;
+import org.babich.crawler.api.messages.CrawlerStopped;
 import org.babich.crawler.api.messages.PageProcessingComplete;
+import org.babich.crawler.configuration.ApplicationConfig.SourceStore;
+import org.babich.crawler.store.PageSourceStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import static org.babich.crawler.metrics.Utils.loadProperties;
 
@@ -44,6 +52,12 @@ import static org.babich.crawler.metrics.Utils.loadProperties;
  *     ...
  *   - !!org.babich.crawler.exporters.S3PageSourceExporter { propertyFile : './web-crawler-lib/src/main/resources/aws.properties' }
  * </pre>
+ * The page sources saved to the {@code PageSourceStore} are read from the store configured by the
+ * {@code pageSourceStore} argument, it must be the same settings as the store of the {@code PageSourceLocalPersister},
+ * so the empty path is resolved to the same temporary directory.
+ * <pre>
+ *   - !!org.babich.crawler.exporters.S3PageSourceExporter { propertyFile : './aws.properties', pageSourceStore: *PageSourceStore }
+ * </pre>
  *
  * aws.properties content:
  * <pre>
@@ -53,6 +67,26 @@ import static org.babich.crawler.metrics.Utils.loadProperties;
  *  aws.secretKey=minio123
  *  aws.enabled=false
  * </pre>
+ * With {@code aws.async=true} the sources are uploaded in the background by the {@link S3UploadPipeline}:
+ * <pre>
+ *  aws.async=true
+ *  aws.queueCapacity=1000
+ *  aws.uploadThreads=4
+ *  aws.maxRetries=3
+ *  aws.retryBackoff=500
+ *  aws.spoolDir=./s3_spool
+ *  aws.spoolRetryInterval=10000
+ *  aws.closeTimeout=30000
+ * </pre>
+ * With {@code aws.archive=true} the sources are packed to WARC archives by the {@link WarcArchiveWriter},
+ * an archive and its sidecar index are uploaded when the archive exceeds the size or the age, the archives
+ * that are left in the directory by an earlier run are uploaded when the crawler is started:
+ * <pre>
+ *  aws.archive=true
+ *  aws.archiveSize=134217728
+ *  aws.archiveInterval=600000
+ *  aws.archiveDir=./s3_archives
+ * </pre>
  */
 public class S3PageSourceExporter {
 
@@ -61,9 +95,14 @@ public class S3PageSourceExporter {
 
     private final S3ExporterConfig config;
     private final AmazonS3 s3Client;
+    private final PageSourceStore pageSourceStore;
+    //the pipeline of the current crawl
+    private volatile S3UploadPipeline uploadPipeline;
 
-    private String crawlerName = "none";
-    private String keyName;
+    //set by the start message, read by the concurrent handlers of the page messages
+    private volatile String crawlerName = "none";
+    private volatile String keyName;
+    private volatile WarcArchiveWriter archiveWriter;
 
 
     interface RegistryConfig {
@@ -122,14 +161,73 @@ public class S3PageSourceExporter {
             return getString(this, "region").orElse("eu-central-1");
         }
 
+        default boolean isAsync() {
+            return getString(this, "async").map(Boolean::parseBoolean).orElse(false);
+        }
+
+        default int getQueueCapacity() {
+            return getString(this, "queueCapacity").map(Integer::parseInt).orElse(1000);
+        }
+
+        default int getUploadThreads() {
+            return getString(this, "uploadThreads").map(Integer::parseInt).orElse(4);
+        }
+
+        default int getMaxRetries() {
+            return getString(this, "maxRetries").map(Integer::parseInt).orElse(3);
+        }
+
+        default long getRetryBackoff() {
+            return getString(this, "retryBackoff").map(Long::parseLong).orElse(500L);
+        }
+
+        default String getSpoolDir() {
+            return getString(this, "spoolDir").orElse("./s3_spool");
+        }
+
+        default long getSpoolRetryInterval() {
+            return getString(this, "spoolRetryInterval").map(Long::parseLong).orElse(10000L);
+        }
+
+        default long getCloseTimeout() {
+            return getString(this, "closeTimeout").map(Long::parseLong).orElse(30000L);
+        }
+
+        default boolean isArchive() {
+            return getString(this, "archive").map(Boolean::parseBoolean).orElse(false);
+        }
+
+        default long getArchiveSize() {
+            return getString(this, "archiveSize").map(Long::parseLong).orElse(128L * 1024 * 1024);
+        }
+
+        default long getArchiveInterval() {
+            return getString(this, "archiveInterval").map(Long::parseLong).orElse(600000L);
+        }
+
+        default String getArchiveDir() {
+            return getString(this, "archiveDir").orElse("./s3_archives");
+        }
+
     }
 
     S3PageSourceExporter() {
         config = null;
         s3Client = null;
+        pageSourceStore = null;
+    }
+
+    S3PageSourceExporter(S3ExporterConfig config, AmazonS3 s3Client, PageSourceStore pageSourceStore) {
+        this.config = config;
+        this.s3Client = s3Client;
+        this.pageSourceStore = pageSourceStore;
     }
 
     public S3PageSourceExporter(String propertyFile) {
+        this(propertyFile, null);
+    }
+
+    public S3PageSourceExporter(String propertyFile, SourceStore pageSourceStore) {
         this.config = new S3ExporterConfig() {
             final Properties properties = loadProperties(propertyFile);
 
@@ -143,6 +241,8 @@ public class S3PageSourceExporter {
             }
         };
 
+        this.pageSourceStore = null == pageSourceStore ? null : new PageSourceStore(pageSourceStore);
+
         try {
             s3Client = init(this.config);
         }catch (Exception e){
@@ -151,6 +251,16 @@ public class S3PageSourceExporter {
         }
     }
 
+    private S3UploadPipeline initPipeline(S3ExporterConfig config, AmazonS3 s3Client) {
+        if (!config.isEnabled() || !config.isAsync()) {
+            return null;
+        }
+
+        return new S3UploadPipeline(s3Client, config.getBucketName()
+                , config.getQueueCapacity(), config.getUploadThreads(), config.getMaxRetries()
+                , config.getRetryBackoff(), Paths.get(config.getSpoolDir()), config.getSpoolRetryInterval());
+    }
+
     private AmazonS3 init(S3ExporterConfig config) {
         ClientConfiguration clientConfiguration = new ClientConfiguration();
         clientConfiguration.setSignerOverride("AWSS3V4SignerType");
@@ -169,6 +279,7 @@ public class S3PageSourceExporter {
     }
 
     @Subscribe
+    @AllowConcurrentEvents
     public void onStart(CrawlerStarted message) {
         String folderName = "sources";
         this.crawlerName = (String) message.getPayload();
@@ -176,15 +287,143 @@ public class S3PageSourceExporter {
 
         this.keyName = String.join(KEY_DELIMITER, config.getKeyName(), crawlerName, folderName, dataTime);
         executeRequest(this::createBucketIfNecessary);
+        //the pipeline lives as long as the crawl, it is closed when the crawler is stopped
+        uploadPipeline = initPipeline(config, s3Client);
+
+        if (config.isEnabled() && config.isArchive()) {
+            WarcArchiveWriter writer = new WarcArchiveWriter(Paths.get(config.getArchiveDir()), crawlerName
+                    , config.getArchiveSize(), config.getArchiveInterval(), this::uploadArchive);
+            archiveWriter = writer;
+            writer.rollLeftovers();
+        }
     }
 
     @Subscribe
     @AllowConcurrentEvents
     public void onProcess(PageProcessingComplete message) {
-        Page page = message.getPage();
+        PageSnapshot page = message.getSnapshot();
+        if (null != archiveWriter) {
+            archivePageSource(page);
+            return;
+        }
+        uploadPageSource(page);
+    }
+
+    private void uploadPageSource(PageSnapshot page) {
+        if (PageSourceStore.isLocator(page.getPageSource())) {
+            uploadStoredSource(page);
+            return;
+        }
         getURI(page.getPageSource()).map(Path::toFile).ifPresent(this::uploadObject);
     }
 
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onStop(CrawlerStopped message) {
+        if (null != archiveWriter) {
+            try {
+                archiveWriter.close();
+            } catch (IOException e) {
+                logger.error("Cannot complete the page source archive.", e);
+            }
+        }
+        S3UploadPipeline pipeline = uploadPipeline;
+        if (null != pipeline) {
+            uploadPipeline = null;
+            pipeline.close(config.getCloseTimeout(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void uploadStoredSource(PageSnapshot page) {
+        if (null == pageSourceStore) {
+            logger.debug("The page source store is not configured, the page {} is not uploaded.", page.getPageName());
+            return;
+        }
+
+        String locator = page.getPageSource();
+        String key = keyName + KEY_DELIMITER + page.getPageName() + ".src";
+        S3UploadPipeline pipeline = uploadPipeline;
+        if (null != pipeline) {
+            //the source is read now, the segments of the store can be removed when the crawler is stopped
+            try {
+                pipeline.submit(key, pageSourceStore.readBytes(locator));
+            } catch (IOException e) {
+                logger.error("Cannot read the page source {}.", locator, e);
+            }
+            return;
+        }
+
+        executeRequest(() -> {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(PageSourceStore.lengthOf(locator));
+            try (InputStream inputStream = pageSourceStore.openStream(locator)) {
+                s3Client.putObject(new PutObjectRequest(config.getBucketName(), key, inputStream, metadata));
+            } catch (IOException e) {
+                logger.error("Cannot read the page source {}.", locator, e);
+            }
+        });
+    }
+
+    void archivePageSource(PageSnapshot page) {
+        String pageSource = page.getPageSource();
+        try {
+            byte[] content;
+            if (PageSourceStore.isLocator(pageSource)) {
+                if (null == pageSourceStore) {
+                    logger.debug("The page source store is not configured, the page {} is not archived."
+                            , page.getPageName());
+                    return;
+                }
+                content = pageSourceStore.readBytes(pageSource);
+            } else {
+                Optional<Path> path = getURI(pageSource);
+                if (!path.isPresent()) {
+                    return;
+                }
+                content = Files.readAllBytes(path.get());
+            }
+            if (!archiveWriter.write(page.getPageUrl(), page.getPageName(), page.getDepth(), content)) {
+                //the page is completed after the crawler is stopped, the archives are uploaded already
+                logger.debug("The archive writer is closed, the page {} is uploaded alone.", page.getPageName());
+                uploadPageSource(page);
+            }
+        } catch (IOException e) {
+            logger.error("Cannot archive the page source {}.", pageSource, e);
+        }
+    }
+
+    /**
+     * uploads the archive and its index, the local files are kept if the upload fails
+     * and they are uploaded when the crawler is started again
+     */
+    void uploadArchive(WarcArchiveWriter.Archive archive) {
+        uploadArchiveFile(archive.getArchive());
+        uploadArchiveFile(archive.getIndex());
+    }
+
+    private void uploadArchiveFile(Path path) {
+        //a file of a leftover archive can be uploaded already
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        String key = keyName + KEY_DELIMITER + path.getFileName();
+        S3UploadPipeline pipeline = uploadPipeline;
+        if (null != pipeline) {
+            pipeline.submit(key, path);
+            return;
+        }
+
+        executeRequest(() -> {
+            s3Client.putObject(new PutObjectRequest(config.getBucketName(), key, path.toFile()));
+            try {
+                Files.delete(path);
+            } catch (IOException e) {
+                logger.warn("Cannot remove the uploaded archive file {}.", path, e);
+            }
+        });
+    }
+
     private Optional<Path> getURI(String path) {
         try {
             return Optional.of(Paths.get(new URI(path)));
@@ -201,6 +440,16 @@ public class S3PageSourceExporter {
             logger.debug("Uploading a new object to S3 from a file. {}", file.getAbsolutePath());
         }
 
+        S3UploadPipeline pipeline = uploadPipeline;
+        if (null != pipeline) {
+            try {
+                pipeline.submit(getKeyNameFor(file), Files.readAllBytes(file.toPath()));
+            } catch (IOException e) {
+                logger.error("Cannot read the page source {}.", file, e);
+            }
+            return;
+        }
+
         executeRequest(() ->
                 s3Client.putObject(
                         new PutObjectRequest(config.getBucketName(), getKeyNameFor(file), file)
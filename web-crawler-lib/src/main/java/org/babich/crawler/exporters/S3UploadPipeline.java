@@ -0,0 +1,297 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.exporters;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Uploads page sources to S3 in the background, so the event bus subscriber doesn't wait for the storage.
+ * <br/>Uploads are queued to a bounded queue and run in parallel by a dedicated pool. A failed upload is retried
+ * with an exponential backoff, then it is spooled to the disk like the uploads that don't fit the queue.
+ * The spooled uploads are queued again periodically and after a restart, a spooled file is deleted only
+ * when its upload succeeds. The uploads that are still queued when the pipeline is closed are spooled too.
+ * <br/>A file is uploaded from its path, so large files are not kept in the memory, it is deleted when
+ * its upload succeeds and it is kept where it is when its upload fails.
+ */
+class S3UploadPipeline implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3UploadPipeline.class);
+    private static final String SPOOL_SUFFIX = ".spool";
+    private static final String PART_SUFFIX = ".part";
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final int maxRetries;
+    private final long retryBackoff;
+    private final Path spoolDir;
+
+    private final ThreadPoolExecutor uploadPool;
+    private final ScheduledExecutorService spoolScheduler;
+    private final AtomicInteger inFlightUploads = new AtomicInteger();
+    //spooled files whose uploads are queued or in flight
+    private final Set<Path> resubmittedFiles = ConcurrentHashMap.newKeySet();
+
+    private final Timer uploadTimer = Metrics.timer("crawler.exporter.s3.upload.duration");
+    private final Counter failedCounter = Metrics.counter("crawler.exporter.s3.upload.failed.count");
+    private final Counter spooledCounter = Metrics.counter("crawler.exporter.s3.upload.spooled.count");
+
+    S3UploadPipeline(AmazonS3 s3Client, String bucketName, int queueCapacity, int threads, int maxRetries
+            , long retryBackoff, Path spoolDir, long spoolRetryInterval) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        try {
+            this.spoolDir = Files.createDirectories(spoolDir);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        this.uploadPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS
+                , new ArrayBlockingQueue<>(queueCapacity)
+                , new ThreadFactoryBuilder().setNameFormat("s3-upload-%d").setDaemon(true).build());
+        this.spoolScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("s3-spool").setDaemon(true).build());
+        spoolScheduler.scheduleWithFixedDelay(this::resubmitSpooled, 0, spoolRetryInterval, TimeUnit.MILLISECONDS);
+
+        Metrics.gauge("crawler.exporter.s3.queue.size", uploadPool, pool -> pool.getQueue().size());
+        Metrics.gauge("crawler.exporter.s3.upload.inflight", inFlightUploads);
+    }
+
+    /**
+     * queues the upload, it is spooled to the disk if the queue is full
+     */
+    void submit(String key, byte[] content) {
+        submit(new Upload(key, content, null, null));
+    }
+
+    /**
+     * queues the upload of the file, the file is deleted after the upload and kept if the upload fails
+     */
+    void submit(String key, Path file) {
+        submit(new Upload(key, null, null, file));
+    }
+
+    private void submit(Upload upload) {
+        try {
+            uploadPool.execute(upload);
+        } catch (RejectedExecutionException exception) {
+            spool(upload);
+        }
+    }
+
+    int getQueueSize() {
+        return uploadPool.getQueue().size();
+    }
+
+    /**
+     * waits for the queued uploads, the uploads that are not completed in time are spooled
+     */
+    void close(long timeout, TimeUnit unit) {
+        spoolScheduler.shutdownNow();
+        uploadPool.shutdown();
+        try {
+            if (!uploadPool.awaitTermination(timeout, unit)) {
+                List<Runnable> notStarted = uploadPool.shutdownNow();
+                logger.warn("{} uploads to S3 are not completed in time, they are spooled to the disk."
+                        , notStarted.size());
+                notStarted.forEach(upload -> spool((Upload) upload));
+                //the interrupted uploads spool themselves
+                uploadPool.awaitTermination(timeout, unit);
+            }
+        } catch (InterruptedException ignore) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        close(30, TimeUnit.SECONDS);
+    }
+
+    private void upload(Upload upload) {
+        inFlightUploads.incrementAndGet();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    uploadTimer.record(() -> putObject(upload));
+                    upload.completed();
+                    return;
+                } catch (RuntimeException exception) {
+                    if (attempt >= maxRetries || Thread.currentThread().isInterrupted()) {
+                        logger.error("Unable to upload {} to S3, it is kept on the disk.", upload.key, exception);
+                        failedCounter.increment();
+                        spool(upload);
+                        return;
+                    }
+                    logger.debug("Upload {} to S3 failed, attempt {}.", upload.key, attempt + 1, exception);
+                }
+
+                Thread.sleep(retryBackoff << Math.min(attempt, 16));
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            spool(upload);
+        } finally {
+            inFlightUploads.decrementAndGet();
+        }
+    }
+
+    private void putObject(Upload upload) {
+        if (null != upload.file) {
+            s3Client.putObject(new PutObjectRequest(bucketName, upload.key, upload.file.toFile()));
+            return;
+        }
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(upload.content.length);
+        s3Client.putObject(new PutObjectRequest(bucketName, upload.key
+                , new ByteArrayInputStream(upload.content), metadata));
+    }
+
+    /**
+     * writes the upload to the disk, the upload of a spooled file keeps its file for the next attempt,
+     * the uploaded file is already on the disk, so it is kept for its owner
+     */
+    private void spool(Upload upload) {
+        if (null != upload.file) {
+            logger.warn("The upload {} to S3 is not completed, the file {} is kept.", upload.key, upload.file);
+            return;
+        }
+        if (null != upload.spooledFile) {
+            resubmittedFiles.remove(upload.spooledFile);
+            return;
+        }
+
+        //the file stream is not closed by the interrupt of an upload thread like a channel is,
+        //the spool file appears complete, so it is never read while it is written
+        String name = UUID.randomUUID().toString();
+        Path partPath = spoolDir.resolve(name + PART_SUFFIX);
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(partPath.toFile())))) {
+                outputStream.writeUTF(upload.key);
+                outputStream.write(upload.content);
+            }
+            Files.move(partPath, spoolDir.resolve(name + SPOOL_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            spooledCounter.increment();
+        } catch (IOException exception) {
+            logger.error("Unable to spool the upload {} to the disk, it is lost.", upload.key, exception);
+        }
+    }
+
+    /**
+     * queues the spooled uploads while there is room in the queue
+     */
+    private void resubmitSpooled() {
+        List<Path> spooled;
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            spooled = files.filter(path -> path.toString().endsWith(SPOOL_SUFFIX)).collect(Collectors.toList());
+        } catch (IOException exception) {
+            logger.warn("Unable to list the spooled uploads in {}.", spoolDir, exception);
+            return;
+        }
+
+        for (Path path : spooled) {
+            if (uploadPool.getQueue().remainingCapacity() == 0 || uploadPool.isShutdown()) {
+                return;
+            }
+            if (!resubmittedFiles.add(path)) {
+                continue;
+            }
+
+            try {
+                byte[] bytes = Files.readAllBytes(path);
+                DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(bytes));
+                String key = inputStream.readUTF();
+                byte[] content = new byte[inputStream.available()];
+                inputStream.readFully(content);
+
+                submit(new Upload(key, content, path, null));
+            } catch (IOException exception) {
+                resubmittedFiles.remove(path);
+                logger.warn("Unable to read the spooled upload {}.", path, exception);
+            }
+        }
+    }
+
+    /**
+     * queued upload, it is kept by the pool queue, so the uploads that are not started can be spooled
+     */
+    private class Upload implements Runnable {
+
+        private final String key;
+        private final byte[] content;
+        //the file of a spooled upload, it is deleted after the upload
+        private final Path spooledFile;
+        //the uploaded file instead of the content, it is deleted after the upload
+        private final Path file;
+
+        Upload(String key, byte[] content, Path spooledFile, Path file) {
+            this.key = key;
+            this.content = content;
+            this.spooledFile = spooledFile;
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            upload(this);
+        }
+
+        void completed() {
+            if (null != file) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException exception) {
+                    logger.warn("Unable to delete the uploaded file {}.", file, exception);
+                }
+                return;
+            }
+            if (null == spooledFile) {
+                return;
+            }
+
+            try {
+                Files.deleteIfExists(spooledFile);
+            } catch (IOException exception) {
+                logger.warn("Unable to delete the uploaded spool file {}.", spooledFile, exception);
+            } finally {
+                resubmittedFiles.remove(spooledFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.exporters;
+
+import com.google.common.io.CountingOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Packs page sources to WARC archives, so many pages are uploaded as a single object.
+ * <br/>Every record is a separate gzip member, so a record can be read from its offset without reading the archive.
+ * The archive is rolled when it exceeds the size or the age threshold, the rolled archive and its sidecar index
+ * are passed to the consumer. The index has a line per page: {@code <url> <timestamp> <archive> <offset> <length>},
+ * the offset and the length are in bytes of the compressed archive.
+ * <br/>The archive is rolled and passed to the consumer out of the lock, so the pages are written while the rolled
+ * archive is uploaded. The archives of the prefix that are left in the directory by an earlier run are passed
+ * to the consumer by {@link #rollLeftovers()}. No pages are written after the writer is closed.
+ * <p/>The class is thread safe.
+ */
+class WarcArchiveWriter implements Closeable {
+
+    static final String ARCHIVE_SUFFIX = ".warc.gz";
+    static final String INDEX_SUFFIX = ".cdx";
+
+    private static final String CRLF = "\r\n";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss")
+            .withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final String prefix;
+    private final long maxSize;
+    private final long maxAge;
+    private final Consumer<Archive> onRoll;
+    //the archives of an earlier run, they are found before the first archive of the writer is opened
+    private final List<Archive> leftovers;
+
+    private Archive current;
+    private CountingOutputStream archiveStream;
+    private BufferedWriter indexWriter;
+    private long openedAt;
+    private int sequence;
+    private boolean closed;
+
+    WarcArchiveWriter(Path directory, String prefix, long maxSize, long maxAge, Consumer<Archive> onRoll) {
+        if (null == onRoll) {
+            throw new IllegalArgumentException("onRoll cannot be null.");
+        }
+
+        try {
+            this.directory = Files.createDirectories(directory);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        this.prefix = prefix;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+        this.onRoll = onRoll;
+        this.leftovers = findLeftovers();
+    }
+
+    /**
+     * passes the archives left by an earlier run to the consumer
+     */
+    void rollLeftovers() {
+        List<Archive> archives;
+        synchronized (this) {
+            archives = new ArrayList<>(leftovers);
+            leftovers.clear();
+        }
+        archives.forEach(onRoll);
+    }
+
+    /**
+     * appends the page source as a WARC {@code resource} record
+     *
+     * @return {@code false} if the writer is closed and the page is not written
+     */
+    boolean write(String url, String pageName, int depth, byte[] content) throws IOException {
+        Archive rolled = null;
+        try {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                if (null != current && (archiveStream.getCount() >= maxSize
+                        || System.currentTimeMillis() - openedAt >= maxAge)) {
+                    rolled = detach();
+                }
+                if (null == current) {
+                    open();
+                }
+                append(url, pageName, depth, content);
+            }
+            return true;
+        } finally {
+            if (null != rolled) {
+                onRoll.accept(rolled);
+            }
+        }
+    }
+
+    private void append(String url, String pageName, int depth, byte[] content) throws IOException {
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        long offset = archiveStream.getCount();
+
+        GZIPOutputStream gzipStream = new GZIPOutputStream(new NonClosingOutputStream(archiveStream), 8192);
+        String header = "WARC/1.0" + CRLF
+                + "WARC-Type: resource" + CRLF
+                + "WARC-Record-ID: <urn:uuid:" + UUID.randomUUID() + '>' + CRLF
+                + "WARC-Date: " + DateTimeFormatter.ISO_INSTANT.format(now) + CRLF
+                + "WARC-Target-URI: " + url + CRLF
+                + "Page-Name: " + pageName + CRLF
+                + "Crawl-Depth: " + depth + CRLF
+                + "Content-Type: text/html" + CRLF
+                + "Content-Length: " + content.length + CRLF
+                + CRLF;
+        gzipStream.write(header.getBytes(StandardCharsets.UTF_8));
+        gzipStream.write(content);
+        gzipStream.write((CRLF + CRLF).getBytes(StandardCharsets.US_ASCII));
+        gzipStream.close();
+
+        indexWriter.write(url + ' ' + NAME_FORMAT.format(now) + ' ' + current.getArchive().getFileName()
+                + ' ' + offset + ' ' + (archiveStream.getCount() - offset));
+        indexWriter.newLine();
+    }
+
+    /**
+     * completes the current archive and passes it to the consumer
+     */
+    void roll() throws IOException {
+        Archive archive;
+        synchronized (this) {
+            archive = detach();
+        }
+        if (null != archive) {
+            onRoll.accept(archive);
+        }
+    }
+
+    /**
+     * rolls the current archive, the pages written later are rejected
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+        }
+        roll();
+    }
+
+    /**
+     * completes the current archive
+     *
+     * @return the completed archive or {@code null} if there is no open archive
+     */
+    private Archive detach() throws IOException {
+        if (null == current) {
+            return null;
+        }
+
+        Archive archive = current;
+        current = null;
+        try {
+            archiveStream.close();
+        } finally {
+            indexWriter.close();
+        }
+        return archive;
+    }
+
+    /**
+     * @return the archives of the prefix in the directory, an archive or its index can be uploaded already
+     */
+    private List<Archive> findLeftovers() {
+        Set<String> names = new TreeSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix + '-'))
+                    .forEach(name -> {
+                        if (name.endsWith(ARCHIVE_SUFFIX)) {
+                            names.add(name.substring(0, name.length() - ARCHIVE_SUFFIX.length()));
+                        } else if (name.endsWith(INDEX_SUFFIX)) {
+                            names.add(name.substring(0, name.length() - INDEX_SUFFIX.length()));
+                        }
+                    });
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        List<Archive> archives = new ArrayList<>();
+        for (String name : names) {
+            archives.add(new Archive(directory.resolve(name + ARCHIVE_SUFFIX)
+                    , directory.resolve(name + INDEX_SUFFIX)));
+        }
+        return archives;
+    }
+
+    private void open() throws IOException {
+        //the name of a leftover archive is not reused
+        Path archive;
+        Path index;
+        do {
+            String name = String.format("%s-%s-%05d", prefix, NAME_FORMAT.format(Instant.now()), sequence++);
+            archive = directory.resolve(name + ARCHIVE_SUFFIX);
+            index = directory.resolve(name + INDEX_SUFFIX);
+        } while (Files.exists(archive) || Files.exists(index));
+
+        archiveStream = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(archive), 65536));
+        indexWriter = Files.newBufferedWriter(index, StandardCharsets.UTF_8);
+        openedAt = System.currentTimeMillis();
+        current = new Archive(archive, index);
+    }
+
+    /**
+     * completed archive with its sidecar index
+     */
+    static class Archive {
+
+        private final Path archive;
+        private final Path index;
+
+        Archive(Path archive, Path index) {
+            this.archive = archive;
+            this.index = index;
+        }
+
+        Path getArchive() {
+            return archive;
+        }
+
+        Path getIndex() {
+            return index;
+        }
+    }
+
+    /**
+     * keeps the archive open when the gzip member of a record is finished
+     */
+    private static class NonClosingOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+
+        NonClosingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            delegate.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.fetcher;
+
+import java.io.IOException;
+import org.babich.crawler.api.PageFetcher;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+/**
+ * Page fetcher based on {@code Jsoup} connection. A new connection is opened for every page.
+ */
+public class JsoupPageFetcher implements PageFetcher {
+
+    private final String userAgent;
+
+    public JsoupPageFetcher() {
+        this.userAgent = null;
+    }
+
+    public JsoupPageFetcher(PageConfig config) {
+        this.userAgent = null == config ? null : config.getUserAgent();
+    }
+
+    @Override
+    public String fetch(String pageUrl) throws IOException {
+        Connection connection = Jsoup.connect(pageUrl);
+        if (null != userAgent) {
+            connection.userAgent(userAgent);
+        }
+        return connection.execute().body();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.fetcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.babich.crawler.api.PageFetcher;
+import org.babich.crawler.configuration.ApplicationConfig.Connection;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.jsoup.helper.DataUtil;
+
+/**
+ * Page fetcher that keeps a pool of persistent connections, so pages of the same host are loaded over
+ * already established connections instead of a new TCP and TLS handshake for every page.
+ * <br/>Compressed responses ({@code gzip} and {@code deflate}) are requested and decoded transparently.
+ * Like the {@code Jsoup} connection, the fetcher rejects the content types other than text and xml with
+ * the {@link UnsupportedMimeTypeException}, truncates the body to {@code Connection#maxBodySize} and decodes it
+ * with the charset of the {@code Content-Type} header or, if there is none, of the byte order mark or
+ * the {@code <meta>} charset of the page detected by the {@link DataUtil}.
+ * The fetcher is thread safe and is intended to be shared by all page processing services and interceptors.
+ * <br/>The connection pool is released by {@link #close()}, a shared fetcher is closed with the crawler.
+ */
+public class PooledHttpPageFetcher implements PageFetcher, Closeable {
+
+    //the size of the page head in which the charset is looked for, the same as Jsoup reads first
+    private static final int CHARSET_DETECTION_SIZE = 5 * 1024;
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]*)");
+    private static final Pattern XML_CONTENT_TYPE = Pattern.compile("(?i)(application|text)/\\w*\\+?xml.*");
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final int maxBodySize;
+
+    public PooledHttpPageFetcher() {
+        this(null, new Connection());
+    }
+
+    public PooledHttpPageFetcher(PageConfig page) {
+        this(page, new Connection());
+    }
+
+    public PooledHttpPageFetcher(PageConfig page, Connection connection) {
+        if (null == connection) {
+            throw new IllegalArgumentException("connection settings cannot be null.");
+        }
+
+        maxBodySize = connection.getMaxBodySize();
+        connectionManager = new PoolingHttpClientConnectionManager(connection.getKeepAlive()
+                , TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(connection.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(connection.getMaxConnectionsPerHost());
+        //a connection that was idle for a while is checked before it is reused
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connection.getConnectTimeout())
+                .setConnectionRequestTimeout(connection.getConnectTimeout())
+                .setSocketTimeout(connection.getReadTimeout())
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? keepAlive : connection.getKeepAlive();
+                })
+                .setUserAgent(null == page ? null : page.getUserAgent())
+                .evictExpiredConnections()
+                .evictIdleConnections(connection.getKeepAlive(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public String fetch(String pageUrl) throws IOException {
+        HttpGet request = new HttpGet(pageUrl);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode >= 400) {
+                //the body is consumed so the connection is returned to the pool
+                EntityUtils.consume(entity);
+                throw new HttpResponseException(statusCode, "Unable to load the page from the URL: " + pageUrl);
+            }
+            if (null == entity) {
+                return "";
+            }
+
+            String contentType = null == entity.getContentType() ? null : entity.getContentType().getValue();
+            if (null != contentType && !contentType.toLowerCase().startsWith("text/")
+                    && !XML_CONTENT_TYPE.matcher(contentType).matches()) {
+                EntityUtils.consume(entity);
+                throw new UnsupportedMimeTypeException("Unhandled content type. Must be text/*, application/xml"
+                        + ", or application/*+xml", contentType, pageUrl);
+            }
+
+            ByteBuffer body = DataUtil.readToByteBuffer(entity.getContent(), maxBodySize);
+            if (0 == maxBodySize || body.remaining() < maxBodySize) {
+                //the body is read to the end, so the connection is returned to the pool,
+                //the rest of a truncated body is not read and its connection is closed with the response
+                EntityUtils.consume(entity);
+            }
+            return decode(body, contentType, pageUrl);
+        }
+    }
+
+    /**
+     * @return the body decoded with the charset of the content type or detected from the bytes, UTF-8 by default
+     */
+    private static String decode(ByteBuffer body, String contentType, String pageUrl) throws IOException {
+        Charset charset = charsetOf(contentType);
+        if (null == charset) {
+            int headSize = Math.min(body.remaining(), CHARSET_DETECTION_SIZE);
+            InputStream head = new ByteArrayInputStream(body.array(), body.arrayOffset() + body.position(), headSize);
+            charset = DataUtil.load(head, null, pageUrl).charset();
+        }
+
+        String source = new String(body.array(), body.arrayOffset() + body.position(), body.remaining(), charset);
+        //the byte order mark is not a part of the page
+        return !source.isEmpty() && '\uFEFF' == source.charAt(0) ? source.substring(1) : source;
+    }
+
+    private static Charset charsetOf(String contentType) {
+        if (null == contentType) {
+            return null;
+        }
+
+        Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+        if (!matcher.find()) {
+            return null;
+        }
+        String charsetName = matcher.group(1).trim();
+        try {
+            return Charset.isSupported(charsetName) ? Charset.forName(charsetName) : null;
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+        connectionManager.close();
+    }
+}
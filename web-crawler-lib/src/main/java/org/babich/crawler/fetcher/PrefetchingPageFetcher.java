@@ -0,0 +1,240 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.fetcher;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.babich.crawler.api.PageFetcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Page fetcher that loads the page sources in advance by the delegate fetcher.
+ * <br/>The prefetched sources are kept as futures by the page url, {@link #fetch(String)} takes the source
+ * from the cache and waits for it if the prefetch is still in flight, so a page is never loaded twice.
+ * The loaded sources are limited by the memory budget, the oldest of them are evicted first,
+ * the number of the pending prefetches is limited too, a prefetch over the limits is not issued.
+ * <br/>The prefetch threads are stopped by {@link #close()}, it closes the delegate too.
+ * <br/>It can be configured via the crawler yml file and shared by the page processing and the preloader:
+ * <pre>{@code
+ *     fetcher: &Fetcher
+ *         !!org.babich.crawler.fetcher.PrefetchingPageFetcher { delegate: *HttpFetcher, threads: 30, budget: 67108864 }
+ * }</pre>
+ */
+public class PrefetchingPageFetcher implements PageFetcher, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingPageFetcher.class);
+
+    private static final int PENDING_PER_THREAD = 16;
+    private static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+
+    private final PageFetcher delegate;
+    private final ExecutorService executor;
+    private final long budget;
+    private final int maxPending;
+
+    //the prefetches in the order they are issued, guarded by this
+    private final Map<String, Prefetch> prefetches = new LinkedHashMap<>();
+    private long loadedBytes;
+    private int pending;
+
+    private final Counter hitCounter = Metrics.counter("crawler.fetcher.prefetch.hit.count");
+    private final Counter evictedCounter = Metrics.counter("crawler.fetcher.prefetch.evicted.count");
+
+    private PrefetchingPageFetcher() {
+        this.delegate = null;
+        this.executor = null;
+        this.budget = 0;
+        this.maxPending = 0;
+    }
+
+    public PrefetchingPageFetcher(PageFetcher delegate, Integer threads) {
+        this(delegate, threads, DEFAULT_BUDGET);
+    }
+
+    public PrefetchingPageFetcher(PageFetcher delegate, Integer threads, Integer budget) {
+        this(delegate, threads, null == budget ? DEFAULT_BUDGET : budget.longValue());
+    }
+
+    /**
+     * @param delegate fetcher that loads the page sources
+     * @param threads  number of the threads that prefetch the pages
+     * @param budget   maximum size in bytes of the loaded sources that are kept in the cache
+     */
+    public PrefetchingPageFetcher(PageFetcher delegate, int threads, long budget) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("delegate cannot be null.");
+        }
+        if (threads < 1 || budget < 1) {
+            throw new IllegalArgumentException("threads and budget must be positive.");
+        }
+
+        this.delegate = delegate;
+        this.budget = budget;
+        this.maxPending = threads * PENDING_PER_THREAD;
+        this.executor = Executors.newFixedThreadPool(threads
+                , new ThreadFactoryBuilder().setNameFormat("page-prefetch-%d").setDaemon(true).build());
+
+        Metrics.gauge("crawler.fetcher.prefetch.cache.bytes", this, PrefetchingPageFetcher::getLoadedBytes);
+    }
+
+    /**
+     * issues loading of the page source in the background if it is not issued yet
+     *
+     * @return {@code false} if the prefetch is not issued
+     */
+    public boolean prefetch(String pageUrl) {
+        Prefetch prefetch = new Prefetch();
+        synchronized (this) {
+            if (prefetches.containsKey(pageUrl) || pending >= maxPending || loadedBytes >= budget && !evict(1)) {
+                return false;
+            }
+            prefetches.put(pageUrl, prefetch);
+            pending++;
+        }
+
+        try {
+            executor.execute(() -> load(pageUrl, prefetch));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                prefetches.remove(pageUrl, prefetch);
+                pending--;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * takes the prefetched page source, waits for it if the prefetch is in flight
+     *
+     * @return empty if the page is not prefetched or the prefetch failed
+     */
+    public Optional<String> take(String pageUrl) throws InterruptedIOException {
+        Prefetch prefetch;
+        synchronized (this) {
+            prefetch = prefetches.remove(pageUrl);
+            if (null == prefetch) {
+                return Optional.empty();
+            }
+            loadedBytes -= prefetch.weight;
+        }
+
+        try {
+            String pageSource = prefetch.source.get();
+            hitCounter.increment();
+            return Optional.ofNullable(pageSource);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the page " + pageUrl);
+        } catch (ExecutionException e) {
+            logger.debug("The page {} has not been prefetched.", pageUrl, e.getCause());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String fetch(String pageUrl) throws IOException {
+        Optional<String> pageSource = take(pageUrl);
+        return pageSource.isPresent() ? pageSource.get() : delegate.fetch(pageUrl);
+    }
+
+    synchronized long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    synchronized int size() {
+        return prefetches.size();
+    }
+
+    private void load(String pageUrl, Prefetch prefetch) {
+        String pageSource;
+        try {
+            pageSource = delegate.fetch(pageUrl);
+        } catch (Throwable e) {
+            logger.warn("Error occurred while preloading the page from the URL: {}", pageUrl, e);
+            synchronized (this) {
+                pending--;
+                prefetches.remove(pageUrl, prefetch);
+            }
+            prefetch.source.completeExceptionally(e);
+            return;
+        }
+
+        synchronized (this) {
+            pending--;
+            //the prefetch is counted only while it is cached
+            if (prefetches.get(pageUrl) == prefetch) {
+                prefetch.weight = weightOf(pageSource);
+                loadedBytes += prefetch.weight;
+                evict(0);
+            }
+        }
+        prefetch.source.complete(pageSource);
+    }
+
+    /**
+     * evicts the oldest loaded sources while the cache is over the budget
+     *
+     * @param room the number of bytes that must be freed below the budget
+     * @return {@code true} if the sources fit the budget
+     */
+    private boolean evict(long room) {
+        Iterator<Prefetch> iterator = prefetches.values().iterator();
+        while (loadedBytes > budget - room && iterator.hasNext()) {
+            Prefetch prefetch = iterator.next();
+            if (prefetch.weight > 0) {
+                iterator.remove();
+                loadedBytes -= prefetch.weight;
+                evictedCounter.increment();
+            }
+        }
+        return loadedBytes <= budget - room;
+    }
+
+    private static long weightOf(String pageSource) {
+        return null == pageSource ? 1 : 1 + (long) pageSource.length() * Character.BYTES;
+    }
+
+    /**
+     * stops the prefetches in flight and drops the loaded sources, then closes the delegate
+     */
+    @Override
+    public void close() throws IOException {
+        MoreExecutors.shutdownAndAwaitTermination(executor, Duration.ofSeconds(3));
+        synchronized (this) {
+            prefetches.clear();
+            loadedBytes = 0;
+            pending = 0;
+        }
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    /**
+     * source of the page that is loaded in the background,
+     * the weight is set when it is loaded and is guarded by the fetcher
+     */
+    private static class Prefetch {
+
+        private final CompletableFuture<String> source = new CompletableFuture<>();
+        private long weight;
+    }
+}
@@ -39,7 +39,7 @@ public class DefaultMessageProducer implements PageProcessingInterceptor {
             return;
         }
 
-        eventBus.post(new PageProcessingStart(new Page(page)));
+        eventBus.post(new PageProcessingStart(page));
     }
 
     @Override
@@ -49,7 +49,7 @@ public class DefaultMessageProducer implements PageProcessingInterceptor {
             return;
         }
 
-        eventBus.post(new PageProcessingComplete(new Page(page)));
+        eventBus.post(new PageProcessingComplete(page));
     }
 
 }
@@ -3,31 +3,44 @@
  */
 package org.babich.crawler.interceptor;
 
-import com.google.common.collect.Sets;
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
-import com.google.common.graph.MutableValueGraph;
-import com.google.common.graph.ValueGraphBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Set;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessingInterceptor;
+import org.babich.crawler.api.PageSnapshot;
+import org.babich.crawler.api.messages.CrawlerStopped;
 import org.babich.crawler.api.messages.SuccessorsProcessingComplete;
-import org.babich.crawler.api.messages.PageRecovered;
 import org.babich.crawler.event.LocalEventBus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@SuppressWarnings("UnstableApiUsage")
+/**
+ * Posts the {@link SuccessorsProcessingComplete} message when every successor of a page has been processed.
+ * <br/>A page with successors gets a counter of the pending successors, a processed successor decrements
+ * the counters of its parents and the message is posted when a counter reaches zero. The counters are keyed
+ * by the url fingerprint and updated atomically per key, the completed pages are removed,
+ * so only the pages with pending successors are kept.
+ * <br/>A skipped or a failed successor completes its parents like a processed one. The successors that are not
+ * processed before the crawler is stopped, e.g. by the page limit, never complete their parents,
+ * so the pending pages are dropped when the crawler is stopped.
+ * The pending page is kept as a snapshot without its source.
+ */
 public class SuccessorsMessageProducer implements PageProcessingInterceptor {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    private final Set<String> passedLinks = Sets.newConcurrentHashSet();
-    private final MutableValueGraph<String, Page> graph = ValueGraphBuilder
-            .directed()
-            .allowsSelfLoops(true)
-            .build();
+    private static final HashFunction FINGERPRINT = Hashing.farmHashFingerprint64();
+
+    //pending parents by the url fingerprint
+    private final Map<Long, Pending> pendingParents = new ConcurrentHashMap<>();
+    //fingerprints of the parents by the url fingerprint of the successor, an array if there are several parents
+    private final Map<Long, long[]> parentsOfSuccessor = new ConcurrentHashMap<>();
 
     private LocalEventBus eventBus;
 
@@ -41,36 +54,108 @@ public class SuccessorsMessageProducer implements PageProcessingInterceptor {
 
     @Override
     public void afterProcessing(Page page, List<Page> successorPages) {
+        //the counter is registered before the successors are queued, so they cannot complete before it
+        if (null != successorPages && !successorPages.isEmpty()) {
+            long parent = fingerprint(page.getPageUrl());
+            int count = successorPages.size();
+            pendingParents.compute(parent, (key, pending) -> null == pending
+                    ? new Pending(snapshotOf(page), count)
+                    : pending.add(count));
 
-        passedLinks.add(page.getPageUrl());
-
-        Consumer<Page> newNode = p -> {
-            synchronized (graph) {
-                graph.addNode(p.getPageUrl());
-                graph.putEdgeValue(page.getPageUrl(), p.getPageUrl(), page);
+            long[] parentArray = {parent};
+            for (Page successorPage : successorPages) {
+                parentsOfSuccessor.merge(fingerprint(successorPage.getPageUrl()), parentArray
+                        , SuccessorsMessageProducer::concat);
             }
-        };
-        successorPages.forEach(newNode);
+        }
+
+        completeParentsOf(page);
+    }
+
+    @Override
+    public void afterInterruption(Page page) {
+        completeParentsOf(page);
+    }
+
+    /**
+     * drops the pages whose successors are not processed
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onStop(CrawlerStopped message) {
+        if (!pendingParents.isEmpty()) {
+            logger.debug("{} pages with unprocessed successors are dropped.", pendingParents.size());
+        }
+        pendingParents.clear();
+        parentsOfSuccessor.clear();
+    }
+
+    int getPendingCount() {
+        return pendingParents.size();
+    }
+
+    private void completeParentsOf(Page page) {
+        long[] parents = parentsOfSuccessor.remove(fingerprint(page.getPageUrl()));
+        if (null == parents) {
+            return;
+        }
+        for (long parent : parents) {
+            completeSuccessorOf(parent);
+        }
+    }
 
-        Consumer<String> sentMessage = parent -> graph.edgeValue(parent, page.getPageUrl()).ifPresent(p -> {
-            if (null != eventBus) {
-                eventBus.post(new SuccessorsProcessingComplete(new Page(p)));
+    private void completeSuccessorOf(long parent) {
+        PageSnapshot[] completed = new PageSnapshot[1];
+        pendingParents.computeIfPresent(parent, (key, pending) -> {
+            if (--pending.remaining > 0) {
+                return pending;
             }
-            logger.debug("Each successor for the page {} has been loaded.", p);
+            completed[0] = pending.page;
+            return null;
         });
 
-        synchronized (graph) {
-            graph.predecessors(page.getPageUrl())
-                    .stream().filter(parent -> passedLinks.containsAll(graph.adjacentNodes(parent)))
-                    .forEach(sentMessage);
+        if (null == completed[0]) {
+            return;
+        }
+        if (null != eventBus) {
+            eventBus.post(new SuccessorsProcessingComplete(completed[0]));
         }
+        logger.debug("Each successor for the page {} has been loaded.", completed[0]);
     }
 
-    @Subscribe
-    public void pageOnRecovered(PageRecovered message) {
-        synchronized (graph) {
-            graph.addNode(message.getPage().getPageUrl());
-        }
+    private static PageSnapshot snapshotOf(Page page) {
+        return PageSnapshot.of(new Page(page.getPageContextRef(), page.getCrawlerName(), page.getPageUrl()
+                , page.getPageName(), null, page.getDelay(), page.getDepth(), page.getSize(), page.getPayload()));
+    }
+
+    private static long fingerprint(String pageUrl) {
+        return FINGERPRINT.hashString(pageUrl, StandardCharsets.UTF_8).asLong();
     }
 
+    private static long[] concat(long[] first, long[] second) {
+        long[] result = new long[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * page with the number of its successors that are not processed yet,
+     * it is changed only by the atomic updates of the map
+     */
+    private static class Pending {
+
+        private final PageSnapshot page;
+        private int remaining;
+
+        Pending(PageSnapshot page, int remaining) {
+            this.page = page;
+            this.remaining = remaining;
+        }
+
+        Pending add(int count) {
+            remaining += count;
+            return this;
+        }
+    }
 }
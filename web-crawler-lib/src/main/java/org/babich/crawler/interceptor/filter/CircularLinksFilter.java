@@ -3,33 +3,57 @@
  */
 package org.babich.crawler.interceptor.filter;
 
-import com.google.common.collect.Sets;
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import org.babich.crawler.api.FilterDecision;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.api.messages.PageProcessingSkippe;
 import org.babich.crawler.api.messages.PageRecovered;
+import org.babich.crawler.configuration.ApplicationConfig.VisitedUrls;
 import org.babich.crawler.configuration.exception.PreProcessingChainException;
 import org.babich.crawler.event.LocalEventBus;
+import org.babich.crawler.visited.UrlDepthMap;
+import org.babich.crawler.visited.VisitedUrlSet;
 
 /**
  * This filter detects the circular links and skips their pages.
+ * <br/>Successor pages whose urls have already been processed, or found at the same or a smaller depth,
+ * are removed from the successors right after the page processing. A url found again closer to the start page
+ * is queued once more, so a page first reached beyond the maximum depth is still crawled
+ * when a shallower path to it is found later.
+ * The number of removed duplicates is available as the {@code crawler.processing.page.duplicate.count} metric.
+ * Pages that still reach the processing with a processed url are skipped with the {@link PageProcessingSkippe}
+ * message.
+ * <br/>The processed urls are kept in a {@link VisitedUrlSet} and the minimal depths of the found urls
+ * are kept in a {@link UrlDepthMap}, both are configured by {@link VisitedUrls}.
  */
 @SuppressWarnings("UnstableApiUsage")
 public class CircularLinksFilter implements PageProcessingInterceptor {
 
-    private final Set<String> processedLinks = Sets.newConcurrentHashSet();
+    private final VisitedUrlSet processedLinks;
+    private final UrlDepthMap foundLinks;
+    private final Counter duplicateCounter = Metrics.counter("crawler.processing.page.duplicate.count");
 
     private LocalEventBus eventBus;
 
     private CircularLinksFilter() {
+        this.processedLinks = VisitedUrlSet.create(null);
+        this.foundLinks = UrlDepthMap.create(null);
     }
 
     public CircularLinksFilter(LocalEventBus eventBus) {
+        this(eventBus, null);
+    }
+
+    public CircularLinksFilter(LocalEventBus eventBus, VisitedUrls visitedUrls) {
         this.eventBus = eventBus;
+        this.processedLinks = VisitedUrlSet.create(visitedUrls);
+        this.foundLinks = UrlDepthMap.create(visitedUrls);
     }
 
     @Override
@@ -39,32 +63,62 @@ public class CircularLinksFilter implements PageProcessingInterceptor {
 
     @Override
     public void beforeProcessing(Page page) {
+        FilterDecision decision = decide(page);
+        if (decision.isSkipped()) {
+            throw new PreProcessingChainException(decision.getReason());
+        }
+    }
+
+    @Override
+    public FilterDecision decide(Page page) {
         if (!processedLinks.contains(page.getPageUrl())) {
-            return;
+            return FilterDecision.proceed();
         }
 
-        if (page.getPageContextRef().get().getPagesProcessed() == 1) {
-            return;
+        if (page.getPageContextRef().get().getStatistics().getProcessed() == 1) {
+            return FilterDecision.proceed();
         }
 
-        String message = String.format("The page {%s} by url {%s} has already been processed."
-                        , page.getPageName(), page.getPageUrl());
+        String pageName = page.getPageName();
+        String pageUrl = page.getPageUrl();
+        FilterDecision decision = FilterDecision.skip(() -> String
+                .format("The page {%s} by url {%s} has already been processed.", pageName, pageUrl));
 
         Optional.ofNullable(eventBus)
-                .ifPresent(bus -> bus.post(new PageProcessingSkippe(new Page(page), message)));
+                .ifPresent(bus -> bus.post(new PageProcessingSkippe(page, decision.getReasonSupplier())));
 
-        throw new PreProcessingChainException(message);
+        return decision;
     }
 
     @Override
     public void afterProcessing(Page page, List<Page> successorPages) {
         processedLinks.add(page.getPageUrl());
+
+        //the successors get their depth later in the chain, it is the depth of the next level
+        int successorDepth = page.getDepth() + 1;
+        int count = successorPages.size();
+        successorPages.removeIf(successorPage -> !markFound(successorPage.getPageUrl(), successorDepth));
+        if (count > successorPages.size()) {
+            duplicateCounter.increment(count - successorPages.size());
+        }
     }
 
     @Subscribe
+    @AllowConcurrentEvents
     public void pageOnRecovered(PageRecovered message) {
+        String pageUrl = message.getPage().getPageUrl();
+        markFound(pageUrl, message.getPage().getDepth());
         if (message.isProcessed()) {
-            processedLinks.add(message.getPage().getPageUrl());
+            processedLinks.add(pageUrl);
         }
     }
+
+    /**
+     * The depth is lowered atomically, so a url of the same level is queued once by concurrent workers.
+     *
+     * @return {@code true} if the url has not been processed or found at the same or a smaller depth
+     */
+    private boolean markFound(String pageUrl, int depth) {
+        return !processedLinks.contains(pageUrl) && foundLinks.lower(pageUrl, depth);
+    }
 }
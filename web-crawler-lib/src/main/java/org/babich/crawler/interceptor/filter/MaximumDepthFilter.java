@@ -4,6 +4,7 @@
 package org.babich.crawler.interceptor.filter;
 
 import java.util.Optional;
+import org.babich.crawler.api.FilterDecision;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.api.messages.PageProcessingSkippe;
@@ -37,23 +38,34 @@ public class MaximumDepthFilter implements PageProcessingInterceptor {
 
     @Override
     public void beforeProcessing(Page page) {
+        FilterDecision decision = decide(page);
+        if (decision.isSkipped()) {
+            throw new PreProcessingChainException(decision.getReason());
+        }
+    }
+
+    @Override
+    public FilterDecision decide(Page page) {
         int maxDepth;
         if (0 > (maxDepth = getDepth(limit))) {
-            return;
+            return FilterDecision.proceed();
         }
 
-        if (page.getDepth() <= maxDepth) {
-            return;
+        int depth = page.getDepth();
+        if (depth <= maxDepth) {
+            return FilterDecision.proceed();
         }
 
-        String message = String
+        String pageName = page.getPageName();
+        String pageUrl = page.getPageUrl();
+        FilterDecision decision = FilterDecision.skip(() -> String
                 .format("The page {%s} by url {%s} has been filtered by depth {%d}. Maximum allowable depth {%d}"
-                        , page.getPageName(), page.getPageUrl(), page.getDepth(), maxDepth);
+                        , pageName, pageUrl, depth, maxDepth));
 
         Optional.ofNullable(eventBus)
-                .ifPresent(bus -> bus.post(new PageProcessingSkippe(new Page(page), message)));
+                .ifPresent(bus -> bus.post(new PageProcessingSkippe(page, decision.getReasonSupplier())));
 
-        throw new PreProcessingChainException(message);
+        return decision;
     }
 
     private int getDepth(Limit limit){
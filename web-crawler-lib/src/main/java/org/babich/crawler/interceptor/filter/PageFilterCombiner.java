@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
+import org.babich.crawler.api.FilterDecision;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.api.processing.AssignedPageFilter;
@@ -40,13 +41,21 @@ public class PageFilterCombiner implements PageProcessingInterceptor {
 
     @Override
     public void beforeProcessing(Page page) {
+        FilterDecision decision = decide(page);
+        if (decision.isSkipped()) {
+            throw new PreProcessingChainException(decision.getReason());
+        }
+    }
+
+    @Override
+    public FilterDecision decide(Page page) {
 
         Optional<AssignedPageFilter> triggeredFilter = assignedPageFilters.stream()
                 .filter(preProcessing -> preProcessing.matches(page))
                 .findFirst();
 
         if (!triggeredFilter.isPresent()) {
-            return;
+            return FilterDecision.proceed();
         }
 
         Predicate<Page> filter = triggeredFilter.get();
@@ -54,7 +63,8 @@ public class PageFilterCombiner implements PageProcessingInterceptor {
         Optional.ofNullable(eventBus)
                 .ifPresent(bus -> bus.post(triggeredFilter.get().apply(page)));
 
-        throw new PreProcessingChainException(String
-                .format("Page {%s} processing skipped due to custom filter {%s}.", page.getPageName(), filter));
+        String pageName = page.getPageName();
+        return FilterDecision.skip(() -> String
+                .format("Page {%s} processing skipped due to custom filter {%s}.", pageName, filter));
     }
 }
@@ -0,0 +1,643 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.interceptor.service;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.prefs.Preferences;
+import java.util.zip.CRC32;
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.api.BackupService;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.PageProcessingInterceptor;
+import org.babich.crawler.api.messages.CrawlerStopped;
+import org.babich.crawler.api.messages.PageRecovered;
+import org.babich.crawler.codec.CodecInput;
+import org.babich.crawler.codec.CodecOutput;
+import org.babich.crawler.codec.PageCodec;
+import org.babich.crawler.configuration.ApplicationConfig.Journal;
+import org.babich.crawler.configuration.ApplicationConfig.Journal.Sync;
+import org.babich.crawler.configuration.ApplicationConfig.VisitedUrls;
+import org.babich.crawler.event.LocalEventBus;
+import org.babich.crawler.visited.VisitedUrlSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental backup of the crawler state to an append-only journal.
+ * <br/>Every processed page and its successors are journaled as compact records of the url, name and depth
+ * encoded by the {@link PageCodec} and protected by a CRC. Records are written in batches, a torn record at the end of the journal is ignored on restore.
+ * A hard crash loses at most the batch that is being written and the records appended since then,
+ * the records that are not forced to the storage device by the sync policy can be lost by the system crash.
+ * <p/>The journal is periodically compacted to a snapshot that keeps every processed page once and only the found
+ * pages that have not been processed. The compaction works with the url fingerprints, so no page is kept in memory.
+ * <p/>The batches are written, forced and compacted by a background writer, so the page processing only appends
+ * the records to the current batch. Only one batch is handed off to the writer at a time,
+ * the processing waits for the previous batch when the storage falls behind.
+ * <p/>The state is restored on the next start if the crawler has not been stopped normally, the journal is removed
+ * after the normal stop. If the journal path is not configured, the journal is written to a temporary directory
+ * and the {@code JOURNAL_PATH_PREFERENCE_KEY} preference keeps its path until the next time the crawler is run.
+ * <p/>The journals of the former version with the fixed-length numbers are still restored.
+ * <p/>The records are written after the successor pages got their names and depths,
+ * so the interceptor is executed last.
+ */
+public class JournalBackupService implements PageProcessingInterceptor, BackupService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final int MAGIC = 0x434A524E;
+    private static final byte VERSION = 2;
+    //the records of the first version have the fixed-length numbers
+    private static final byte LEGACY_VERSION = 1;
+    private static final byte PROCESSED = 1;
+    private static final byte FOUND = 2;
+    private static final int MAX_RECORD_LENGTH = 1024 * 1024;
+
+    private static final String JOURNAL_FILE_NAME = "journal.log";
+    private static final String SNAPSHOT_FILE_NAME = "snapshot.log";
+    private static final String SNAPSHOT_TEMP_FILE_NAME = "snapshot.tmp";
+    private static final String JOURNAL_PATH_PREFERENCE_KEY = "journalPath";
+    //the batch in flight and the tasks of the backup, the restore and the stop
+    private static final int WRITER_QUEUE_CAPACITY = 8;
+
+    private final Preferences preferences = Preferences.userNodeForPackage(getClass());
+    private final PageCodec pageCodec = new PageCodec();
+
+    //the current batch, guarded by the lock
+    private final Object lock = new Object();
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private final DataOutputStream batchOutput = new DataOutputStream(batch);
+    private final CRC32 crc = new CRC32();
+    private int batchRecords;
+    private long journalRecords;
+    //the batch handed off to the writer and not written yet
+    private final Semaphore inFlightBatch = new Semaphore(1);
+
+    private final ExecutorService writer;
+    private LocalEventBus eventBus;
+    private Journal config;
+    private volatile String crawlerName;
+
+    //the files are used only by the writer
+    private Path directory;
+    private FileChannel journalChannel;
+    private long lastSync;
+
+    private JournalBackupService() {
+        this.writer = null;
+    }
+
+    public JournalBackupService(LocalEventBus eventBus, Journal journal) {
+        if (null == journal) {
+            throw new IllegalArgumentException("journal cannot be null.");
+        }
+
+        this.eventBus = eventBus;
+        this.config = journal;
+        this.directory = StringUtils.isBlank(journal.getPath()) ? null : Paths.get(journal.getPath());
+        this.writer = newWriter();
+        setupShutdownHook();
+    }
+
+    @Override
+    public int getOrder() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Writes the current batch and forces the journal to the storage device.
+     */
+    @Override
+    public void backup() {
+        Future<?> written;
+        synchronized (lock) {
+            byte[] bytes = takeBatch();
+            written = writer.submit(() -> {
+                write(bytes, true);
+                return null;
+            });
+        }
+        await(written);
+    }
+
+    @Override
+    public Collection<Page> restoreFor(PageContext pageContext) {
+        return await(writer.submit(() -> restore(pageContext)));
+    }
+
+    @Override
+    public void afterProcessing(Page page, List<Page> successorPages) {
+        synchronized (lock) {
+            try {
+                if (null == crawlerName) {
+                    crawlerName = page.getCrawlerName();
+                }
+
+                append(PROCESSED, page);
+                for (Page successorPage : successorPages) {
+                    append(FOUND, successorPage);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+
+            if (batchRecords >= config.getBatchSize()) {
+                byte[] bytes = takeBatch();
+                boolean compaction = journalRecords >= config.getSnapshotInterval();
+                if (compaction) {
+                    journalRecords = 0;
+                }
+                //the batches are queued in the order they are taken, the next one waits for the previous
+                inFlightBatch.acquireUninterruptibly();
+                try {
+                    writer.execute(() -> {
+                        try {
+                            writeInBackground(bytes, compaction);
+                        } finally {
+                            inFlightBatch.release();
+                        }
+                    });
+                } catch (RejectedExecutionException exception) {
+                    inFlightBatch.release();
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onStopCrawler(CrawlerStopped message) {
+        if (message.isAbnormal()) {
+            logger.info("Crawler {} stopped abnormally.", message.getPayload());
+            try {
+                backup();
+            } catch (Exception exception) {
+                logger.error("Cannot write the journal", exception);
+            }
+            return;
+        }
+
+        Future<?> removed;
+        synchronized (lock) {
+            takeBatch();
+            journalRecords = 0;
+            removed = writer.submit(() -> {
+                removeJournal();
+                return null;
+            });
+        }
+        try {
+            await(removed);
+        } catch (UncheckedIOException exception) {
+            logger.error("Cannot remove the journal", exception);
+        }
+    }
+
+    /**
+     * waits until the batches queued to the writer are written
+     */
+    void awaitWriter() {
+        await(submitToWriter(() -> {
+        }));
+    }
+
+    /**
+     * runs the task by the writer after the queued batches, e.g. to hold the writer
+     */
+    Future<?> submitToWriter(Runnable task) {
+        return writer.submit(task);
+    }
+
+    private void append(byte type, Page page) throws IOException {
+        writeRecord(batchOutput, encode(type, page), crc);
+
+        batchRecords++;
+        journalRecords++;
+    }
+
+    /**
+     * @return the records of the current batch, the batch is started again
+     */
+    private byte[] takeBatch() {
+        byte[] bytes = batch.toByteArray();
+        batch.reset();
+        batchRecords = 0;
+        return bytes;
+    }
+
+    private void writeInBackground(byte[] bytes, boolean compaction) {
+        try {
+            write(bytes, false);
+            if (compaction) {
+                snapshot();
+            }
+        } catch (IOException exception) {
+            logger.error("Cannot write the journal", exception);
+        }
+    }
+
+    private void write(byte[] bytes, boolean force) throws IOException {
+        if (bytes.length > 0) {
+            if (null == journalChannel) {
+                journalChannel = openJournal();
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                journalChannel.write(buffer);
+            }
+        }
+
+        if (null != journalChannel && (force || isSyncRequired())) {
+            journalChannel.force(false);
+            lastSync = System.currentTimeMillis();
+        }
+    }
+
+    private Collection<Page> restore(PageContext pageContext) throws IOException {
+        Path path = findDirectory();
+        if (null == path || !Files.exists(path.resolve(SNAPSHOT_FILE_NAME))
+                && !Files.exists(path.resolve(JOURNAL_FILE_NAME))) {
+            logger.debug("The crawler has no sources for recovery.");
+            return Collections.emptySet();
+        }
+
+        logger.info("Recovering from the journal: {}.", path);
+        List<Page> startPages = new ArrayList<>();
+        compact(record -> eventBus.post(new PageRecovered(toPage(record, pageContext), true))
+                , record -> {
+                    Page page = toPage(record, pageContext);
+                    eventBus.post(new PageRecovered(page));
+                    startPages.add(page);
+                });
+
+        logger.info("Recovering successfully completed, {} pages are found.", startPages.size());
+        return startPages;
+    }
+
+    private void removeJournal() throws IOException {
+        closeJournal();
+        Path path = findDirectory();
+        if (null == path) {
+            return;
+        }
+
+        Files.deleteIfExists(path.resolve(JOURNAL_FILE_NAME));
+        Files.deleteIfExists(path.resolve(SNAPSHOT_FILE_NAME));
+        if (StringUtils.isBlank(config.getPath())) {
+            preferences.remove(JOURNAL_PATH_PREFERENCE_KEY);
+            Files.deleteIfExists(path);
+            directory = null;
+        }
+    }
+
+    private boolean isSyncRequired() {
+        Sync sync = config.getSync();
+        return Sync.BATCH == sync
+                || Sync.INTERVAL == sync && System.currentTimeMillis() - lastSync >= config.getSyncInterval();
+    }
+
+    /**
+     * @return the directory of the journal or {@code null} if the temporary one is not created yet
+     */
+    private Path findDirectory() {
+        if (null == directory && StringUtils.isBlank(config.getPath())) {
+            String path = preferences.get(JOURNAL_PATH_PREFERENCE_KEY, null);
+            directory = null == path ? null : Paths.get(path);
+        }
+        return directory;
+    }
+
+    private Path directory() throws IOException {
+        if (null == findDirectory()) {
+            directory = Files.createTempDirectory("journal");
+            preferences.put(JOURNAL_PATH_PREFERENCE_KEY, directory.toString());
+        }
+        return directory;
+    }
+
+    private FileChannel openJournal() throws IOException {
+        Path path = Files.createDirectories(directory()).resolve(JOURNAL_FILE_NAME);
+        boolean isNew = !Files.exists(path) || 0 == Files.size(path);
+
+        FileChannel channel = FileChannel.open(path, CREATE, WRITE, APPEND);
+        if (isNew) {
+            channel.write(ByteBuffer.wrap(header(crawlerName)));
+        }
+        return channel;
+    }
+
+    private void closeJournal() throws IOException {
+        if (null != journalChannel) {
+            journalChannel.close();
+            journalChannel = null;
+        }
+    }
+
+    private void snapshot() throws IOException {
+        write(new byte[0], true);
+        compact(record -> {
+        }, record -> {
+        });
+    }
+
+    /**
+     * Rewrites the snapshot and the journal to a new snapshot and removes the journal.
+     * Processed pages are read in the first pass, so the found pages that have been processed are dropped
+     * in the second one.
+     */
+    private void compact(Consumer<Record> processedConsumer, Consumer<Record> foundConsumer) throws IOException {
+        closeJournal();
+
+        Path snapshot = directory().resolve(SNAPSHOT_FILE_NAME);
+        Path journal = directory().resolve(JOURNAL_FILE_NAME);
+        Path temp = directory().resolve(SNAPSHOT_TEMP_FILE_NAME);
+        CRC32 checksum = new CRC32();
+
+        VisitedUrlSet processed = VisitedUrlSet.create(fingerprints());
+        VisitedUrlSet found = VisitedUrlSet.create(fingerprints());
+        long records = 0;
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            String name = readCrawlerName(snapshot, journal);
+            if (null == crawlerName) {
+                crawlerName = name;
+            }
+            output.write(header(name));
+
+            readRecords(snapshot, name, PROCESSED, record -> {
+                if (processed.add(record.page.getPageUrl())) {
+                    writeSnapshotRecord(output, record, checksum);
+                    processedConsumer.accept(record);
+                }
+            });
+            readRecords(journal, name, PROCESSED, record -> {
+                if (processed.add(record.page.getPageUrl())) {
+                    writeSnapshotRecord(output, record, checksum);
+                    processedConsumer.accept(record);
+                }
+            });
+
+            Consumer<Record> foundRecordConsumer = record -> {
+                String url = record.page.getPageUrl();
+                if (!processed.contains(url) && found.add(url)) {
+                    writeSnapshotRecord(output, record, checksum);
+                    foundConsumer.accept(record);
+                }
+            };
+            readRecords(snapshot, name, FOUND, foundRecordConsumer);
+            readRecords(journal, name, FOUND, foundRecordConsumer);
+
+            records = processed.size() + found.size();
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+
+        Files.move(temp, snapshot, REPLACE_EXISTING, ATOMIC_MOVE);
+        Files.deleteIfExists(journal);
+        logger.debug("The journal is compacted to {} records.", records);
+    }
+
+    private void writeSnapshotRecord(DataOutputStream output, Record value, CRC32 checksum) {
+        try {
+            writeRecord(output, encode(value.type, value.page), checksum);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private String readCrawlerName(Path... paths) throws IOException {
+        for (Path path : paths) {
+            if (Files.exists(path) && Files.size(path) > 0) {
+                try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+                    readVersion(input, path);
+                    return input.readUTF();
+                }
+            }
+        }
+        return crawlerName;
+    }
+
+    /**
+     * reads the records of the type, the reading is stopped at the first damaged record
+     */
+    private void readRecords(Path path, String expectedCrawlerName, byte type, Consumer<Record> recordConsumer)
+            throws IOException {
+        if (!Files.exists(path) || 0 == Files.size(path)) {
+            return;
+        }
+
+        CRC32 crc = new CRC32();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int version = readVersion(input, path);
+            String name = input.readUTF();
+            if (!name.equals(expectedCrawlerName)) {
+                logger.warn("The journal {} belongs to the crawler {}.", path, name);
+            }
+
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+
+                byte[] bytes;
+                int checksum;
+                try {
+                    if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                        throw new IOException("Incorrect record length " + length);
+                    }
+                    checksum = input.readInt();
+                    bytes = new byte[length];
+                    input.readFully(bytes);
+                } catch (IOException e) {
+                    logger.warn("The journal {} ends with a damaged record.", path);
+                    return;
+                }
+
+                crc.reset();
+                crc.update(bytes, 0, bytes.length);
+                if ((int) crc.getValue() != checksum) {
+                    logger.warn("The journal {} ends with a damaged record.", path);
+                    return;
+                }
+
+                Record record = LEGACY_VERSION == version
+                        ? Record.fromLegacy(bytes, name) : Record.from(bytes, name, pageCodec);
+                if (type == record.type) {
+                    recordConsumer.accept(record);
+                }
+            }
+        }
+    }
+
+    private byte[] encode(byte type, Page page) {
+        CodecOutput output = new CodecOutput();
+        output.writeByte(type);
+        pageCodec.writeReference(output, page);
+        return output.toByteArray();
+    }
+
+    private static void writeRecord(DataOutputStream output, byte[] bytes, CRC32 crc) throws IOException {
+        crc.reset();
+        crc.update(bytes, 0, bytes.length);
+        output.writeInt(bytes.length);
+        output.writeInt((int) crc.getValue());
+        output.write(bytes);
+    }
+
+    private static byte[] header(String crawlerName) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(header);
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeUTF(null == crawlerName ? "" : crawlerName);
+        return header.toByteArray();
+    }
+
+    /**
+     * @return the format version of the journal, the crawler name follows it
+     */
+    private static int readVersion(DataInputStream input, Path path) throws IOException {
+        int version;
+        if (MAGIC != input.readInt() || (version = input.readByte()) < LEGACY_VERSION || version > VERSION) {
+            throw new IOException("The file " + path + " is not a crawler journal.");
+        }
+        return version;
+    }
+
+    private VisitedUrls fingerprints() {
+        VisitedUrls visitedUrls = new VisitedUrls();
+        visitedUrls.setMode(VisitedUrls.Mode.FINGERPRINT);
+        visitedUrls.setCapacity(config.getCapacity());
+        return visitedUrls;
+    }
+
+    /**
+     * waits for the writer
+     */
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for the journal."));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * single writer with the bounded queue, the caller waits for the room in the queue
+     */
+    private static ExecutorService newWriter() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS
+                , new ArrayBlockingQueue<>(WRITER_QUEUE_CAPACITY)
+                , new ThreadFactoryBuilder().setNameFormat("journal-writer-%d").setDaemon(true).build()
+                , (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("The journal writer is shut down.");
+            }
+            try {
+                executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the journal writer.", e);
+            }
+        });
+    }
+
+    private void setupShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                MoreExecutors.shutdownAndAwaitTermination(writer, Duration.ofSeconds(3))));
+    }
+
+    private static Page toPage(Record record, PageContext pageContext) {
+        record.page.getPageContextRef().set(pageContext);
+        return record.page;
+    }
+
+    /**
+     * journal record of the page, the page is read without the context
+     */
+    private static class Record {
+
+        private final byte type;
+        private final Page page;
+
+        private Record(byte type, Page page) {
+            this.type = type;
+            this.page = page;
+        }
+
+        static Record from(byte[] bytes, String crawlerName, PageCodec pageCodec) {
+            CodecInput input = new CodecInput(bytes);
+            byte type = (byte) input.readByte();
+            return new Record(type, pageCodec.readReference(input, crawlerName, null));
+        }
+
+        static Record fromLegacy(byte[] bytes, String crawlerName) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte type = buffer.get();
+            int depth = buffer.getInt();
+            Page page = new Page(new AtomicReference<>(), crawlerName, readString(buffer), readString(buffer));
+            page.setDepth(depth);
+            return new Record(type, page);
+        }
+
+        private static String readString(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -3,12 +3,35 @@
  */
 package org.babich.crawler.interceptor.service;
 
-import java.util.Random;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.configuration.ApplicationConfig.Delay;
+import org.babich.crawler.traversal.PolitenessScheduler;
 
-public class PageProcessingDelay implements PageProcessingInterceptor {
+/**
+ * Per-host politeness delay. Every host keeps the time of the next allowed fetch, and two pages of the same host
+ * are never loaded closer than a random delay between {@code Delay#min} and {@code Delay#max}.
+ * Pages of different hosts are not delayed by each other.
+ * <p/>When the crawler runs with several workers, the {@code ConcurrentPageTraverser} uses this class as
+ * a {@link PolitenessScheduler} and parks the pages of a busy host instead of blocking the worker.
+ * Otherwise the crawling thread sleeps until the host of the page is available.
+ * <br/>The host is reserved when the page is polled, before the filters, and the interceptor that runs after
+ * the filters takes the reservation when the page passes them. The reservation of a skipped page is refunded
+ * when the page is released, unless the host has been reserved since, and the traverser checks its parked pages again.
+ */
+public class PageProcessingDelay implements PageProcessingInterceptor, PolitenessScheduler {
+
+    //the host reserved by the current worker thread that is not taken by the page yet
+    private final ThreadLocal<Reservation> reservation = new ThreadLocal<>();
+    //the time of the first attempt for pages that are waiting for their host
+    private final Map<Page, Long> waitingPages = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> nextFetchTimeByHost = new ConcurrentHashMap<>();
 
     private Delay delay;
 
@@ -22,21 +45,103 @@ public class PageProcessingDelay implements PageProcessingInterceptor {
         this.delay = delay;
     }
 
+    @Override
+    public int getOrder() {
+        return Integer.MAX_VALUE - 200;
+    }
+
     @Override
     public void beforeProcessing(Page page) {
-        page.setDelay(await(delay.getMin(), delay.getMax()));
+        Reservation reserved = reservation.get();
+        if (null != reserved && page == reserved.page) {
+            reservation.remove();
+            return;
+        }
+
+        await(page);
     }
 
-    protected int await(int min, int maxTimeout) {
-        int delayMs = min == maxTimeout ? min : new Random().ints(min, maxTimeout)
-                .findFirst()
-                .orElse(maxTimeout);
+    @Override
+    public long tryAcquire(Page page) {
+        long now = System.currentTimeMillis();
+        AtomicLong nextFetchTime = nextFetchTimeByHost.computeIfAbsent(getHost(page), host -> new AtomicLong());
 
+        long allowedTime;
+        while ((allowedTime = nextFetchTime.get()) <= now) {
+            long reservedTime = now + nextDelay();
+            if (nextFetchTime.compareAndSet(allowedTime, reservedTime)) {
+                Long since = waitingPages.remove(page);
+                page.setDelay(null == since ? 0 : (int) (now - since));
+                reservation.set(new Reservation(page, nextFetchTime, allowedTime, reservedTime));
+                return 0;
+            }
+        }
+
+        waitingPages.putIfAbsent(page, now);
+        return allowedTime - now;
+    }
+
+    @Override
+    public boolean release(Page page) {
+        waitingPages.remove(page);
+
+        Reservation reserved = reservation.get();
+        if (null == reserved || page != reserved.page) {
+            return false;
+        }
+
+        reservation.remove();
+        //the page hasn't reached the fetch, the host is available again unless it has been reserved since
+        return reserved.nextFetchTime.compareAndSet(reserved.reservedTime, reserved.previousTime);
+    }
+
+    int getWaitingPageCount() {
+        return waitingPages.size();
+    }
+
+    /**
+     * blocks the current thread until the host of the page is available.
+     */
+    protected void await(Page page) {
+        long waitMs;
+        while (0 < (waitMs = tryAcquire(page))) {
+            try {
+                Thread.sleep(waitMs);
+            } catch (InterruptedException e) {
+                waitingPages.remove(page);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        reservation.remove();
+    }
+
+    private int nextDelay() {
+        int min = delay.getMin();
+        int max = delay.getMax();
+        return min == max ? min : ThreadLocalRandom.current().nextInt(min, max);
+    }
+
+    private static String getHost(Page page) {
+        String pageUrl = page.getPageUrl();
         try {
-            Thread.sleep(delayMs);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            return new URL(pageUrl).getHost();
+        } catch (MalformedURLException e) {
+            return String.valueOf(pageUrl);
+        }
+    }
+
+    private static class Reservation {
+        private final Page page;
+        private final AtomicLong nextFetchTime;
+        private final long previousTime;
+        private final long reservedTime;
+
+        Reservation(Page page, AtomicLong nextFetchTime, long previousTime, long reservedTime) {
+            this.page = page;
+            this.nextFetchTime = nextFetchTime;
+            this.previousTime = previousTime;
+            this.reservedTime = reservedTime;
         }
-        return delayMs;
     }
 }
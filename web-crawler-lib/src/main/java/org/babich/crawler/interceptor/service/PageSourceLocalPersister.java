@@ -3,39 +3,37 @@
  */
 package org.babich.crawler.interceptor.service;
 
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
-import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.List;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.api.messages.CrawlerStopped;
+import org.babich.crawler.configuration.ApplicationConfig.SourceStore;
+import org.babich.crawler.store.PageSourceStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The page source is saved to disk and the {@code Page#pageSource} value is replaced with the file path as a URI string.
+ * The page source is saved to the {@link PageSourceStore} and the {@code Page#pageSource} value is replaced with
+ * the locator of the stored source.
  * This is necessary to keep the Page object lightweight and portable.
  */
 public class PageSourceLocalPersister implements PageProcessingInterceptor {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final Path pageSourceDir;
+    private final PageSourceStore store;
 
 
     public PageSourceLocalPersister() {
-        try {
-            pageSourceDir = Files.createTempDirectory("page_source_persister");
-        } catch (IOException exception) {
-            throw new UncheckedIOException(exception);
-        }
+        this(new SourceStore());
+    }
+
+    public PageSourceLocalPersister(SourceStore store) {
+        this.store = new PageSourceStore(null == store ? new SourceStore() : store);
     }
 
     @Override
@@ -47,35 +45,37 @@ public class PageSourceLocalPersister implements PageProcessingInterceptor {
         }
 
         try {
-            URI pageSourceUri = save(page).toUri();
-            page.setPageSource(pageSourceUri.toString());
+            page.setPageSource(store.append(page.getPageSource()));
         } catch (IOException exception) {
             logger.error("The original page {} could not be saved to the file system.", pageName, exception);
         }
     }
 
-    private Path save(Page page) throws IOException {
-        Path newFilePath = Files.createTempFile(pageSourceDir, page.getPageName(), StringUtils.EMPTY);
-        return Files.write(newFilePath, page.getPageSource().getBytes());
+    /**
+     * @return the store of the page sources, it can be used to read the sources back by the locators
+     */
+    public PageSourceStore getStore() {
+        return store;
     }
 
     /**
      * remove page sources from disk when the crawler is stopped.
      */
     @Subscribe
+    @AllowConcurrentEvents
     public void tearDown(CrawlerStopped message){
-        File sourceDir = pageSourceDir.toFile();
         if(message.isAbnormal()){
+            store.close();
             logger.info("The crawler has crashed, the page sources have not been removed from the directory {}."
-                    , sourceDir);
+                    , store.getDirectory());
             return;
         }
 
-        if(sourceDir.exists() && FileUtils.deleteQuietly(pageSourceDir.toFile())) {
-            logger.debug("Page sources removed from the dir {}.", sourceDir);
-            return;
+        try {
+            store.delete();
+            logger.debug("Page sources removed from the dir {}.", store.getDirectory());
+        } catch (IOException exception) {
+            logger.error("Unable to remove page sources from directory {}.", store.getDirectory(), exception);
         }
-
-        logger.error("Unable to remove page sources from directory {}.", sourceDir);
     }
 }
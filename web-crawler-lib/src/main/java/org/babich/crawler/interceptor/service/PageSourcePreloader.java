@@ -3,25 +3,30 @@
  */
 package org.babich.crawler.interceptor.service;
 
+import org.apache.commons.lang3.StringUtils;
 import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageFetcher;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.configuration.ApplicationConfig;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import org.babich.crawler.configuration.ApplicationConfig.Limit;
+import org.babich.crawler.fetcher.JsoupPageFetcher;
+import org.babich.crawler.fetcher.PrefetchingPageFetcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Loading page content from successor URLs.
  * This feature can greatly improve crawling speed by using a parallel
  * data loading approach. This mean all successor URLs have to be validated because they will all be loaded.
+ * <br/>The sources are prefetched by the {@link PrefetchingPageFetcher}, the successors are already normalized
+ * and deduplicated by the interceptors with the lower order, the successors deeper than the maximum depth
+ * of the limit are not prefetched. Before the processing the page source is taken from the prefetch cache,
+ * the processing thread waits for a prefetch in flight instead of loading the page again.
+ * The processing that shares the fetcher gets the prefetched source the same way.
  */
 public class PageSourcePreloader implements PageProcessingInterceptor {
 
@@ -29,18 +34,35 @@ public class PageSourcePreloader implements PageProcessingInterceptor {
 
     final int order = Integer.MAX_VALUE - 100;
 
-    private final ExecutorService service;
     private final ApplicationConfig.PageConfig config;
+    private final PrefetchingPageFetcher fetcher;
+    private final Limit limit;
 
     private PageSourcePreloader() {
-        this.service = null;
         this.config = null;
+        this.fetcher = null;
+        this.limit = null;
     }
 
     public PageSourcePreloader(ApplicationConfig.PageConfig config, Integer capacity) {
-        this.service = Executors.newFixedThreadPool(capacity);
+        this(config, capacity, new JsoupPageFetcher(config));
+    }
+
+    public PageSourcePreloader(ApplicationConfig.PageConfig config, Integer capacity, PageFetcher fetcher) {
+        this(config, capacity, fetcher, null);
+    }
+
+    /**
+     * @param capacity number of the prefetching threads, it is ignored if the fetcher is a {@link PrefetchingPageFetcher}
+     * @param limit    the successors deeper than the maximum depth are not prefetched
+     */
+    public PageSourcePreloader(ApplicationConfig.PageConfig config, Integer capacity, PageFetcher fetcher
+            , Limit limit) {
         this.config = config;
-        setupShutdownHook();
+        this.fetcher = fetcher instanceof PrefetchingPageFetcher
+                ? (PrefetchingPageFetcher) fetcher
+                : new PrefetchingPageFetcher(fetcher, capacity);
+        this.limit = limit;
     }
 
     @Override
@@ -48,37 +70,37 @@ public class PageSourcePreloader implements PageProcessingInterceptor {
         return order;
     }
 
+    @Override
+    public void beforeProcessing(Page page) {
+        if (isPagePreloadFeatureDisabled() || StringUtils.isNotBlank(page.getPageSource())) {
+            return;
+        }
+
+        try {
+            fetcher.take(page.getPageUrl()).ifPresent(page::setPageSource);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
     public void afterProcessing(Page page, List<Page> successorPages) {
-        if(isPagePreloadFeatureDisabled()){
+        if (isPagePreloadFeatureDisabled() || isDeeperThanLimit(page.getDepth() + 1)) {
             return;
         }
 
-        successorPages.forEach(p -> service.submit(() -> {
-            Document doc;
-            try {
-                doc = Jsoup.connect(p.getPageUrl()).userAgent(config.getUserAgent()).get();
-                p.setPageSource(doc.html());
-            } catch (IOException e) {
-                logger.error("Error occurred while preloading the page from the URL:" + p.getPageUrl(), e);
-                throw new UncheckedIOException(e);
+        successorPages.forEach(p -> {
+            if (!fetcher.prefetch(p.getPageUrl())) {
+                logger.debug("The page {} has not been prefetched.", p.getPageUrl());
             }
-        }));
+        });
     }
 
     boolean isPagePreloadFeatureDisabled(){
         return !config.getPreLoad();
     }
 
-    private void setupShutdownHook() {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            try {
-                if(!service.awaitTermination(3, TimeUnit.SECONDS)){
-                    service.shutdown();
-                }
-            } catch (InterruptedException ignore) {
-                Thread.currentThread().interrupt();
-            }
-        }));
+    private boolean isDeeperThanLimit(int depth) {
+        return null != limit && limit.getMaxDepth() >= 0 && depth > limit.getMaxDepth();
     }
 }
@@ -1,20 +1,13 @@
 package org.babich.crawler.interceptor.service;
 
 import com.google.common.base.Strings;
-import org.apache.commons.lang3.StringUtils;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Consumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * URI normalization is the process by which URIs are modified and standardized in a consistent manner.
@@ -30,21 +23,30 @@ import java.util.stream.Collectors;
  *     <li><p>Removing the "?" when the query is empty.</p></li>
  *     <li><p> Sorting the query parameters.</p></li>
  * </ul>
+ * The urls are normalized in a single pass by the {@link UrlCanonicalizer}, the percent-encoding normalization
+ * and the removal of the https default port are enabled via the crawler yml file like this:
+ * <pre>{@code
+ *     - !!org.babich.crawler.interceptor.service.PageUrlNormalizer { percentEncoding: true, httpsDefaultPort: true }
+ * }</pre>
  */
 public class PageUrlNormalizer implements PageProcessingInterceptor {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    static final String regexUri = "^((?<scheme>[^:/?#]+):)" +
-            "?(//(?<authority>(((?<user>[^@]+)@)?(?<host>[A-Za-z0-9.\\-_~]+)(:(?<port>\\d*))?)))" +
-            "?(?<path>[^?#]*)" +
-            "(\\?(?<query>[^#]*))" +
-            "?(#(?<fragment>.*))" +
-            "?(?i)";
+    private final UrlCanonicalizer canonicalizer;
 
-    static final String queryParamsSeparator = "&";
-    static final Pattern pattern = Pattern.compile(regexUri);
-    static final Pattern queryPattern = Pattern.compile(queryParamsSeparator);
+    public PageUrlNormalizer() {
+        this(false, false);
+    }
+
+    /**
+     * @param percentEncoding  normalize the percent-encoding of the path and the query
+     * @param httpsDefaultPort remove the default port 443 of the https scheme
+     */
+    public PageUrlNormalizer(Boolean percentEncoding, Boolean httpsDefaultPort) {
+        this.canonicalizer = new UrlCanonicalizer(Boolean.TRUE.equals(percentEncoding)
+                , Boolean.TRUE.equals(httpsDefaultPort));
+    }
 
     @Override
     public int getOrder() {
@@ -67,94 +69,29 @@ public class PageUrlNormalizer implements PageProcessingInterceptor {
             return;
         }
 
-        try {
-            URI uri = new URI(pageUrl);
-            page.setPageUrl(normalize(uri));
-        } catch (URISyntaxException e) {
+        String normalizedUrl = normalize(pageUrl);
+        if (null == normalizedUrl) {
             logger.error("Cannot parse URL {} string for te page {}."
-                    , pageUrl, page.getPageName(), e);
-        }
-    }
-
-    protected String normalize(URI uri){
-        uri = uri.normalize();
-        String uriAsString = uri.toString();
-        Matcher matcher = pattern.matcher(uriAsString);
-
-        if (!matcher.find()) {
-            return uriAsString;
-        }
-
-        StringBuilder sourceUriString = new StringBuilder(uriAsString);
-
-        convertingSchemeAndHostToLowercase(matcher, sourceUriString);
-        sortingQueryParameters(uri, matcher, sourceUriString);
-
-        removingFragment(matcher, sourceUriString);
-        removingQueryMarkWhenQueryIsEmpty(matcher, sourceUriString);
-        removingDefaultPort(matcher, sourceUriString);
-
-        return sourceUriString.toString();
-    }
-
-    private void sortingQueryParameters(URI uri, Matcher matcher, StringBuilder source) {
-        String queryGroupName = "query";
-        Consumer<String> sortQueryParams = queryString ->
-        {
-            String sortedQueryParams = queryPattern.splitAsStream(queryString)
-                    .sorted()
-                    .collect(Collectors.joining(queryParamsSeparator));
-
-            source.replace(matcher.start(queryGroupName), matcher.end(queryGroupName), sortedQueryParams);
-        };
-
-        Optional.ofNullable(uri.getQuery()).ifPresent(sortQueryParams);
-    }
-
-    private void removingFragment(Matcher matcher, StringBuilder source) {
-        String fragmentGroupName = "fragment";
-        String fragment = matcher.group(fragmentGroupName);
-        if (StringUtils.isBlank(fragment)) {
+                    , pageUrl, page.getPageName());
             return;
         }
-
-        source.delete(matcher.start(fragmentGroupName) - 1, matcher.end(fragmentGroupName));
+        page.setPageUrl(normalizedUrl);
     }
 
-    private void removingDefaultPort(Matcher matcher, StringBuilder source) {
-        String portGroupName = "port";
-        String port = matcher.group(portGroupName);
-        if (!"80".equals(port)) {
-            return;
-        }
-        source.delete(matcher.start(portGroupName) - 1, matcher.end(portGroupName));
+    /**
+     * @return the normalized url or {@code null} if the url cannot be parsed
+     */
+    protected String normalize(String pageUrl) {
+        return canonicalizer.canonicalize(pageUrl);
     }
-    private void removingQueryMarkWhenQueryIsEmpty(Matcher matcher, StringBuilder source){
-        if(StringUtils.isNotBlank(matcher.group("query"))){
-            return;
-        }
-
-        int position;
-        if(-1 == (position = matcher.end("path"))) {
-            return;
-        }
 
-        if(position < source.length() && '?' == source.charAt(position)){
-            source.delete(position, position + 1);
-        }
-    }
-
-    private void convertingSchemeAndHostToLowercase(Matcher matcher, StringBuilder source) {
-        replaceGroupToLowerCase(matcher, "scheme", source);
-        replaceGroupToLowerCase(matcher, "host", source);
-    }
-
-    private static void replaceGroupToLowerCase(Matcher matcher, String groupName, StringBuilder source) {
-        String value = matcher.group(groupName);
-        if (StringUtils.isBlank(value)) {
-            return;
-        }
-        source.replace(matcher.start(groupName), matcher.end(groupName), value.toLowerCase());
+    /**
+     * @return the normalized url or {@code null} if the url cannot be parsed
+     * @deprecated the urls are normalized without parsing them to {@code URI}, use {@link #normalize(String)},
+     * the normalization of a page is not passed through this method anymore
+     */
+    @Deprecated
+    protected String normalize(URI uri) {
+        return normalize(uri.toString());
     }
-
 }
@@ -3,6 +3,7 @@
  */
 package org.babich.crawler.interceptor.service;
 
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import java.util.Collections;
 import java.util.List;
@@ -10,6 +11,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.text.StrSubstitutor;
 import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
 import org.babich.crawler.api.PageProcessingInterceptor;
 import org.babich.crawler.api.messages.PageRecovered;
 import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
@@ -65,14 +67,15 @@ public class SuccessorPagesPostProcessing implements PageProcessingInterceptor {
     }
 
     void updateStatistic(Page page, int count) {
-        page.getPageContextRef().updateAndGet(pageContext -> pageContext.transform(builder -> {
-            builder.pagesProcessed(pageContext.getPagesProcessed() + 1);
-            builder.pageCount(pageContext.getPageCount() + count);
-        }));
+        PageContext pageContext = page.getPageContextRef().get();
+        if (null != pageContext) {
+            pageContext.getStatistics().pageProcessed(page.getSize(), count);
+        }
     }
 
     @SuppressWarnings("UnstableApiUsage")
     @Subscribe
+    @AllowConcurrentEvents
     public void pageOnRecovered(PageRecovered message) {
         pageNumber.incrementAndGet();
     }
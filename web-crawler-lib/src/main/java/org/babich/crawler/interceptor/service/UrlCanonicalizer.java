@@ -0,0 +1,368 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.interceptor.service;
+
+/**
+ * Single pass canonicalizer of the page urls that is used by the {@link PageUrlNormalizer}.
+ * <br/>The url is scanned once and its canonical form is written to a buffer of the thread,
+ * the query parameters are sorted by their positions in the buffer, so the only allocation is the result string.
+ * If the url is already canonical the same string is returned.
+ * <p/>The rules are the same as the ones of the {@code PageUrlNormalizer}:
+ * <ul>
+ *     <li><p> Converting the scheme and host to lowercase.</p></li>
+ *     <li><p> Removing dot-segments, the leading ".." segments are kept.</p></li>
+ *     <li><p> Removing the default port 80 of the http scheme.</p></li>
+ *     <li><p> Removing the fragment.</p></li>
+ *     <li><p> Removing duplicate slashes.</p></li>
+ *     <li><p> Removing the "?" when the query is empty.</p></li>
+ *     <li><p> Sorting the query parameters, the empty parameters are removed.</p></li>
+ * </ul>
+ * Optional rules:
+ * <ul>
+ *     <li><p> Normalizing the percent-encoding: the hex digits are converted to uppercase
+ *     and the encoded unreserved characters are decoded.</p></li>
+ *     <li><p> Removing the default port 443 of the https scheme.</p></li>
+ * </ul>
+ */
+public final class UrlCanonicalizer {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_KEPT_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private final boolean percentEncoding;
+    private final boolean httpsDefaultPort;
+
+    public UrlCanonicalizer() {
+        this(false, false);
+    }
+
+    /**
+     * @param percentEncoding  normalize the percent-encoding of the path and the query
+     * @param httpsDefaultPort remove the default port 443 of the https scheme
+     */
+    public UrlCanonicalizer(boolean percentEncoding, boolean httpsDefaultPort) {
+        this.percentEncoding = percentEncoding;
+        this.httpsDefaultPort = httpsDefaultPort;
+    }
+
+    /**
+     * @return the canonical url or {@code null} if the url contains illegal characters or escapes
+     */
+    public String canonicalize(String url) {
+        if (null == url || !isValid(url)) {
+            return null;
+        }
+
+        Buffers buffers = UrlCanonicalizer.buffers.get();
+        StringBuilder out = buffers.out;
+        out.setLength(0);
+
+        int length = url.length();
+        int fragment = url.indexOf('#');
+        int end = -1 == fragment ? length : fragment;
+
+        int position = appendScheme(url, end, out);
+        boolean http = isScheme(out, "http:");
+        boolean https = isScheme(out, "https:");
+
+        if (position + 1 < end && '/' == url.charAt(position) && '/' == url.charAt(position + 1)) {
+            position = appendAuthority(url, position + 2, end, http, https, out);
+        }
+
+        int query = indexOf(url, '?', position, end);
+        int pathEnd = -1 == query ? end : query;
+        appendPath(url, position, pathEnd, buffers, out);
+
+        if (-1 != query) {
+            appendQuery(url, query + 1, end, buffers, out);
+        }
+
+        String result = out.length() == length && out.indexOf(url) == 0 ? url : out.toString();
+        buffers.release();
+        return result;
+    }
+
+    /**
+     * @return position after the scheme
+     */
+    private static int appendScheme(String url, int end, StringBuilder out) {
+        for (int i = 0; i < end; i++) {
+            char c = url.charAt(i);
+            if (':' == c) {
+                if (0 == i) {
+                    return 0;
+                }
+                for (int j = 0; j <= i; j++) {
+                    out.append(toLowerCase(url.charAt(j)));
+                }
+                return i + 1;
+            }
+            if ('/' == c || '?' == c) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return position after the authority
+     */
+    private int appendAuthority(String url, int start, int end, boolean http, boolean https, StringBuilder out) {
+        int authorityEnd = start;
+        while (authorityEnd < end && '/' != url.charAt(authorityEnd) && '?' != url.charAt(authorityEnd)) {
+            authorityEnd++;
+        }
+
+        out.append("//");
+        int host = indexOf(url, '@', start, authorityEnd) + 1;
+        if (0 == host) {
+            host = start;
+        }
+        out.append(url, start, host);
+
+        int port = -1;
+        for (int i = authorityEnd - 1; i >= host; i--) {
+            char c = url.charAt(i);
+            if (':' == c) {
+                port = i;
+                break;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+        }
+
+        int hostEnd = -1 == port ? authorityEnd : port;
+        for (int i = host; i < hostEnd; i++) {
+            out.append(toLowerCase(url.charAt(i)));
+        }
+
+        if (-1 != port && !(http && isPort(url, port + 1, authorityEnd, "80")
+                || https && httpsDefaultPort && isPort(url, port + 1, authorityEnd, "443"))) {
+            out.append(url, port, authorityEnd);
+        }
+        return authorityEnd;
+    }
+
+    /**
+     * writes the path without the empty and the dot segments like {@code java.net.URI#normalize()},
+     * a relative path is written as is
+     */
+    private void appendPath(String url, int start, int end, Buffers buffers, StringBuilder out) {
+        if (start == end || '/' != url.charAt(start)) {
+            appendEncoded(url, start, end, out);
+            return;
+        }
+
+        //the output positions of the segments that can be removed by ".." ones
+        int depth = 0;
+        boolean trailingSlash = false;
+        int pathStart = out.length();
+
+        for (int segment = start + 1; segment <= end; ) {
+            int segmentEnd = indexOf(url, '/', segment, end);
+            if (-1 == segmentEnd) {
+                segmentEnd = end;
+            }
+
+            int segmentLength = segmentEnd - segment;
+            if (1 == segmentLength && '.' == url.charAt(segment)) {
+                trailingSlash = true;
+            } else if (2 == segmentLength && '.' == url.charAt(segment) && '.' == url.charAt(segment + 1)) {
+                if (depth > 0) {
+                    out.setLength(buffers.segments[--depth]);
+                    trailingSlash = true;
+                } else {
+                    //the leading ".." segments are kept
+                    out.append("/..");
+                    trailingSlash = false;
+                }
+            } else if (segmentLength > 0) {
+                buffers.segments = ensureCapacity(buffers.segments, depth);
+                buffers.segments[depth++] = out.length();
+                out.append('/');
+                appendEncoded(url, segment, segmentEnd, out);
+                trailingSlash = false;
+            }
+            segment = segmentEnd + 1;
+        }
+
+        if (trailingSlash || '/' == url.charAt(end - 1) || out.length() == pathStart) {
+            out.append('/');
+        }
+    }
+
+    /**
+     * writes the sorted non-empty query parameters
+     */
+    private void appendQuery(String url, int start, int end, Buffers buffers, StringBuilder out) {
+        StringBuilder query = buffers.query;
+        query.setLength(0);
+        int count = 0;
+
+        int parameter = start;
+        while (parameter <= end) {
+            int parameterEnd = indexOf(url, '&', parameter, end);
+            if (-1 == parameterEnd) {
+                parameterEnd = end;
+            }
+            if (parameterEnd > parameter) {
+                buffers.parameters = ensureCapacity(buffers.parameters, count * 2 + 1);
+                buffers.parameters[count * 2] = query.length();
+                appendEncoded(url, parameter, parameterEnd, query);
+                buffers.parameters[count * 2 + 1] = query.length();
+                count++;
+            }
+            parameter = parameterEnd + 1;
+        }
+
+        if (0 == count) {
+            return;
+        }
+
+        int[] parameters = buffers.parameters;
+        //insertion sort, a page url has a few parameters
+        for (int i = 1; i < count; i++) {
+            int from = parameters[i * 2];
+            int to = parameters[i * 2 + 1];
+            int j = i - 1;
+            for (; j >= 0 && compare(query, parameters[j * 2], parameters[j * 2 + 1], from, to) > 0; j--) {
+                parameters[(j + 1) * 2] = parameters[j * 2];
+                parameters[(j + 1) * 2 + 1] = parameters[j * 2 + 1];
+            }
+            parameters[(j + 1) * 2] = from;
+            parameters[(j + 1) * 2 + 1] = to;
+        }
+
+        out.append('?');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.append('&');
+            }
+            out.append(query, parameters[i * 2], parameters[i * 2 + 1]);
+        }
+    }
+
+    private void appendEncoded(String url, int start, int end, StringBuilder out) {
+        if (!percentEncoding) {
+            out.append(url, start, end);
+            return;
+        }
+
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if ('%' != c) {
+                out.append(c);
+                continue;
+            }
+
+            int decoded = hexValue(url.charAt(i + 1)) << 4 | hexValue(url.charAt(i + 2));
+            if (isUnreserved(decoded)) {
+                out.append((char) decoded);
+            } else {
+                out.append('%').append(toUpperCase(url.charAt(i + 1))).append(toUpperCase(url.charAt(i + 2)));
+            }
+            i += 2;
+        }
+    }
+
+    /**
+     * the characters that are rejected by {@code java.net.URI} and the malformed escapes
+     */
+    private static boolean isValid(String url) {
+        for (int i = 0, length = url.length(); i < length; i++) {
+            char c = url.charAt(i);
+            if (c <= ' ' || 0x7F == c || '"' == c || '<' == c || '>' == c || '\\' == c || '^' == c || '`' == c
+                    || '{' == c || '|' == c || '}' == c) {
+                return false;
+            }
+            if ('%' == c && (i + 2 >= length || -1 == hexValue(url.charAt(i + 1))
+                    || -1 == hexValue(url.charAt(i + 2)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(CharSequence value, int firstFrom, int firstTo, int secondFrom, int secondTo) {
+        int length = Math.min(firstTo - firstFrom, secondTo - secondFrom);
+        for (int i = 0; i < length; i++) {
+            int difference = value.charAt(firstFrom + i) - value.charAt(secondFrom + i);
+            if (0 != difference) {
+                return difference;
+            }
+        }
+        return (firstTo - firstFrom) - (secondTo - secondFrom);
+    }
+
+    private static boolean isScheme(StringBuilder out, String scheme) {
+        return out.length() == scheme.length() && out.indexOf(scheme) == 0;
+    }
+
+    private static boolean isPort(String url, int start, int end, String port) {
+        return end - start == port.length() && url.startsWith(port, start);
+    }
+
+    private static int indexOf(String url, char c, int start, int end) {
+        int index = url.indexOf(c, start);
+        return index < end ? index : -1;
+    }
+
+    private static boolean isUnreserved(int c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                || '-' == c || '.' == c || '_' == c || '~' == c;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static char toUpperCase(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+
+    private static int[] ensureCapacity(int[] array, int index) {
+        if (index < array.length) {
+            return array;
+        }
+        int[] result = new int[Math.max(array.length * 2, index + 1)];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    /**
+     * buffers of a thread, the builders that grew over the limit by a huge url are replaced
+     */
+    private static class Buffers {
+
+        private StringBuilder out = new StringBuilder(INITIAL_CAPACITY);
+        private StringBuilder query = new StringBuilder(INITIAL_CAPACITY);
+        private int[] segments = new int[16];
+        private int[] parameters = new int[32];
+
+        void release() {
+            if (out.capacity() > MAX_KEPT_CAPACITY) {
+                out = new StringBuilder(INITIAL_CAPACITY);
+            }
+            if (query.capacity() > MAX_KEPT_CAPACITY) {
+                query = new StringBuilder(INITIAL_CAPACITY);
+            }
+        }
+    }
+}
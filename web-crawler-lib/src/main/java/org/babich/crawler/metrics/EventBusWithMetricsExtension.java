@@ -37,6 +37,18 @@ public class EventBusWithMetricsExtension extends LocalEventBus {
         super(mode, executor);
     }
 
+    public EventBusWithMetricsExtension(String mode, Integer capacity, Integer threads) {
+        super(mode, capacity, threads);
+    }
+
+    public EventBusWithMetricsExtension(String mode, Integer capacity, Integer threads, Map<String, String> overflow) {
+        super(mode, capacity, threads, overflow);
+    }
+
+    public EventBusWithMetricsExtension(String mode, Integer bufferSize, Integer consumers, String waitStrategy) {
+        super(mode, bufferSize, consumers, waitStrategy);
+    }
+
 
     @Override
     public void post(Object event) {
@@ -3,6 +3,7 @@
  */
 package org.babich.crawler.metrics;
 
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
@@ -11,6 +12,7 @@ import org.babich.crawler.api.messages.CrawlerStarted;
 import org.babich.crawler.api.messages.CrawlerStopped;
 
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.babich.crawler.metrics.Utils.bindJVMMetrics;
 
@@ -34,6 +36,8 @@ import static org.babich.crawler.metrics.Utils.bindJVMMetrics;
 public class MeterRegistryInitializer {
 
     private final MeterRegistry registry;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean stopped = new AtomicBoolean();
 
 
     MeterRegistryInitializer() {
@@ -45,13 +49,19 @@ public class MeterRegistryInitializer {
     }
 
     @Subscribe
+    @AllowConcurrentEvents
     public void onStart(CrawlerStarted message) {
-        Optional.ofNullable(registry).ifPresent(item -> initMetrics((String) message.getPayload()));
+        if (started.compareAndSet(false, true)) {
+            Optional.ofNullable(registry).ifPresent(item -> initMetrics((String) message.getPayload()));
+        }
     }
 
     @Subscribe
+    @AllowConcurrentEvents
     public void onStop(CrawlerStopped message){
-        Optional.ofNullable(registry).ifPresent(MeterRegistry::close);
+        if (stopped.compareAndSet(false, true)) {
+            Optional.ofNullable(registry).ifPresent(MeterRegistry::close);
+        }
     }
 
     private void initMetrics(String name){
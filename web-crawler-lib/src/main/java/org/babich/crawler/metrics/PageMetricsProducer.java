@@ -3,6 +3,7 @@
  */
 package org.babich.crawler.metrics;
 
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
@@ -12,6 +13,7 @@ import org.babich.crawler.api.messages.PageProcessingSkippe;
 
 /**
  * <p>This class collects a metric for the size of loaded pages.</p>
+ * The meters are thread safe, so the messages are handled concurrently.
  *
  * <br/>The configuration via the crawler yml file looks like this:
  * <pre>{@code
@@ -40,13 +42,15 @@ public class PageMetricsProducer {
     }
 
     @Subscribe
+    @AllowConcurrentEvents
     public void onSkip(PageProcessingSkippe message){
         skippedPageCounter.increment();
     }
 
     @Subscribe
+    @AllowConcurrentEvents
     public void OnProcess(PageProcessingComplete message){
         completedPageCounter.increment();
-        pageSizeSummary.record(message.getPage().getSize());
+        pageSizeSummary.record(message.getSnapshot().getSize());
     }
 }
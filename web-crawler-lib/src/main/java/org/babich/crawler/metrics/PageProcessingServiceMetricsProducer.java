@@ -5,10 +5,12 @@ package org.babich.crawler.metrics;
 
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Timer;
+import org.babich.crawler.api.FilterDecision;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessingInterceptor;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.babich.crawler.metrics.Utils.getClassName;
 
@@ -34,14 +36,49 @@ public class PageProcessingServiceMetricsProducer implements PageProcessingInter
         this.timerAfterProcessing = Metrics.timer(metricName, "class", tag, "method", "afterProcessing");
     }
 
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+
     @Override
     public void beforeProcessing(Page page) {
-        timerBeforeProcessing.record(() -> delegate.beforeProcessing(page));
+        long start = System.nanoTime();
+        try {
+            delegate.beforeProcessing(page);
+        } finally {
+            timerBeforeProcessing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public FilterDecision decide(Page page) {
+        long start = System.nanoTime();
+        try {
+            return delegate.decide(page);
+        } finally {
+            timerBeforeProcessing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     @Override
     public void afterProcessing(Page page, List<Page> successorPages) {
-        timerAfterProcessing.record(() -> delegate.afterProcessing(page, successorPages));
+        long start = System.nanoTime();
+        try {
+            delegate.afterProcessing(page, successorPages);
+        } finally {
+            timerAfterProcessing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void afterInterruption(Page page) {
+        long start = System.nanoTime();
+        try {
+            delegate.afterInterruption(page);
+        } finally {
+            timerAfterProcessing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
 }
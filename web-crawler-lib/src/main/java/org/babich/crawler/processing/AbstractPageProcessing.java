@@ -12,13 +12,20 @@ import org.apache.commons.lang3.StringUtils;
 import org.babich.crawler.api.Page;
 import org.babich.crawler.api.PageProcessing;
 
-public abstract class AbstractPageProcessing implements PageProcessing {
+/**
+ * Base page processing that loads and parses the page and then extracts the links of the successor pages.
+ * <br/>The parse result is passed explicitly from {@link #parse(Page)} to
+ * {@link #findSuccessorLinks(Page, Object)}, the processing keeps no state between the calls,
+ * so a single instance can process pages in several threads at the same time.
+ * @param <T> the type of the parse result, e.g. a DOM document
+ */
+public abstract class AbstractPageProcessing<T> implements PageProcessing {
 
     @Override
     public Iterable<Page> process(Page page) {
-        parse(page);
+        T parsedPage = parse(page);
 
-        Collection<String> dependentLinks = findSuccessorLinks(page);
+        Collection<String> dependentLinks = findSuccessorLinks(page, parsedPage);
         if(null == dependentLinks){
             return Collections.emptySet();
         }
@@ -28,9 +35,13 @@ public abstract class AbstractPageProcessing implements PageProcessing {
                 .collect(Collectors.toList());
     }
 
-    protected abstract void parse(Page page);
+    /**
+     * loads the page source if needed and parses it.
+     * @return the parse result that is passed to {@link #findSuccessorLinks(Page, Object)}
+     */
+    protected abstract T parse(Page page);
 
-    protected abstract Collection<String> findSuccessorLinks(Page page);
+    protected abstract Collection<String> findSuccessorLinks(Page page, T parsedPage);
 
     protected Page toPage(Page page, String dependentLink){
         return new Page(page.getPageContextRef(), page.getCrawlerName(), dependentLink, StringUtils.EMPTY);
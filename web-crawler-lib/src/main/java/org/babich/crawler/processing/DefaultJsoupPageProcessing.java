@@ -10,27 +10,54 @@ import java.util.Collections;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.babich.crawler.api.Page;
-import org.jsoup.Jsoup;
+import org.babich.crawler.api.PageFetcher;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.babich.crawler.fetcher.JsoupPageFetcher;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.parser.Parser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class DefaultJsoupPageProcessing extends AbstractPageProcessing {
+/**
+ * Page processing based on {@code Jsoup} parser. Subclasses can extract data from the parsed document by overriding
+ * {@link #parse(Page)} and selecting successor links by overriding {@link #findSuccessorLinks(Page, Document)}.
+ */
+public class DefaultJsoupPageProcessing extends AbstractPageProcessing<Document> {
 
     private final Logger logger = LoggerFactory.getLogger(DefaultJsoupPageProcessing.class);
-    protected Document doc;
+
+    private final PageFetcher fetcher;
+
+    /**
+     * the pages are loaded by the {@link JsoupPageFetcher} with its default user agent,
+     * use {@link #DefaultJsoupPageProcessing(PageConfig)} to send the configured one
+     */
+    public DefaultJsoupPageProcessing() {
+        this(new JsoupPageFetcher());
+    }
+
+    /**
+     * @param pageConfig page settings, the pages are loaded by the {@link JsoupPageFetcher} with its user agent
+     */
+    public DefaultJsoupPageProcessing(PageConfig pageConfig) {
+        this(new JsoupPageFetcher(pageConfig));
+    }
+
+    public DefaultJsoupPageProcessing(PageFetcher fetcher) {
+        if (null == fetcher) {
+            throw new IllegalArgumentException("fetcher cannot be null.");
+        }
+        this.fetcher = fetcher;
+    }
 
     @Override
-    protected void parse(Page page) {
+    protected Document parse(Page page) {
         try {
             if(StringUtils.isBlank(page.getPageSource())) {
-                doc = Jsoup.connect(page.getPageUrl()).get();
-                page.setPageSource(doc.html());
-            } else {
-                doc = Parser.parse(page.getPageSource(), page.getPageUrl());
+                page.setPageSource(fetcher.fetch(page.getPageUrl()));
             }
+            return Parser.parse(page.getPageSource(), page.getPageUrl());
         } catch (IOException exception) {
             logger.error("Unable to parse page by url {} ", page.getPageUrl());
             throw new UncheckedIOException(exception);
@@ -38,7 +65,7 @@ public class DefaultJsoupPageProcessing extends AbstractPageProcessing {
     }
 
     @Override
-    protected Collection<String> findSuccessorLinks(Page page) {
+    protected Collection<String> findSuccessorLinks(Page page, Document doc) {
         String pageHost = getHost(page.getPageUrl());
         if(StringUtils.isBlank(pageHost)){
             return Collections.emptySet();
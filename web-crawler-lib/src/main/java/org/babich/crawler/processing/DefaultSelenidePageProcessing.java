@@ -3,11 +3,7 @@
  */
 package org.babich.crawler.processing;
 
-import static com.codeborne.selenide.Selenide.$$;
-
-import com.codeborne.selenide.ElementsCollection;
 import com.codeborne.selenide.Selenide;
-import com.codeborne.selenide.SelenideElement;
 import com.codeborne.selenide.WebDriverRunner;
 import java.util.Collection;
 import java.util.Collections;
@@ -15,10 +11,16 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.babich.crawler.api.Page;
 import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class DefaultSelenidePageProcessing extends AbstractPageProcessing {
+/**
+ * Page processing based on {@code Selenide}. The parse result is the web driver of the current thread
+ * that has opened the page, Selenide keeps a separate browser for every thread.
+ */
+public class DefaultSelenidePageProcessing extends AbstractPageProcessing<WebDriver> {
 
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -27,27 +29,27 @@ public class DefaultSelenidePageProcessing extends AbstractPageProcessing {
     }
 
     @Override
-    protected void parse(Page page) {
+    protected WebDriver parse(Page page) {
         open(page.getPageUrl());
         page.setPageSource(grabPageSource());
+        return WebDriverRunner.getWebDriver();
     }
 
 
     @Override
-    protected Collection<String> findSuccessorLinks(Page page) {
+    protected Collection<String> findSuccessorLinks(Page page, WebDriver webDriver) {
         String pageHost = getHost(page.getPageUrl());
         if(StringUtils.isBlank(pageHost)){
             return Collections.emptySet();
         }
 
-        ElementsCollection elementsCollection = $$(By.xpath("//a[@href]"));
-        return elementsCollection.stream()
+        return webDriver.findElements(By.xpath("//a[@href]")).stream()
                 .map(this::toLink)
                 .filter(link -> pageHost.equals(getHost(link)))
                 .collect(Collectors.toSet());
     }
 
-    private String toLink(SelenideElement element){
+    private String toLink(WebElement element){
         return element.getAttribute("href");
     }
 
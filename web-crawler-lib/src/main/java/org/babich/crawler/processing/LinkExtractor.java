@@ -0,0 +1,427 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.processing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Streaming extractor of the page links, the page source is scanned by a tokenizer without building a DOM.
+ * <br/>The links are taken from:
+ * <ul>
+ *     <li><p> {@code <a href>}</p></li>
+ *     <li><p> {@code <link href>} with the {@code canonical} or the {@code next} relation</p></li>
+ *     <li><p> {@code <meta http-equiv="refresh">} with the url in its content</p></li>
+ * </ul>
+ * They are resolved against the page url or the first {@code <base href>} of the page like a browser does.
+ * The comments and the content of the raw text elements like {@code <script>} are skipped,
+ * the character references of the attribute values are decoded.
+ * <br/>The extractor keeps no state between the calls, so it can be shared by several threads.
+ */
+public class LinkExtractor {
+
+    private static final int OTHER = 0;
+    private static final int ANCHOR = 1;
+    private static final int BASE = 2;
+    private static final int LINK = 3;
+    private static final int META = 4;
+    private static final int RAW_TEXT = 5;
+
+    private static final String[] rawTextElements = {
+            "script", "style", "textarea", "title", "xmp", "iframe", "noembed", "noframes"};
+
+    /**
+     * @return the absolute http links of the page in the order they are found, the links can repeat
+     */
+    public List<String> extract(String pageSource, String pageUrl) {
+        List<String> hrefs = new ArrayList<>();
+        String base = null;
+
+        Tag tag = new Tag();
+        int length = pageSource.length();
+        int position = 0;
+        while (position < length) {
+            int open = pageSource.indexOf('<', position);
+            if (-1 == open || open + 1 == length) {
+                break;
+            }
+
+            char c = pageSource.charAt(open + 1);
+            if ('!' == c) {
+                position = skipDeclaration(pageSource, open + 2);
+                continue;
+            }
+            if ('/' == c || '?' == c) {
+                position = skipTo(pageSource, '>', open + 2);
+                continue;
+            }
+            if (!isLetter(c)) {
+                position = open + 1;
+                continue;
+            }
+
+            position = tag.read(pageSource, open + 1);
+            switch (tag.type) {
+                case ANCHOR:
+                    tag.href().ifPresent(hrefs::add);
+                    break;
+                case BASE:
+                    if (null == base) {
+                        base = tag.href().orElse(null);
+                    }
+                    break;
+                case LINK:
+                    if (tag.hasRelation("canonical") || tag.hasRelation("next")) {
+                        tag.href().ifPresent(hrefs::add);
+                    }
+                    break;
+                case META:
+                    String refreshUrl = tag.refreshUrl();
+                    if (null != refreshUrl) {
+                        hrefs.add(refreshUrl);
+                    }
+                    break;
+                case RAW_TEXT:
+                    position = skipRawText(pageSource, position, tag.nameStart, tag.nameEnd);
+                    break;
+                default:
+            }
+        }
+
+        String baseUrl = null == base ? pageUrl : LinkResolver.resolve(pageUrl, base);
+        if (null == baseUrl) {
+            baseUrl = pageUrl;
+        }
+
+        List<String> links = new ArrayList<>(hrefs.size());
+        for (String href : hrefs) {
+            String link = LinkResolver.resolve(baseUrl, href);
+            if (null != link) {
+                links.add(link);
+            }
+        }
+        return links;
+    }
+
+    /**
+     * skips a comment, a doctype or a CDATA section
+     */
+    private static int skipDeclaration(String source, int position) {
+        if (source.startsWith("--", position)) {
+            int end = source.indexOf("-->", position + 2);
+            return -1 == end ? source.length() : end + 3;
+        }
+        return skipTo(source, '>', position);
+    }
+
+    /**
+     * skips the text of a raw text element up to its end tag
+     */
+    private static int skipRawText(String source, int position, int nameStart, int nameEnd) {
+        int nameLength = nameEnd - nameStart;
+        int length = source.length();
+        for (int end = source.indexOf("</", position); -1 != end; end = source.indexOf("</", end + 2)) {
+            int afterName = end + 2 + nameLength;
+            if (source.regionMatches(true, end + 2, source, nameStart, nameLength)
+                    && (afterName == length || isTagNameEnd(source.charAt(afterName)))) {
+                return end;
+            }
+        }
+        return length;
+    }
+
+    private static int skipTo(String source, char c, int position) {
+        int index = source.indexOf(c, position);
+        return -1 == index ? source.length() : index + 1;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return ' ' == c || '\t' == c || '\n' == c || '\r' == c || '\f' == c;
+    }
+
+    private static boolean isTagNameEnd(char c) {
+        return isWhitespace(c) || '>' == c || '/' == c;
+    }
+
+    private static boolean isName(String source, int start, int end, String name) {
+        return end - start == name.length() && source.regionMatches(true, start, name, 0, name.length());
+    }
+
+    /**
+     * @return the attribute value with the decoded character references
+     */
+    static String attributeValue(String source, int start, int end) {
+        int ampersand = source.indexOf('&', start);
+        if (-1 == ampersand || ampersand >= end) {
+            return source.substring(start, end);
+        }
+
+        StringBuilder value = new StringBuilder(end - start);
+        value.append(source, start, ampersand);
+        for (int i = ampersand; i < end; ) {
+            char c = source.charAt(i);
+            if ('&' == c) {
+                int semicolon = source.indexOf(';', i);
+                int decoded = -1 == semicolon || semicolon >= end ? -1 : decodeReference(source, i + 1, semicolon);
+                if (-1 != decoded) {
+                    value.appendCodePoint(decoded);
+                    i = semicolon + 1;
+                    continue;
+                }
+            }
+            value.append(c);
+            i++;
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return the code point of the numeric or the basic named character reference, -1 if it is unknown
+     */
+    private static int decodeReference(String source, int start, int end) {
+        if (start == end || end - start > 8) {
+            return -1;
+        }
+
+        if ('#' == source.charAt(start)) {
+            boolean hex = start + 1 < end && ('x' == source.charAt(start + 1) || 'X' == source.charAt(start + 1));
+            int digits = hex ? start + 2 : start + 1;
+            if (digits == end) {
+                return -1;
+            }
+            int codePoint = 0;
+            for (int i = digits; i < end; i++) {
+                int digit = Character.digit(source.charAt(i), hex ? 16 : 10);
+                if (-1 == digit) {
+                    return -1;
+                }
+                codePoint = codePoint * (hex ? 16 : 10) + digit;
+            }
+            return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+        }
+
+        if (isName(source, start, end, "amp")) {
+            return '&';
+        }
+        if (isName(source, start, end, "quot")) {
+            return '"';
+        }
+        if (isName(source, start, end, "apos")) {
+            return '\'';
+        }
+        if (isName(source, start, end, "lt")) {
+            return '<';
+        }
+        if (isName(source, start, end, "gt")) {
+            return '>';
+        }
+        if (isName(source, start, end, "nbsp")) {
+            return 0xA0;
+        }
+        return -1;
+    }
+
+    /**
+     * start tag of the page, the positions of its attributes that hold the links are kept,
+     * it is reused for all the tags of the page
+     */
+    private static class Tag {
+
+        private String source;
+        private int type;
+        private int nameStart;
+        private int nameEnd;
+
+        private int hrefStart;
+        private int hrefEnd;
+        private int relStart;
+        private int relEnd;
+        private int httpEquivStart;
+        private int httpEquivEnd;
+        private int contentStart;
+        private int contentEnd;
+
+        /**
+         * @return position after the tag
+         */
+        int read(String source, int start) {
+            this.source = source;
+            hrefStart = relStart = httpEquivStart = contentStart = -1;
+
+            int length = source.length();
+            int i = start;
+            while (i < length && !isTagNameEnd(source.charAt(i))) {
+                i++;
+            }
+            nameStart = start;
+            nameEnd = i;
+            type = typeOf(source, start, i);
+
+            while (i < length) {
+                char c = source.charAt(i);
+                if ('>' == c) {
+                    return i + 1;
+                }
+                if (isWhitespace(c) || '/' == c) {
+                    i++;
+                    continue;
+                }
+
+                int attributeStart = i++;
+                while (i < length && !isWhitespace(c = source.charAt(i)) && '=' != c && '>' != c && '/' != c) {
+                    i++;
+                }
+                int attributeEnd = i;
+
+                while (i < length && isWhitespace(source.charAt(i))) {
+                    i++;
+                }
+                if (i == length || '=' != source.charAt(i)) {
+                    continue;
+                }
+                i++;
+                while (i < length && isWhitespace(source.charAt(i))) {
+                    i++;
+                }
+                if (i == length) {
+                    break;
+                }
+
+                int valueStart;
+                int valueEnd;
+                char quote = source.charAt(i);
+                if ('"' == quote || '\'' == quote) {
+                    valueStart = i + 1;
+                    int close = source.indexOf(quote, valueStart);
+                    valueEnd = -1 == close ? length : close;
+                    i = Math.min(valueEnd + 1, length);
+                } else {
+                    valueStart = i;
+                    while (i < length && !isWhitespace(c = source.charAt(i)) && '>' != c) {
+                        i++;
+                    }
+                    valueEnd = i;
+                }
+
+                if (OTHER != type && RAW_TEXT != type) {
+                    attribute(attributeStart, attributeEnd, valueStart, valueEnd);
+                }
+            }
+            return length;
+        }
+
+        Optional<String> href() {
+            return -1 == hrefStart
+                    ? Optional.empty()
+                    : Optional.of(attributeValue(source, hrefStart, hrefEnd));
+        }
+
+        /**
+         * @return {@code true} if the rel attribute has the relation among its space separated tokens
+         */
+        boolean hasRelation(String relation) {
+            for (int i = relStart; -1 != i && i < relEnd; ) {
+                while (i < relEnd && isWhitespace(source.charAt(i))) {
+                    i++;
+                }
+                int tokenStart = i;
+                while (i < relEnd && !isWhitespace(source.charAt(i))) {
+                    i++;
+                }
+                if (i > tokenStart && isName(source, tokenStart, i, relation)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the url of the refresh content like {@code 5; url=page.html} or {@code null}
+         */
+        String refreshUrl() {
+            if (-1 == httpEquivStart || -1 == contentStart
+                    || !isName(source, httpEquivStart, httpEquivEnd, "refresh")) {
+                return null;
+            }
+
+            String content = attributeValue(source, contentStart, contentEnd);
+            int i = 0;
+            int length = content.length();
+            while (i < length && ';' != content.charAt(i) && ',' != content.charAt(i)) {
+                i++;
+            }
+            i++;
+            while (i < length && isWhitespace(content.charAt(i))) {
+                i++;
+            }
+            if (!content.regionMatches(true, i, "url", 0, 3)) {
+                return null;
+            }
+            i += 3;
+            while (i < length && isWhitespace(content.charAt(i))) {
+                i++;
+            }
+            if (i == length || '=' != content.charAt(i)) {
+                return null;
+            }
+            i++;
+            while (i < length && isWhitespace(content.charAt(i))) {
+                i++;
+            }
+
+            int end = length;
+            if (i < length && ('"' == content.charAt(i) || '\'' == content.charAt(i))) {
+                int close = content.indexOf(content.charAt(i), i + 1);
+                end = -1 == close ? length : close;
+                i++;
+            }
+            return i < end ? content.substring(i, end) : null;
+        }
+
+        /**
+         * keeps the first of the repeated attributes like the browsers do
+         */
+        private void attribute(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+            if (-1 == hrefStart && isName(source, nameStart, nameEnd, "href")) {
+                hrefStart = valueStart;
+                hrefEnd = valueEnd;
+            } else if (-1 == relStart && isName(source, nameStart, nameEnd, "rel")) {
+                relStart = valueStart;
+                relEnd = valueEnd;
+            } else if (-1 == httpEquivStart && isName(source, nameStart, nameEnd, "http-equiv")) {
+                httpEquivStart = valueStart;
+                httpEquivEnd = valueEnd;
+            } else if (-1 == contentStart && isName(source, nameStart, nameEnd, "content")) {
+                contentStart = valueStart;
+                contentEnd = valueEnd;
+            }
+        }
+
+        private static int typeOf(String source, int start, int end) {
+            if (isName(source, start, end, "a")) {
+                return ANCHOR;
+            }
+            if (isName(source, start, end, "base")) {
+                return BASE;
+            }
+            if (isName(source, start, end, "link")) {
+                return LINK;
+            }
+            if (isName(source, start, end, "meta")) {
+                return META;
+            }
+            for (String element : rawTextElements) {
+                if (isName(source, start, end, element)) {
+                    return RAW_TEXT;
+                }
+            }
+            return OTHER;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.processing;
+
+/**
+ * Resolution of the page links against the base url and the comparison of their hosts
+ * without {@link java.net.URL} objects, the urls are scanned as strings.
+ * <br/>Only the http and https urls are resolved, the links of other schemes like {@code mailto:} or
+ * {@code javascript:} cannot be crawled. The dot-segments of the resolved path are removed like RFC 3986 does,
+ * an absolute link is returned as is, it is normalized later by the {@code PageUrlNormalizer}.
+ */
+public final class LinkResolver {
+
+    private LinkResolver() {
+    }
+
+    /**
+     * @return the absolute url of the link or {@code null} if the link or the base are not http urls
+     */
+    public static String resolve(String base, String href) {
+        if (null == base || null == href) {
+            return null;
+        }
+
+        int start = 0;
+        int end = href.length();
+        while (start < end && href.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && href.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int scheme = schemeEnd(href, start, end);
+        if (-1 != scheme) {
+            return isHttp(href, start, scheme) && hasAuthority(href, scheme + 1, end)
+                    ? href.substring(start, end)
+                    : null;
+        }
+
+        int baseScheme = schemeEnd(base, 0, base.length());
+        if (-1 == baseScheme || !isHttp(base, 0, baseScheme) || !hasAuthority(base, baseScheme + 1, base.length())) {
+            return null;
+        }
+
+        int authorityEnd = authorityEnd(base, baseScheme + 3);
+        int baseQueryEnd = indexOf(base, '#', authorityEnd, base.length());
+        int basePathEnd = indexOf(base, '?', authorityEnd, baseQueryEnd);
+
+        StringBuilder url = new StringBuilder(base.length() + end - start);
+        if (start == end) {
+            return url.append(base, 0, baseQueryEnd).toString();
+        }
+
+        char first = href.charAt(start);
+        if ('/' == first && start + 1 < end && '/' == href.charAt(start + 1)) {
+            return url.append(base, 0, baseScheme + 1).append(href, start, end).toString();
+        }
+        if ('?' == first) {
+            return url.append(base, 0, basePathEnd).append(href, start, end).toString();
+        }
+        if ('#' == first) {
+            return url.append(base, 0, baseQueryEnd).append(href, start, end).toString();
+        }
+
+        int pathEnd = indexOf(href, '?', start, indexOf(href, '#', start, end));
+        url.append(base, 0, authorityEnd);
+        int pathStart = url.length();
+        boolean directory;
+        if ('/' == first) {
+            directory = appendSegments(url, pathStart, href, start + 1, pathEnd);
+        } else {
+            //the directory of the base path is merged with the relative path
+            int lastSlash = base.lastIndexOf('/', basePathEnd - 1);
+            if (lastSlash > authorityEnd) {
+                appendSegments(url, pathStart, base, authorityEnd + 1, lastSlash);
+            }
+            directory = appendSegments(url, pathStart, href, start, pathEnd);
+        }
+
+        if (directory || url.length() == pathStart) {
+            url.append('/');
+        }
+        return url.append(href, pathEnd, end).toString();
+    }
+
+    /**
+     * @return the host of the url or {@code null} if the url has no host
+     */
+    public static String hostOf(String url) {
+        int start = hostStart(url);
+        if (-1 == start) {
+            return null;
+        }
+        int end = hostEnd(url, start);
+        return start == end ? null : url.substring(start, end);
+    }
+
+    /**
+     * @return {@code true} if the url has the host, the host is compared ignoring case
+     */
+    public static boolean hasHost(String url, String host) {
+        int start = hostStart(url);
+        if (-1 == start || null == host) {
+            return false;
+        }
+        int end = hostEnd(url, start);
+        return end - start == host.length() && url.regionMatches(true, start, host, 0, host.length());
+    }
+
+    /**
+     * writes the segments of the path range that starts after a slash removing the dot-segments
+     *
+     * @return {@code true} if the path ends with a dot-segment, so it is a directory
+     */
+    private static boolean appendSegments(StringBuilder url, int pathStart, String path, int start, int end) {
+        boolean directory = false;
+        for (int segment = start; segment <= end; ) {
+            int segmentEnd = indexOf(path, '/', segment, end);
+
+            int length = segmentEnd - segment;
+            if (1 == length && '.' == path.charAt(segment)) {
+                directory = true;
+            } else if (2 == length && '.' == path.charAt(segment) && '.' == path.charAt(segment + 1)) {
+                int lastSlash = url.lastIndexOf("/");
+                if (lastSlash >= pathStart) {
+                    url.setLength(lastSlash);
+                }
+                directory = true;
+            } else {
+                url.append('/').append(path, segment, segmentEnd);
+                directory = false;
+            }
+            segment = segmentEnd + 1;
+        }
+        return directory;
+    }
+
+    private static int hostStart(String url) {
+        if (null == url) {
+            return -1;
+        }
+        int scheme = schemeEnd(url, 0, url.length());
+        if (-1 == scheme || !hasAuthority(url, scheme + 1, url.length())) {
+            return -1;
+        }
+
+        int start = scheme + 3;
+        int userInfo = url.lastIndexOf('@', authorityEnd(url, start) - 1);
+        return userInfo >= start ? userInfo + 1 : start;
+    }
+
+    private static int hostEnd(String url, int start) {
+        int authorityEnd = authorityEnd(url, start);
+        if (start < authorityEnd && '[' == url.charAt(start)) {
+            int bracket = indexOf(url, ']', start, authorityEnd);
+            return bracket == authorityEnd ? authorityEnd : bracket + 1;
+        }
+        return indexOf(url, ':', start, authorityEnd);
+    }
+
+    private static int authorityEnd(String url, int start) {
+        int end = url.length();
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if ('/' == c || '?' == c || '#' == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * @return position of the scheme colon or -1 if the url has no scheme
+     */
+    private static int schemeEnd(String url, int start, int end) {
+        if (start == end || !isLetter(url.charAt(start))) {
+            return -1;
+        }
+        for (int i = start + 1; i < end; i++) {
+            char c = url.charAt(i);
+            if (':' == c) {
+                return i;
+            }
+            if (!isLetter(c) && !(c >= '0' && c <= '9') && '+' != c && '-' != c && '.' != c) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isHttp(String url, int start, int schemeEnd) {
+        int length = schemeEnd - start;
+        return (4 == length || 5 == length && ('s' == url.charAt(start + 4) || 'S' == url.charAt(start + 4)))
+                && url.regionMatches(true, start, "http", 0, 4);
+    }
+
+    private static boolean hasAuthority(String url, int start, int end) {
+        return start + 1 < end && '/' == url.charAt(start) && '/' == url.charAt(start + 1);
+    }
+
+    /**
+     * @return position of the char in the range or the end of the range
+     */
+    private static int indexOf(String url, char c, int start, int end) {
+        int index = url.indexOf(c, start);
+        return -1 == index || index > end ? end : index;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+}
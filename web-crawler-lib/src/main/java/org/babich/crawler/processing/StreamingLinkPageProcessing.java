@@ -0,0 +1,84 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.processing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageFetcher;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.babich.crawler.fetcher.JsoupPageFetcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Page processing that only finds the successor links of the page, the links are extracted by
+ * the streaming {@link LinkExtractor} without building the DOM of the page like {@link DefaultJsoupPageProcessing}
+ * does, and the hosts of the links are compared by the {@link LinkResolver} without {@code URL} objects.
+ * <br/>Besides the {@code <a href>} links it follows the canonical and the next page links and the meta refresh.
+ * It can be set as the default processing via the crawler yml file:
+ * <pre>{@code
+ *     defaultProcessing: !!org.babich.crawler.processing.StreamingLinkPageProcessing { fetcher: *Fetcher }
+ * }</pre>
+ */
+public class StreamingLinkPageProcessing extends AbstractPageProcessing<List<String>> {
+
+    private final Logger logger = LoggerFactory.getLogger(StreamingLinkPageProcessing.class);
+
+    private final PageFetcher fetcher;
+    private final LinkExtractor linkExtractor = new LinkExtractor();
+
+    /**
+     * the pages are loaded by the {@link JsoupPageFetcher} with its default user agent,
+     * use {@link #StreamingLinkPageProcessing(PageConfig)} to send the configured one
+     */
+    public StreamingLinkPageProcessing() {
+        this(new JsoupPageFetcher());
+    }
+
+    /**
+     * @param pageConfig page settings, the pages are loaded by the {@link JsoupPageFetcher} with its user agent
+     */
+    public StreamingLinkPageProcessing(PageConfig pageConfig) {
+        this(new JsoupPageFetcher(pageConfig));
+    }
+
+    public StreamingLinkPageProcessing(PageFetcher fetcher) {
+        if (null == fetcher) {
+            throw new IllegalArgumentException("fetcher cannot be null.");
+        }
+        this.fetcher = fetcher;
+    }
+
+    @Override
+    protected List<String> parse(Page page) {
+        try {
+            if (StringUtils.isBlank(page.getPageSource())) {
+                page.setPageSource(fetcher.fetch(page.getPageUrl()));
+            }
+            return linkExtractor.extract(StringUtils.defaultString(page.getPageSource()), page.getPageUrl());
+        } catch (IOException exception) {
+            logger.error("Unable to parse page by url {} ", page.getPageUrl());
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    protected Collection<String> findSuccessorLinks(Page page, List<String> links) {
+        String pageHost = LinkResolver.hostOf(page.getPageUrl());
+        if (StringUtils.isBlank(pageHost)) {
+            return Collections.emptySet();
+        }
+
+        return links.stream()
+                .filter(link -> LinkResolver.hasHost(link, pageHost))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
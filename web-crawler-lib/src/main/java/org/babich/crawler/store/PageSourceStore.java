@@ -0,0 +1,320 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.store;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.configuration.ApplicationConfig.SourceStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Storage of the page sources that appends them to large segment files instead of a file per page.
+ * <br/>A stored source is referenced by the locator {@code segment:<segment>:<offset>:<length>},
+ * which is kept as the page source. Sources are read back with positional reads, or mapped to memory,
+ * by any store opened on the same directory, e.g. by exporters.
+ * <p/>Every store writes to its own new segments, so several crawlers can share a directory,
+ * {@link #delete()} removes only the segments written by this store. The class is thread safe.
+ */
+public class PageSourceStore implements Closeable {
+
+    private static final String LOCATOR_PREFIX = "segment:";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Map<Long, FileChannel> readChannels = new ConcurrentHashMap<>();
+    private final List<Long> writtenSegments = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+
+    private FileChannel writeChannel;
+    private long writeSegment;
+    private long writePosition;
+
+    public PageSourceStore(SourceStore config) {
+        if (null == config) {
+            throw new IllegalArgumentException("config cannot be null.");
+        }
+
+        this.segmentSize = config.getSegmentSize();
+        try {
+            this.directory = config.resolveDirectory();
+            this.writeSegment = listSegments().stream().mapToLong(Long::longValue).max().orElse(-1);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * @return {@code true} if the value is a locator of a stored page source
+     */
+    public static boolean isLocator(String value) {
+        return null != value && value.startsWith(LOCATOR_PREFIX);
+    }
+
+    /**
+     * @return length of the stored page source in bytes
+     */
+    public static long lengthOf(String locator) {
+        return Locator.parse(locator).length;
+    }
+
+    /**
+     * @return locator of the appended page source
+     */
+    public String append(String pageSource) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(pageSource.getBytes(StandardCharsets.UTF_8));
+        int length = buffer.remaining();
+
+        synchronized (lock) {
+            if (null == writeChannel || writePosition > 0 && writePosition + length > segmentSize) {
+                nextSegment();
+            }
+
+            long offset = writePosition;
+            while (buffer.hasRemaining()) {
+                writeChannel.write(buffer, offset + buffer.position());
+            }
+            writePosition += length;
+
+            return LOCATOR_PREFIX + writeSegment + ':' + offset + ':' + length;
+        }
+    }
+
+    public String read(String locator) throws IOException {
+        return new String(readBytes(locator), StandardCharsets.UTF_8);
+    }
+
+    public byte[] readBytes(String locator) throws IOException {
+        Locator value = Locator.parse(locator);
+        if (value.length > Integer.MAX_VALUE) {
+            throw new IOException("The page source is too large to be read to an array: " + locator);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) value.length);
+        FileChannel channel = readChannel(value.segment);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, value.offset + buffer.position()) < 0) {
+                throw new IOException("The page source is truncated: " + locator);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return read-only buffer of the page source mapped to memory
+     */
+    public ByteBuffer map(String locator) throws IOException {
+        Locator value = Locator.parse(locator);
+        return readChannel(value.segment).map(MapMode.READ_ONLY, value.offset, value.length);
+    }
+
+    /**
+     * @return stream of the page source that reads the segment in chunks without copying the whole source
+     */
+    public InputStream openStream(String locator) throws IOException {
+        Locator value = Locator.parse(locator);
+        return new SegmentInputStream(readChannel(value.segment), value.offset, value.length);
+    }
+
+    /**
+     * @return {@code true} if the segment of the locator exists and contains the page source
+     */
+    public boolean contains(String locator) {
+        Locator value = Locator.parse(locator);
+        Path path = segmentPath(value.segment);
+        try {
+            return Files.exists(path) && Files.size(path) >= value.offset + value.length;
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closeQuietly(writeChannel);
+            writeChannel = null;
+        }
+        readChannels.values().forEach(this::closeQuietly);
+        readChannels.clear();
+    }
+
+    /**
+     * closes the store and removes the segments written by it,
+     * the directory is removed if there are no other segments in it.
+     */
+    public void delete() throws IOException {
+        close();
+        for (Long segment : writtenSegments) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        writtenSegments.clear();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            if (!files.findAny().isPresent()) {
+                Files.deleteIfExists(directory);
+            }
+        }
+    }
+
+    private void nextSegment() throws IOException {
+        closeQuietly(writeChannel);
+
+        //another store can write to the directory, so the segment is created only if it doesn't exist
+        while (true) {
+            writeSegment++;
+            try {
+                writeChannel = FileChannel.open(segmentPath(writeSegment), CREATE_NEW, WRITE);
+                break;
+            } catch (FileAlreadyExistsException exception) {
+                logger.debug("The segment {} is created by another store.", writeSegment);
+            }
+        }
+
+        writePosition = 0;
+        writtenSegments.add(writeSegment);
+    }
+
+    private FileChannel readChannel(long segment) throws IOException {
+        FileChannel channel = readChannels.get(segment);
+        if (null != channel) {
+            return channel;
+        }
+
+        channel = FileChannel.open(segmentPath(segment), READ);
+        FileChannel existing = readChannels.putIfAbsent(segment, channel);
+        if (null != existing) {
+            channel.close();
+            return existing;
+        }
+        return channel;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%08d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(SEGMENT_SUFFIX))
+                    .map(fileName -> Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        if (null == closeable) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException exception) {
+            logger.warn("Unable to close the segment of the page source store {}.", directory, exception);
+        }
+    }
+
+    /**
+     * parsed locator of the page source
+     */
+    private static class Locator {
+
+        private final long segment;
+        private final long offset;
+        private final long length;
+
+        private Locator(long segment, long offset, long length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        static Locator parse(String locator) {
+            if (!isLocator(locator)) {
+                throw new IllegalArgumentException("Incorrect page source locator: " + locator);
+            }
+
+            String[] parts = StringUtils.split(locator.substring(LOCATOR_PREFIX.length()), ':');
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Incorrect page source locator: " + locator);
+            }
+
+            try {
+                return new Locator(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            } catch (NumberFormatException exception) {
+                throw new IllegalArgumentException("Incorrect page source locator: " + locator, exception);
+            }
+        }
+    }
+
+    /**
+     * stream of the segment region that uses positional reads, so streams of a segment don't share a position
+     */
+    private static class SegmentInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        SegmentInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] bytes = new byte[1];
+            return -1 == read(bytes, 0, 1) ? -1 : bytes[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("The page source is truncated.");
+            }
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+}
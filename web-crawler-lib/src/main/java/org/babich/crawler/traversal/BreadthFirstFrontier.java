@@ -0,0 +1,48 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.traversal;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import org.babich.crawler.api.Page;
+
+/**
+ * Pages with a lower depth are polled first, pages of the same depth are polled in the order they were found.
+ * The pages of the next level can be found while the current level is still being processed by other workers,
+ * so a plain FIFO queue is not enough to keep the breadth-first order.
+ */
+class BreadthFirstFrontier implements Frontier {
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator
+            .comparingInt((Entry entry) -> entry.page.getDepth())
+            .thenComparingLong(entry -> entry.sequence));
+
+    private long sequence;
+
+    @Override
+    public void push(Page page) {
+        queue.add(new Entry(page, sequence++));
+    }
+
+    @Override
+    public Page poll() {
+        Entry entry = queue.poll();
+        return null == entry ? null : entry.page;
+    }
+
+    @Override
+    public long size() {
+        return queue.size();
+    }
+
+    private static class Entry {
+        private final Page page;
+        private final long sequence;
+
+        Entry(Page page, long sequence) {
+            this.page = page;
+            this.sequence = sequence;
+        }
+    }
+}
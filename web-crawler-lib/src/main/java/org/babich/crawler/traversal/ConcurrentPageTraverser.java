@@ -0,0 +1,337 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.traversal;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.babich.crawler.api.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Crawl engine that processes pages with a configured number of worker threads.
+ * <br/>Workers share a single {@link Frontier}: each of them polls a page, runs the page processing of the page
+ * context (including all interceptors) and pushes the found successors back to the frontier.
+ * The crawl is completed when the frontier is empty and no page is being processed,
+ * or when the number of pages taken for processing reaches the {@code limit}.
+ * <br/>Processed pages don't keep their successors, so the memory is bounded by the size of the frontier.
+ * <p/>The traversal order is defined by the frontier and is kept approximately,
+ * as pages of the same level can be completed by workers in any order.
+ * <p/>If a {@link PolitenessScheduler} is configured, a page whose host is busy is parked until the host is
+ * available and the worker continues with other pages. The number of parked pages is limited,
+ * so a crawl of a single host does not drain the frontier into the parking.
+ * The host is reserved for a page when it is taken, if the page is skipped by the filters the host is given back
+ * and the parked pages are checked again.
+ */
+public class ConcurrentPageTraverser {
+
+    private static final int PARKED_PAGES_PER_WORKER = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String name;
+    private final Frontier frontier;
+    private final int workers;
+    private final long limit;
+    private final PolitenessScheduler scheduler;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition frontierChanged = lock.newCondition();
+    private final Object consumerMonitor = new Object();
+
+    //guarded by lock
+    private final PriorityQueue<ParkedPage> parkedPages = new PriorityQueue<>(Comparator
+            .comparingLong((ParkedPage parkedPage) -> parkedPage.readyTime)
+            .thenComparingLong(parkedPage -> parkedPage.sequence));
+    private long parkingSequence;
+    private int inFlight;
+    private long taken;
+    private Throwable failure;
+
+    /**
+     * @param name     the crawler name that is used to name worker threads
+     * @param frontier the frontier used to keep the found pages
+     * @param workers  number of worker threads
+     * @param limit    maximum number of pages to be processed
+     */
+    public ConcurrentPageTraverser(String name, Frontier frontier, int workers, long limit) {
+        this(name, frontier, workers, limit, null);
+    }
+
+    /**
+     * @param name      the crawler name that is used to name worker threads
+     * @param frontier  the frontier used to keep the found pages
+     * @param workers   number of worker threads
+     * @param limit     maximum number of pages to be processed
+     * @param scheduler politeness policy, pages are processed as soon as they are polled if it's {@code null}
+     */
+    public ConcurrentPageTraverser(String name, Frontier frontier, int workers, long limit
+            , PolitenessScheduler scheduler) {
+        if (null == frontier) {
+            throw new IllegalArgumentException("frontier cannot be null.");
+        }
+
+        if (workers < 1) {
+            throw new IllegalArgumentException("The number of workers must be positive.");
+        }
+
+        this.name = name;
+        this.frontier = frontier;
+        this.workers = workers;
+        this.limit = limit < 0 ? Long.MAX_VALUE : limit;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Processes the start pages and all their successors. The method blocks until the crawl is completed.
+     * @param startPages   pages from which the crawl starts
+     * @param pageConsumer consumer of processed pages, it is never called concurrently
+     */
+    public void traverse(Collection<Page> startPages, Consumer<Page> pageConsumer) {
+        lock.lock();
+        try {
+            frontier.pushAll(startPages);
+        } finally {
+            lock.unlock();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers, new ThreadFactoryBuilder()
+                .setNameFormat(name + "-worker-%d")
+                .build());
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> work(pageConsumer)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        } catch (ExecutionException e) {
+            fail(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            releaseParkedPages();
+        }
+
+        rethrowFailure();
+    }
+
+    private void work(Consumer<Page> pageConsumer) {
+        Page page;
+        while (null != (page = take())) {
+            try {
+                Iterable<Page> successorPages = page.processSuccessorPages();
+                push(page, successorPages);
+
+                Page processedPage = new Page(page);
+                synchronized (consumerMonitor) {
+                    pageConsumer.accept(processedPage);
+                }
+            } catch (Throwable e) {
+                fail(e);
+            } finally {
+                release(null != scheduler && scheduler.release(page));
+            }
+        }
+    }
+
+    /**
+     * @return the next page to process or {@code null} when the crawl is completed
+     */
+    private Page take() {
+        lock.lock();
+        try {
+            while (true) {
+                if (null != failure || taken >= limit) {
+                    return null;
+                }
+
+                Page page = nextAvailablePage();
+                if (null != page) {
+                    inFlight++;
+                    taken++;
+                    return page;
+                }
+
+                if (0 == inFlight && parkedPages.isEmpty() && frontier.isEmpty()) {
+                    return null;
+                }
+
+                awaitFrontierChanges();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = null == failure ? e : failure;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parked pages whose time has come take precedence over the frontier.
+     * @return a page that can be processed right away or {@code null}
+     */
+    private Page nextAvailablePage() {
+        ParkedPage parkedPage;
+        while (null != (parkedPage = parkedPages.peek()) && parkedPage.readyTime <= System.currentTimeMillis()) {
+            parkedPages.poll();
+            if (isAcquired(parkedPage.page)) {
+                return parkedPage.page;
+            }
+        }
+
+        Page page;
+        while (parkedPages.size() < workers * PARKED_PAGES_PER_WORKER && null != (page = frontier.poll())) {
+            if (isAcquired(page)) {
+                return page;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAcquired(Page page) {
+        if (null == scheduler) {
+            return true;
+        }
+
+        long waitMs = scheduler.tryAcquire(page);
+        if (waitMs <= 0) {
+            return true;
+        }
+
+        parkedPages.add(new ParkedPage(page, System.currentTimeMillis() + waitMs, parkingSequence++));
+        return false;
+    }
+
+    private void awaitFrontierChanges() throws InterruptedException {
+        ParkedPage parkedPage = parkedPages.peek();
+        if (null == parkedPage) {
+            frontierChanged.await();
+            return;
+        }
+
+        long waitMs = parkedPage.readyTime - System.currentTimeMillis();
+        if (waitMs > 0) {
+            frontierChanged.await(waitMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * the page is completed after its successors are pushed, so a resumed frontier doesn't lose them
+     */
+    private void push(Page page, Iterable<Page> successorPages) {
+        lock.lock();
+        try {
+            if (null != successorPages) {
+                frontier.pushAll(successorPages);
+            }
+            frontier.complete(page);
+            frontierChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param refunded {@code true} if the host reserved for the page has been given back
+     */
+    private void release(boolean refunded) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (refunded) {
+                wakeUpParkedPages();
+            }
+            frontierChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * the parked pages are made ready, so the pages of the host that has been given back don't wait
+     * for the reservation they were parked by, the pages of the busy hosts are parked again
+     */
+    private void wakeUpParkedPages() {
+        long now = System.currentTimeMillis();
+        List<ParkedPage> pages = new ArrayList<>(parkedPages);
+        parkedPages.clear();
+        for (ParkedPage parkedPage : pages) {
+            parkedPages.add(parkedPage.readyTime <= now ? parkedPage
+                    : new ParkedPage(parkedPage.page, now, parkedPage.sequence));
+        }
+    }
+
+    /**
+     * the pages that are left parked by the limit or the failure are released for the scheduler
+     */
+    private void releaseParkedPages() {
+        lock.lock();
+        try {
+            ParkedPage parkedPage;
+            while (null != (parkedPage = parkedPages.poll())) {
+                scheduler.release(parkedPage.page);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail(Throwable e) {
+        lock.lock();
+        try {
+            if (null == failure) {
+                logger.error("The crawler {} has been stopped due to an error.", name, e);
+                failure = e;
+            }
+            frontierChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rethrowFailure() {
+        lock.lock();
+        try {
+            if (null == failure) {
+                return;
+            }
+            Throwables.throwIfUnchecked(failure);
+            throw new IllegalStateException(failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class ParkedPage {
+        private final Page page;
+        private final long readyTime;
+        private final long sequence;
+
+        ParkedPage(Page page, long readyTime, long sequence) {
+            this.page = page;
+            this.readyTime = readyTime;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.traversal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import org.babich.crawler.api.Page;
+
+/**
+ * The most recently found page is polled first. Successors of a single page are pushed in reverse order,
+ * so they are polled in the order they were found.
+ */
+class DepthFirstFrontier implements Frontier {
+
+    private final Deque<Page> stack = new ArrayDeque<>();
+
+    @Override
+    public void push(Page page) {
+        stack.push(page);
+    }
+
+    @Override
+    public void pushAll(Iterable<Page> pages) {
+        LinkedList<Page> successors = new LinkedList<>();
+        pages.forEach(successors::add);
+
+        for (Iterator<Page> iterator = successors.descendingIterator(); iterator.hasNext(); ) {
+            stack.push(iterator.next());
+        }
+    }
+
+    @Override
+    public Page poll() {
+        return stack.poll();
+    }
+
+    @Override
+    public long size() {
+        return stack.size();
+    }
+}
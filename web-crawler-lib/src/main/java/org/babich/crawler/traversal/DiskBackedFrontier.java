@@ -0,0 +1,332 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.traversal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FIFO frontier for the breadth-first traversal that keeps the found pages on a local disk.
+ * <br/>Pages are appended to memory-mapped segment files as compact records of the depth, url and name,
+ * the rest of the page state (e.g. a preloaded page source) is not kept. A segment is deleted when all its pages
+ * are completed. A small buffer of the next pages is kept in memory, so the heap usage doesn't depend on the frontier
+ * size.
+ * <p/>The position of the oldest page that is polled but not completed is saved to the {@code position} file,
+ * the pages completed by the workers out of order don't move it. So the crawl continues from it if the frontier is
+ * opened with {@code resume} after a failure, and the pages that were being processed are polled again.
+ * The files are removed when the frontier is closed empty with all the polled pages completed.
+ * <p/>The polled pages are attached to the page context the frontier is opened with.
+ */
+class DiskBackedFrontier implements Frontier {
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String POSITION_FILE = "position";
+    //the record length is written last, so zero means there are no more records
+    private static final int NO_RECORD = 0;
+    private static final int END_OF_SEGMENT = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int bufferSize;
+    private final ArrayDeque<Entry> head = new ArrayDeque<>();
+    //polled pages in the poll order, the first not completed one is the low-water mark of the position
+    private final ArrayDeque<Entry> polled = new ArrayDeque<>();
+    private final MappedByteBuffer position;
+
+    private final AtomicReference<PageContext> pageContextRef;
+    private final String crawlerName;
+
+    //the oldest segment that is kept until all its pages are polled
+    private long firstSegment;
+    private long headSegment;
+    private ByteBuffer headBuffer;
+    private long tailSegment;
+    private ByteBuffer tailBuffer;
+    //records on disk that are not read to the head buffer
+    private long diskSize;
+
+    /**
+     * @param directory   directory of the segment files
+     * @param segmentSize size of a segment file in bytes
+     * @param bufferSize  number of the pages read in advance to memory
+     * @param resume      continue from the saved position, otherwise the previous files are removed
+     * @param pageContextRef context of the polled pages, including the pages resumed from the disk
+     * @param crawlerName    crawler name of the polled pages
+     */
+    DiskBackedFrontier(Path directory, int segmentSize, int bufferSize, boolean resume
+            , AtomicReference<PageContext> pageContextRef, String crawlerName) {
+        if (segmentSize < 1024 || bufferSize < 1) {
+            throw new IllegalArgumentException("Incorrect setting of the disk frontier.");
+        }
+
+        if (null == pageContextRef) {
+            throw new IllegalArgumentException("pageContextRef cannot be null.");
+        }
+
+        this.pageContextRef = pageContextRef;
+        this.crawlerName = crawlerName;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.bufferSize = bufferSize;
+
+        try {
+            Files.createDirectories(directory);
+            if (!resume) {
+                deleteFiles();
+            }
+
+            position = map(directory.resolve(POSITION_FILE), Long.BYTES + Integer.BYTES);
+            List<Long> segments = listSegments();
+            if (segments.isEmpty()) {
+                headSegment = tailSegment = 0;
+                position.putLong(0, 0).putInt(Long.BYTES, 0);
+            } else {
+                headSegment = Math.max(position.getLong(0), segments.get(0));
+                firstSegment = headSegment;
+                tailSegment = segments.get(segments.size() - 1);
+            }
+
+            headBuffer = mapSegment(headSegment);
+            headBuffer.position(headSegment == position.getLong(0) ? position.getInt(Long.BYTES) : 0);
+            tailBuffer = tailSegment == headSegment ? headBuffer.duplicate() : mapSegment(tailSegment);
+            diskSize = countRecords();
+
+            if (diskSize > 0) {
+                logger.info("The frontier is resumed with {} pages from {}.", diskSize, directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the frontier in " + directory, e);
+        }
+    }
+
+    @Override
+    public void push(Page page) {
+        byte[] url = page.getPageUrl().getBytes(StandardCharsets.UTF_8);
+        byte[] name = null == page.getPageName() ? new byte[0] : page.getPageName().getBytes(StandardCharsets.UTF_8);
+        int length = Integer.BYTES * 3 + url.length + name.length;
+        if (length + Integer.BYTES * 2 > segmentSize) {
+            throw new IllegalArgumentException("The page url is too long for the frontier segment: "
+                    + page.getPageUrl());
+        }
+
+        //a record and the end of segment marker must fit
+        if (tailBuffer.remaining() < Integer.BYTES + length + Integer.BYTES) {
+            tailBuffer.putInt(tailBuffer.position(), END_OF_SEGMENT);
+            tailSegment++;
+            tailBuffer = mapSegment(tailSegment);
+        }
+
+        int start = tailBuffer.position();
+        tailBuffer.position(start + Integer.BYTES);
+        tailBuffer.putInt(page.getDepth())
+                .putInt(url.length).put(url)
+                .putInt(name.length).put(name);
+        tailBuffer.putInt(start, length);
+        diskSize++;
+    }
+
+    @Override
+    public Page poll() {
+        if (head.isEmpty()) {
+            readAhead();
+        }
+
+        Entry entry = head.poll();
+        if (null == entry) {
+            return null;
+        }
+
+        polled.add(entry);
+        return entry.page;
+    }
+
+    /**
+     * Moves the saved position over the completed pages at the beginning of the polled ones.
+     */
+    @Override
+    public void complete(Page page) {
+        for (Entry entry : polled) {
+            if (entry.page == page) {
+                entry.completed = true;
+                break;
+            }
+        }
+
+        Entry lastCompleted = null;
+        while (!polled.isEmpty() && polled.peek().completed) {
+            lastCompleted = polled.poll();
+        }
+        if (null == lastCompleted) {
+            return;
+        }
+
+        //the saved position points to the first record that has not been completed
+        Entry first = polled.peek();
+        long segment = null == first ? lastCompleted.segment : first.segment;
+        int offset = null == first ? lastCompleted.nextOffset : first.offset;
+        position.putLong(0, segment).putInt(Long.BYTES, offset);
+        while (firstSegment < segment) {
+            deleteSegment(firstSegment++);
+        }
+    }
+
+    @Override
+    public long size() {
+        return head.size() + diskSize;
+    }
+
+    /**
+     * The files are removed if all pages have been polled, otherwise they are kept to resume the crawl.
+     */
+    @Override
+    public void close() {
+        if (!isEmpty() || !polled.isEmpty()) {
+            logger.info("The frontier {} is closed with {} pages.", directory, size() + polled.size());
+            return;
+        }
+
+        headBuffer = tailBuffer = null;
+        try {
+            deleteFiles();
+            Files.deleteIfExists(directory.resolve(POSITION_FILE));
+        } catch (IOException e) {
+            logger.warn("Unable to remove the frontier files in {}.", directory, e);
+        }
+    }
+
+    private void readAhead() {
+        while (head.size() < bufferSize && diskSize > 0) {
+            int length = headBuffer.getInt(headBuffer.position());
+            if (END_OF_SEGMENT == length) {
+                nextHeadSegment();
+                continue;
+            }
+
+            int offset = headBuffer.position();
+            headBuffer.position(offset + Integer.BYTES);
+            int depth = headBuffer.getInt();
+            String url = readString();
+            String name = readString();
+            diskSize--;
+
+            Page page = new Page(pageContextRef, crawlerName, url, name);
+            page.setDepth(depth);
+            head.add(new Entry(page, headSegment, offset, headBuffer.position()));
+        }
+    }
+
+    private void nextHeadSegment() {
+        headSegment++;
+        headBuffer = headSegment == tailSegment ? tailBuffer.duplicate() : mapSegment(headSegment);
+        headBuffer.position(0);
+    }
+
+    private void deleteSegment(long segment) {
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException e) {
+            logger.warn("Unable to remove the frontier segment {}.", segment, e);
+        }
+    }
+
+    private String readString() {
+        byte[] bytes = new byte[headBuffer.getInt()];
+        headBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long countRecords() {
+        long count = 0;
+        long segment = headSegment;
+        ByteBuffer buffer = headBuffer.duplicate();
+        while (true) {
+            int length = buffer.getInt(buffer.position());
+            if (NO_RECORD == length) {
+                tailBuffer.position(buffer.position());
+                return count;
+            }
+
+            if (END_OF_SEGMENT == length) {
+                buffer = mapSegment(++segment);
+                continue;
+            }
+
+            buffer.position(buffer.position() + Integer.BYTES + length);
+            count++;
+        }
+    }
+
+    private MappedByteBuffer mapSegment(long segment) {
+        try {
+            return map(segmentPath(segment), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map the frontier segment " + segment, e);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%016d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(SEGMENT_SUFFIX))
+                    .map(fileName -> Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void deleteFiles() throws IOException {
+        for (Long segment : listSegments()) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ
+                , StandardOpenOption.WRITE)) {
+            return channel.map(MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * page read from the disk with the positions of its record and of the next record
+     */
+    private static class Entry {
+
+        private final Page page;
+        private final long segment;
+        private final int offset;
+        private final int nextOffset;
+        private boolean completed;
+
+        Entry(Page page, long segment, int offset, int nextOffset) {
+            this.page = page;
+            this.segment = segment;
+            this.offset = offset;
+            this.nextOffset = nextOffset;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.traversal;
+
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicReference;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.configuration.ApplicationConfig.Traverser;
+import org.babich.crawler.configuration.ApplicationConfig.Traverser.FrontierConfig;
+import org.babich.crawler.configuration.ApplicationConfig.Traverser.Mode;
+
+/**
+ * The frontier keeps the pages that have been found but not yet processed.
+ * The order in which pages are polled defines the traversal mode.
+ * <br/>Implementations are not required to be thread-safe, the {@link ConcurrentPageTraverser} guards every access.
+ */
+public interface Frontier {
+
+    /**
+     * @param page found page that should be processed later
+     */
+    void push(Page page);
+
+    /**
+     * @param pages successors found when processing a single page
+     */
+    default void pushAll(Iterable<Page> pages) {
+        pages.forEach(this::push);
+    }
+
+    /**
+     * @return the next page to process or {@code null} if the frontier is empty
+     */
+    Page poll();
+
+    /**
+     * Called when the polled page has been processed and its successors have been pushed.
+     * <br/>A persistent frontier polls the pages that were not completed again when the crawl is resumed.
+     * @param page the page returned by {@link #poll()}
+     */
+    default void complete(Page page) {
+    }
+
+    /**
+     * @return number of pages waiting in the frontier
+     */
+    long size();
+
+    default boolean isEmpty() {
+        return 0 == size();
+    }
+
+    /**
+     * releases the resources of the frontier when the traversal is completed
+     */
+    default void close() {
+    }
+
+    /**
+     * @param config         traverser settings
+     * @param pageContextRef context of the pages that are resumed by a disk-backed frontier
+     * @param crawlerName    crawler name of the pages that are resumed by a disk-backed frontier
+     * @return disk-backed frontier if its path is configured for the breadth-first traversal, otherwise in-memory one
+     */
+    static Frontier create(Traverser config, AtomicReference<PageContext> pageContextRef, String crawlerName) {
+        FrontierConfig frontierConfig = config.getFrontier();
+        if (Mode.BREADTH != config.getMode() || null == frontierConfig || null == frontierConfig.getPath()) {
+            return inMemory(config.getMode());
+        }
+
+        return new DiskBackedFrontier(Paths.get(frontierConfig.getPath())
+                , frontierConfig.getSegmentSize()
+                , frontierConfig.getBufferSize()
+                , frontierConfig.isResume()
+                , pageContextRef
+                , crawlerName);
+    }
+
+    /**
+     * @param mode traversal mode
+     * @return in-memory frontier that keeps the traversal order of the {@code mode}
+     */
+    static Frontier inMemory(Mode mode) {
+        switch (mode) {
+            case DEPTH:
+                return new DepthFirstFrontier();
+            case BREADTH:
+                return new BreadthFirstFrontier();
+            default:
+                throw new IllegalArgumentException(String.format("Unknown traversal mode {%s}.", mode));
+        }
+    }
+}
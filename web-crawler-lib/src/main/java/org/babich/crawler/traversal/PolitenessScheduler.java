@@ -0,0 +1,34 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.traversal;
+
+import org.babich.crawler.api.Page;
+
+/**
+ * Politeness policy that decides when a page can be fetched without overloading its host.
+ * <br/>The {@link ConcurrentPageTraverser} asks the scheduler before processing a page, and if the host is busy
+ * the page is parked until the returned time has elapsed, so the worker can process pages of other hosts meanwhile.
+ * The host is reserved when the page is polled and the reservation is taken by the page processing once the page
+ * passes the filters, every polled page is released by the worker after its processing and every parked page
+ * when the traversal is completed. The reservation of a skipped page is refunded on the release, then the parked pages
+ * are checked again, as a page of the same host can be fetched earlier than it was parked for.
+ */
+public interface PolitenessScheduler {
+
+    /**
+     * Tries to reserve the host of the page for fetching.
+     * @param page the page that is about to be processed
+     * @return {@code 0} if the host has been reserved and the page can be processed right away,
+     * otherwise the time in ms after which the attempt should be repeated.
+     */
+    long tryAcquire(Page page);
+
+    /**
+     * Gives back the host reserved for the page if the page has not been fetched, e.g. it has been skipped
+     * by a filter, and forgets the page if it has been waiting for its host.
+     * @param page the page that has been processed or will not be processed
+     * @return {@code true} if the reserved host has been given back
+     */
+    boolean release(Page page);
+}
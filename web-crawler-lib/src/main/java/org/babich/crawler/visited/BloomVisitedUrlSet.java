@@ -0,0 +1,125 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.visited;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Visited set based on an off-heap Bloom filter. The filter is sized for the expected number of URLs
+ * and the false positive rate, e.g. 100M URLs at 1% take about 120 MB.
+ * <br/>A false positive means that a new page is considered as visited and is skipped.
+ * The rate grows when more URLs than the expected capacity are added.
+ * <p/>Bits are set under striped locks, the checks are lock-free as the bits are never cleared.
+ */
+class BloomVisitedUrlSet implements VisitedUrlSet {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    private static final int WORDS_PER_BUFFER = OffHeapStorage.MAX_BUFFER_SIZE / Long.BYTES;
+    private static final int LOCK_STRIPES = 256;
+
+    private final ByteBuffer[] buffers;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param capacity          expected number of URLs
+     * @param falsePositiveRate the false positive rate at the expected number of URLs
+     */
+    BloomVisitedUrlSet(long capacity, double falsePositiveRate, OffHeapStorage storage) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Incorrect setting of the visited urls bloom filter.");
+        }
+
+        long bits = (long) (-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long words = Math.max(1, (bits + 63) / 64);
+        this.bitCount = words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+
+        this.buffers = new ByteBuffer[(int) ((words + WORDS_PER_BUFFER - 1) / WORDS_PER_BUFFER)];
+        for (int i = 0; i < buffers.length; i++) {
+            long bufferWords = Math.min(WORDS_PER_BUFFER, words - (long) i * WORDS_PER_BUFFER);
+            buffers[i] = storage.allocate((int) bufferWords * Long.BYTES);
+        }
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public boolean add(String pageUrl) {
+        long[] hash = hash(pageUrl);
+
+        boolean changed = false;
+        long combinedHash = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            changed |= setBit((combinedHash & Long.MAX_VALUE) % bitCount);
+            combinedHash += hash[1];
+        }
+
+        if (changed) {
+            size.incrementAndGet();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean contains(String pageUrl) {
+        long[] hash = hash(pageUrl);
+
+        long combinedHash = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (combinedHash & Long.MAX_VALUE) % bitCount;
+            if ((getWord(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+            combinedHash += hash[1];
+        }
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    private boolean setBit(long bit) {
+        long wordIndex = bit >>> 6;
+        ByteBuffer buffer = buffers[(int) (wordIndex / WORDS_PER_BUFFER)];
+        int index = (int) (wordIndex % WORDS_PER_BUFFER) * Long.BYTES;
+        long mask = 1L << bit;
+
+        synchronized (locks[(int) (wordIndex % LOCK_STRIPES)]) {
+            long word = buffer.getLong(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+            buffer.putLong(index, word | mask);
+            return true;
+        }
+    }
+
+    private long getWord(long wordIndex) {
+        return buffers[(int) (wordIndex / WORDS_PER_BUFFER)].getLong((int) (wordIndex % WORDS_PER_BUFFER) * Long.BYTES);
+    }
+
+    private static long[] hash(String pageUrl) {
+        byte[] bytes = HASH.hashString(pageUrl, StandardCharsets.UTF_8).asBytes();
+        return new long[]{toLong(bytes, 0), toLong(bytes, 8)};
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset + 7; i >= offset; i--) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+}
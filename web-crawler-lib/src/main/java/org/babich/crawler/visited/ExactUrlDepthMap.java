@@ -0,0 +1,30 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.visited;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Depth map that keeps the full URL strings on heap. It is suitable for small crawls.
+ */
+public class ExactUrlDepthMap implements UrlDepthMap {
+
+    private final Map<String, Integer> depths = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean lower(String pageUrl, int depth) {
+        boolean[] lowered = new boolean[1];
+        depths.compute(pageUrl, (url, foundDepth) -> {
+            lowered[0] = null == foundDepth || depth < foundDepth;
+            return lowered[0] ? depth : foundDepth;
+        });
+        return lowered[0];
+    }
+
+    @Override
+    public long size() {
+        return depths.size();
+    }
+}
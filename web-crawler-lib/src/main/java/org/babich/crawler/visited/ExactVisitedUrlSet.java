@@ -0,0 +1,30 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.visited;
+
+import com.google.common.collect.Sets;
+import java.util.Set;
+
+/**
+ * Visited set that keeps the full URL strings on heap. It is suitable for small crawls.
+ */
+public class ExactVisitedUrlSet implements VisitedUrlSet {
+
+    private final Set<String> pageUrls = Sets.newConcurrentHashSet();
+
+    @Override
+    public boolean add(String pageUrl) {
+        return pageUrls.add(pageUrl);
+    }
+
+    @Override
+    public boolean contains(String pageUrl) {
+        return pageUrls.contains(pageUrl);
+    }
+
+    @Override
+    public long size() {
+        return pageUrls.size();
+    }
+}
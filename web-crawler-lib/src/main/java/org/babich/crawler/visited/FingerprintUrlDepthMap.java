@@ -0,0 +1,125 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.visited;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Depth map of 64-bit URL fingerprints in an off-heap open-addressing hash table, a slot is the fingerprint
+ * followed by the depth byte, so a URL takes 9 bytes at the full load of the table.
+ * <br/>The depths above 255 are kept as 255. The table is split into segments with their own lock
+ * like the {@link FingerprintVisitedUrlSet}, a segment grows twice when it's 3/4 full.
+ */
+class FingerprintUrlDepthMap implements UrlDepthMap {
+
+    private static final HashFunction FINGERPRINT = Hashing.farmHashFingerprint64();
+    private static final int SEGMENTS = 64;
+    private static final int SLOT_SIZE = Long.BYTES + 1;
+    private static final int MIN_SEGMENT_SLOTS = 1 << 10;
+    private static final int MAX_SEGMENT_SLOTS = Integer.highestOneBit(OffHeapStorage.MAX_BUFFER_SIZE / SLOT_SIZE);
+    private static final int MAX_DEPTH = 0xFF;
+    //the empty slot marker
+    private static final long EMPTY = 0L;
+
+    private final OffHeapStorage storage;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param capacity expected number of URLs, the table is allocated for it in advance
+     */
+    FingerprintUrlDepthMap(long capacity, OffHeapStorage storage) {
+        this.storage = storage;
+        long slots = Math.max(MIN_SEGMENT_SLOTS, capacity * 4 / 3 / SEGMENTS + 1);
+        int segmentSlots = (int) Math.min(MAX_SEGMENT_SLOTS, Long.highestOneBit(slots - 1) << 1);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSlots);
+        }
+    }
+
+    @Override
+    public boolean lower(String pageUrl, int depth) {
+        long fingerprint = FINGERPRINT.hashString(pageUrl, StandardCharsets.UTF_8).asLong();
+        if (fingerprint == EMPTY) {
+            fingerprint = 1L;
+        }
+        //the high bits select the segment, the low bits select the slot
+        return segments[(int) (fingerprint >>> 58) & (SEGMENTS - 1)]
+                .lower(fingerprint, Math.min(Math.max(depth, 0), MAX_DEPTH));
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    private class Segment {
+
+        private ByteBuffer table;
+        private int mask;
+        private int count;
+
+        Segment(int slots) {
+            this.table = storage.allocate(slots * SLOT_SIZE);
+            this.mask = slots - 1;
+        }
+
+        synchronized boolean lower(long fingerprint, int depth) {
+            for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+                int position = slot * SLOT_SIZE;
+                long value = table.getLong(position);
+                if (value == fingerprint) {
+                    if (depth >= (table.get(position + Long.BYTES) & MAX_DEPTH)) {
+                        return false;
+                    }
+                    table.put(position + Long.BYTES, (byte) depth);
+                    return true;
+                }
+                if (value == EMPTY) {
+                    table.putLong(position, fingerprint);
+                    table.put(position + Long.BYTES, (byte) depth);
+                    size.incrementAndGet();
+                    if (++count > (mask + 1) / 4 * 3) {
+                        grow();
+                    }
+                    return true;
+                }
+            }
+        }
+
+        private void grow() {
+            int slots = mask + 1;
+            if (slots >= MAX_SEGMENT_SLOTS) {
+                if (count == slots - 1) {
+                    throw new IllegalStateException("The url depth table is full.");
+                }
+                return;
+            }
+
+            int newMask = slots * 2 - 1;
+            ByteBuffer newTable = storage.allocate(slots * 2 * SLOT_SIZE);
+            for (int slot = 0; slot < slots; slot++) {
+                long value = table.getLong(slot * SLOT_SIZE);
+                if (value == EMPTY) {
+                    continue;
+                }
+                for (int newSlot = (int) value & newMask; ; newSlot = (newSlot + 1) & newMask) {
+                    if (newTable.getLong(newSlot * SLOT_SIZE) == EMPTY) {
+                        newTable.putLong(newSlot * SLOT_SIZE, value);
+                        newTable.put(newSlot * SLOT_SIZE + Long.BYTES, table.get(slot * SLOT_SIZE + Long.BYTES));
+                        break;
+                    }
+                }
+            }
+
+            storage.release(table);
+            table = newTable;
+            mask = newMask;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.visited;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Visited set of 64-bit URL fingerprints in an off-heap open-addressing hash table, 8 bytes per URL
+ * at the full load of the table.
+ * <br/>The table is split into segments with their own lock, a segment grows twice when it's 3/4 full.
+ * Two different URLs are considered equal only if their fingerprints collide,
+ * the probability of any collision among 100M URLs is about 3e-4.
+ */
+class FingerprintVisitedUrlSet implements VisitedUrlSet {
+
+    private static final HashFunction FINGERPRINT = Hashing.farmHashFingerprint64();
+    private static final int SEGMENTS = 64;
+    private static final int MIN_SEGMENT_SLOTS = 1 << 10;
+    private static final int MAX_SEGMENT_SLOTS = OffHeapStorage.MAX_BUFFER_SIZE / Long.BYTES;
+    //the empty slot marker
+    private static final long EMPTY = 0L;
+
+    private final OffHeapStorage storage;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param capacity expected number of URLs, the table is allocated for it in advance
+     */
+    FingerprintVisitedUrlSet(long capacity, OffHeapStorage storage) {
+        this.storage = storage;
+        long slots = Math.max(MIN_SEGMENT_SLOTS, capacity * 4 / 3 / SEGMENTS + 1);
+        int segmentSlots = (int) Math.min(MAX_SEGMENT_SLOTS, Long.highestOneBit(slots - 1) << 1);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSlots);
+        }
+    }
+
+    @Override
+    public boolean add(String pageUrl) {
+        long fingerprint = fingerprint(pageUrl);
+        if (segmentOf(fingerprint).add(fingerprint)) {
+            size.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(String pageUrl) {
+        long fingerprint = fingerprint(pageUrl);
+        return segmentOf(fingerprint).contains(fingerprint);
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    private Segment segmentOf(long fingerprint) {
+        //the high bits select the segment, the low bits select the slot
+        return segments[(int) (fingerprint >>> 58) & (SEGMENTS - 1)];
+    }
+
+    private static long fingerprint(String pageUrl) {
+        long fingerprint = FINGERPRINT.hashString(pageUrl, StandardCharsets.UTF_8).asLong();
+        return fingerprint == EMPTY ? 1L : fingerprint;
+    }
+
+    private class Segment {
+
+        private ByteBuffer table;
+        private int mask;
+        private int count;
+
+        Segment(int slots) {
+            this.table = storage.allocate(slots * Long.BYTES);
+            this.mask = slots - 1;
+        }
+
+        synchronized boolean contains(long fingerprint) {
+            for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+                long value = table.getLong(slot * Long.BYTES);
+                if (value == EMPTY) {
+                    return false;
+                }
+                if (value == fingerprint) {
+                    return true;
+                }
+            }
+        }
+
+        synchronized boolean add(long fingerprint) {
+            if (!insert(table, mask, fingerprint)) {
+                return false;
+            }
+
+            if (++count > (mask + 1) / 4 * 3) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            int slots = mask + 1;
+            if (slots >= MAX_SEGMENT_SLOTS) {
+                if (count == slots - 1) {
+                    throw new IllegalStateException("The visited urls table is full.");
+                }
+                return;
+            }
+
+            int newMask = slots * 2 - 1;
+            ByteBuffer newTable = storage.allocate(slots * 2 * Long.BYTES);
+            for (int slot = 0; slot < slots; slot++) {
+                long value = table.getLong(slot * Long.BYTES);
+                if (value != EMPTY) {
+                    insert(newTable, newMask, value);
+                }
+            }
+
+            storage.release(table);
+            table = newTable;
+            mask = newMask;
+        }
+
+        private boolean insert(ByteBuffer table, int mask, long fingerprint) {
+            for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+                long value = table.getLong(slot * Long.BYTES);
+                if (value == fingerprint) {
+                    return false;
+                }
+                if (value == EMPTY) {
+                    table.putLong(slot * Long.BYTES, fingerprint);
+                    return true;
+                }
+            }
+        }
+    }
+}
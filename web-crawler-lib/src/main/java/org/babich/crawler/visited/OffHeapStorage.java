@@ -0,0 +1,65 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.visited;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Allocates the zeroed buffers of the visited sets outside of the heap,
+ * either in the direct memory or in memory-mapped files of a directory.
+ * <br/>Mapped files are temporary: the visited set is restored from the backup after a restart.
+ */
+abstract class OffHeapStorage {
+
+    /**
+     * the size of a buffer is limited by {@code int} indexes of {@link ByteBuffer}
+     */
+    static final int MAX_BUFFER_SIZE = 1 << 30;
+
+    abstract ByteBuffer allocate(int size);
+
+    /**
+     * the buffer is no longer used
+     */
+    void release(ByteBuffer buffer) {
+    }
+
+    static OffHeapStorage direct() {
+        return new OffHeapStorage() {
+            @Override
+            ByteBuffer allocate(int size) {
+                return ByteBuffer.allocateDirect(size);
+            }
+        };
+    }
+
+    static OffHeapStorage mapped(Path directory) {
+        return new OffHeapStorage() {
+            @Override
+            ByteBuffer allocate(int size) {
+                try {
+                    Files.createDirectories(directory);
+                    Path file = Files.createTempFile(directory, "visited-", ".bin");
+                    file.toFile().deleteOnExit();
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ
+                            , StandardOpenOption.WRITE)) {
+                        return channel.map(MapMode.READ_WRITE, 0, size);
+                    } finally {
+                        //the mapping stays valid after the file is deleted on the systems that allow it
+                        file.toFile().delete();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to map the visited urls file in " + directory, e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.visited;
+
+import java.nio.file.Paths;
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.configuration.ApplicationConfig.VisitedUrls;
+
+/**
+ * Minimal depths at which the URLs have been found. Implementations are thread safe.
+ * <br/>The {@code FINGERPRINT} and {@code BLOOM} modes keep a fingerprint of the URL with its depth off-heap,
+ * a Bloom filter cannot keep a value, so both modes use the fingerprint table.
+ */
+public interface UrlDepthMap {
+
+    /**
+     * keeps the depth if the URL has not been found at the same or a smaller depth, the check is atomic
+     *
+     * @return {@code true} if the depth is kept
+     */
+    boolean lower(String pageUrl, int depth);
+
+    /**
+     * @return the number of URLs
+     */
+    long size();
+
+    /**
+     * Create a map by the configuration, the exact map of strings is created if the configuration is null.
+     */
+    static UrlDepthMap create(VisitedUrls config) {
+        if (null == config || null == config.getMode() || VisitedUrls.Mode.EXACT == config.getMode()) {
+            return new ExactUrlDepthMap();
+        }
+
+        OffHeapStorage storage = StringUtils.isBlank(config.getPath())
+                ? OffHeapStorage.direct()
+                : OffHeapStorage.mapped(Paths.get(config.getPath()));
+        return new FingerprintUrlDepthMap(config.getCapacity(), storage);
+    }
+}
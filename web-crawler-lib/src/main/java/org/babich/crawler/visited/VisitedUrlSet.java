@@ -0,0 +1,52 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.visited;
+
+import java.nio.file.Paths;
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.configuration.ApplicationConfig.VisitedUrls;
+
+/**
+ * Set of the URLs of the processed pages. Implementations are thread safe.
+ * <br/>The {@code FINGERPRINT} and {@code BLOOM} modes keep only a hash of the URL off-heap, so the heap usage
+ * doesn't depend on the number of visited pages.
+ */
+public interface VisitedUrlSet {
+
+    /**
+     * @return {@code true} if the URL has not been visited before
+     */
+    boolean add(String pageUrl);
+
+    boolean contains(String pageUrl);
+
+    /**
+     * @return the number of added URLs, for the approximate modes it is an estimate
+     */
+    long size();
+
+    /**
+     * Create a visited set by the configuration, the exact set of strings is created if the configuration is null.
+     */
+    static VisitedUrlSet create(VisitedUrls config) {
+        if (null == config || null == config.getMode()) {
+            return new ExactVisitedUrlSet();
+        }
+
+        OffHeapStorage storage = StringUtils.isBlank(config.getPath())
+                ? OffHeapStorage.direct()
+                : OffHeapStorage.mapped(Paths.get(config.getPath()));
+
+        switch (config.getMode()) {
+            case EXACT:
+                return new ExactVisitedUrlSet();
+            case FINGERPRINT:
+                return new FingerprintVisitedUrlSet(config.getCapacity(), storage);
+            case BLOOM:
+                return new BloomVisitedUrlSet(config.getCapacity(), config.getFalsePositiveRate(), storage);
+            default:
+                throw new IllegalArgumentException("Unknown visited urls mode: " + config.getMode());
+        }
+    }
+}
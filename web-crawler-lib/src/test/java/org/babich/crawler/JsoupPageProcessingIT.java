@@ -33,6 +33,7 @@ import org.babich.crawler.configuration.processing.CustomPageProcessingConfig;
 import org.babich.crawler.processing.DefaultJsoupPageProcessing;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.collection.IsMapContaining;
+import org.jsoup.nodes.Document;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -195,9 +196,10 @@ class JsoupPageProcessingIT {
                         .sendMessage(TestProcessingMessage::new)
                         .processingBy(new LinkReplacementJsoupPageProcessing(containerHost) {
                             @Override
-                            protected void parse(Page page) {
-                                super.parse(page);
+                            protected Document parse(Page page) {
+                                Document doc = super.parse(page);
                                 page.setPayload(Pair.of(doc.title(), doc.selectFirst("div#payload").text()));
+                                return doc;
                             }
                         })
                 )
@@ -7,7 +7,6 @@ import static com.codeborne.selenide.Selenide.$;
 import static org.hamcrest.Matchers.hasSize;
 
 import com.google.common.io.Resources;
-import java.io.File;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -23,6 +22,7 @@ import org.babich.crawler.common.ProcessingMessageListener;
 import org.babich.crawler.common.TestHelper;
 import org.babich.crawler.configuration.exception.CrawlerConfigurationException;
 import org.babich.crawler.processing.DefaultSelenidePageProcessing;
+import org.babich.crawler.store.PageSourceStore;
 import org.hamcrest.MatcherAssert;
 import org.junit.Assert;
 import org.junit.jupiter.api.Assertions;
@@ -30,6 +30,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.openqa.selenium.By.ById;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.testcontainers.containers.BindMode;
 import org.testcontainers.containers.BrowserWebDriverContainer;
@@ -110,9 +111,10 @@ class SelenidePageProcessingIT {
                         .forPages(errorPageFilter)
                         .processingBy(new LinkReplacementSelenidePageProcessing(containerHost) {
                             @Override
-                            protected void parse(Page page) {
-                                super.parse(page);
+                            protected WebDriver parse(Page page) {
+                                WebDriver webDriver = super.parse(page);
                                 $(new ById("unknown")).getText();
+                                return webDriver;
                             }
                         })
                 )
@@ -142,11 +144,11 @@ class SelenidePageProcessingIT {
         );
 
         //page sources after a crawler crash should not be deleted
+        PageSourceStore pageSourceStore = new PageSourceStore(TestHelper.sourceStore("./target/page_sources"));
         long countOfExistedPageSources = listener.getProcessed().stream()
                 .map(PageProcessingComplete::getPage)
                 .map(Page::getPageSource)
-                .map(TestHelper::toFile)
-                .filter(File::exists)
+                .filter(pageSourceStore::contains)
                 .count();
         Assertions.assertEquals(3, countOfExistedPageSources);
     }
@@ -0,0 +1,53 @@
+package org.babich.crawler;
+
+import com.google.common.io.Resources;
+import org.babich.crawler.WebCrawler.WebCrawlerBuilder;
+import org.babich.crawler.common.LayeredSiteFetcher;
+import org.babich.crawler.processing.DefaultJsoupPageProcessing;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class WebCrawlerTest {
+
+    @Test
+    void givenWorkersWhenCrawlerStartedThenEveryPageIsConsumedOnceWithItsDepth() throws Exception {
+        LayeredSiteFetcher site = new LayeredSiteFetcher(3, 40);
+        Map<String, Integer> depths = new ConcurrentHashMap<>();
+
+        WebCrawler webCrawler = new WebCrawlerBuilder("concurrent", configPath())
+                .startUrl(LayeredSiteFetcher.LANDING_URL)
+                .useDefaultPageProcessing(new DefaultJsoupPageProcessing(site))
+                .pageConsumer(page -> Assert.assertNull(depths.put(page.getPageUrl(), page.getDepth())))
+                .build();
+        webCrawler.start();
+
+        Assert.assertFalse(webCrawler.isActive());
+        Assert.assertEquals(site.getPageCount(), depths.size());
+        Assert.assertEquals(Integer.valueOf(3), depths.get(LayeredSiteFetcher.pageUrl(3, 39)));
+        Assert.assertTrue(site.getFetches().values().stream().allMatch(count -> 1 == count.get()));
+    }
+
+    @Test
+    void givenWorkersWhenPageProcessingFailsThenFailureIsThrownByStart() throws Exception {
+        LayeredSiteFetcher site = new LayeredSiteFetcher(3, 40, LayeredSiteFetcher.pageUrl(1, 5));
+
+        WebCrawler webCrawler = new WebCrawlerBuilder("concurrent", configPath())
+                .startUrl(LayeredSiteFetcher.LANDING_URL)
+                .maxDepth(2)
+                .useDefaultPageProcessing(new DefaultJsoupPageProcessing(site))
+                .build();
+
+        Assert.assertThrows(UncheckedIOException.class, webCrawler::start);
+        Assert.assertFalse(webCrawler.isActive());
+    }
+
+    private static Path configPath() throws Exception {
+        return Paths.get(Resources.getResource("concurrent-crawler.yml").toURI());
+    }
+}
@@ -0,0 +1,207 @@
+package org.babich.crawler.benchmark;
+
+import com.google.common.collect.Lists;
+import com.google.common.reflect.Reflection;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.PageProcessing;
+import org.babich.crawler.api.PageProcessingInterceptor;
+import org.babich.crawler.configuration.ProxyFactory;
+import org.babich.crawler.configuration.exception.PreProcessingChainException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Per-page overhead of the interceptor chain around a page processing that does nothing.
+ * Half of the interceptors work before the processing and half after it, like filters and message producers.
+ * <br/>{@code reflectiveProxy} is the former implementation based on {@code java.lang.reflect.Proxy},
+ * {@code compiledChain} is the current one. Run it with the {@code main} method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterceptorChainBenchmark {
+
+    private static final int INTERCEPTORS = 10;
+
+    private SimpleMeterRegistry registry;
+    private PageProcessing reflectiveProxy;
+    private PageProcessing compiledChain;
+    private Page page;
+
+    @Setup
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+
+        List<PageProcessingInterceptor> interceptors = IntStream.range(0, INTERCEPTORS)
+                .mapToObj(order -> order % 2 == 0 ? new BeforeInterceptor(order) : new AfterInterceptor(order))
+                .collect(Collectors.toList());
+        PageProcessing processing = page -> new ArrayList<>(Collections.singletonList(page));
+
+        reflectiveProxy = ReflectiveProxyFactory.configureProcessingProxy(processing, interceptors);
+        compiledChain = ProxyFactory.configureProcessingProxy(processing, interceptors);
+
+        page = new Page(new AtomicReference<>(new PageContext.Builder().interceptors().pageProcessing(processing)
+                .build()), "benchmark", "http://example.com/", "page");
+    }
+
+    @TearDown
+    public void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Benchmark
+    public Iterable<Page> reflectiveProxy() {
+        return reflectiveProxy.process(page);
+    }
+
+    @Benchmark
+    public Iterable<Page> compiledChain() {
+        return compiledChain.process(page);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InterceptorChainBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    static class BeforeInterceptor implements PageProcessingInterceptor {
+
+        private final int order;
+
+        BeforeInterceptor(int order) {
+            this.order = order;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public void beforeProcessing(Page page) {
+            if (null == page.getPageUrl()) {
+                throw new PreProcessingChainException("empty url");
+            }
+        }
+    }
+
+    static class AfterInterceptor implements PageProcessingInterceptor {
+
+        private final int order;
+
+        AfterInterceptor(int order) {
+            this.order = order;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public void afterProcessing(Page page, List<Page> successorPages) {
+            if (successorPages.isEmpty()) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    /**
+     * The former interceptor chain: a reflective proxy over the sorted copy-on-write list of interceptors
+     * wrapped into timers.
+     */
+    @SuppressWarnings({"UnstableApiUsage", "unchecked"})
+    static class ReflectiveProxyFactory {
+
+        static PageProcessing configureProcessingProxy(PageProcessing delegate
+                , List<PageProcessingInterceptor> interceptorList) {
+            Method processingMethod;
+            try {
+                processingMethod = PageProcessing.class.getDeclaredMethod("process", Page.class);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+
+            List<PageProcessingInterceptor> chain = interceptorList.stream()
+                    .sorted(Comparator.comparingInt(PageProcessingInterceptor::getOrder))
+                    .map(TimedInterceptor::new)
+                    .collect(Collectors.toCollection(Lists::newCopyOnWriteArrayList));
+
+            return Reflection.newProxy(PageProcessing.class, (proxy, method, args) -> {
+                try {
+                    if (processingMethod.equals(method)) {
+                        chain.forEach(item -> item.beforeProcessing((Page) args[0]));
+                    }
+
+                    Object value = method.invoke(delegate, args);
+
+                    if (processingMethod.equals(method)) {
+                        chain.forEach(item -> item.afterProcessing((Page) args[0], (List<Page>) value));
+                    }
+                    return value;
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                } catch (PreProcessingChainException e) {
+                    return Collections.emptyList();
+                }
+            });
+        }
+    }
+
+    static class TimedInterceptor implements PageProcessingInterceptor {
+
+        private final PageProcessingInterceptor delegate;
+        private final Timer timerBeforeProcessing;
+        private final Timer timerAfterProcessing;
+
+        TimedInterceptor(PageProcessingInterceptor delegate) {
+            this.delegate = delegate;
+            String tag = "legacy-" + delegate.getOrder();
+            this.timerBeforeProcessing = Metrics.timer("benchmark.duration", "class", tag, "method", "before");
+            this.timerAfterProcessing = Metrics.timer("benchmark.duration", "class", tag, "method", "after");
+        }
+
+        @Override
+        public void beforeProcessing(Page page) {
+            timerBeforeProcessing.record(() -> delegate.beforeProcessing(page));
+        }
+
+        @Override
+        public void afterProcessing(Page page, List<Page> successorPages) {
+            timerAfterProcessing.record(() -> delegate.afterProcessing(page, successorPages));
+        }
+    }
+}
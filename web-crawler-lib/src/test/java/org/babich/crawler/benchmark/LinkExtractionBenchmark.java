@@ -0,0 +1,108 @@
+package org.babich.crawler.benchmark;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.processing.DefaultJsoupPageProcessing;
+import org.babich.crawler.processing.StreamingLinkPageProcessing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.babich.crawler.common.TestHelper.createPageWithSource;
+
+/**
+ * Link extraction throughput of a page with the streaming {@link StreamingLinkPageProcessing}
+ * and with the DOM of the {@link DefaultJsoupPageProcessing}, an operation processes all the pages of the corpus.
+ * <br/>The corpus is the pages of the test resources, the real pages saved by a browser or {@code wget}
+ * can be used instead: {@code -p corpus=/path/to/pages}, the file name of a page is its url without the scheme.
+ * Run it with the {@code main} method from the test classpath, {@code -prof gc} reports the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkExtractionBenchmark {
+
+    @Param({""})
+    private String corpus;
+
+    private final DefaultJsoupPageProcessing jsoupProcessing = new DefaultJsoupPageProcessing(pageUrl -> {
+        throw new IOException("The page source must not be loaded.");
+    });
+    private final StreamingLinkPageProcessing streamingProcessing = new StreamingLinkPageProcessing(pageUrl -> {
+        throw new IOException("The page source must not be loaded.");
+    });
+
+    private final List<Page> pages = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        if (StringUtils.isBlank(corpus)) {
+            pages.add(createPageWithSource("https://en.wikipedia.org/wiki/Web_crawler", readResource("wiki-article.html")));
+            pages.add(createPageWithSource("https://shop.example.com/shop/catalog/index.html?page=2"
+                    , readResource("catalog-listing.html")));
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(Paths.get(corpus))) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String pageUrl = "https://" + Paths.get(corpus).relativize(file).toString().replace('\\', '/');
+                pages.add(createPageWithSource(pageUrl, new String(Files.readAllBytes(file), StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void jsoup(Blackhole blackhole) {
+        for (Page page : pages) {
+            blackhole.consume(jsoupProcessing.process(page));
+        }
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) {
+        for (Page page : pages) {
+            blackhole.consume(streamingProcessing.process(page));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LinkExtractionBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream inputStream = LinkExtractionBenchmark.class.getResourceAsStream("/pages/" + name)) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+}
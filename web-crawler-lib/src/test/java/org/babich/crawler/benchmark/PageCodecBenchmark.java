@@ -0,0 +1,121 @@
+package org.babich.crawler.benchmark;
+
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.codec.PageCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Encode and decode throughput of a page with the binary {@link PageCodec} and with JDK serialization.
+ * The {@code bytes} counter reports the size of the encoded page. {@code sourceLength} 0 is a page of the frontier
+ * or a backup, a page with the source is the one of a message.
+ * Run it with the {@code main} method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageCodecBenchmark {
+
+    @Param({"0", "16384"})
+    private int sourceLength;
+
+    private final PageCodec pageCodec = new PageCodec();
+    private Page page;
+    private byte[] encodedPage;
+    private byte[] serializedPage;
+
+    @Setup
+    public void setup() throws IOException {
+        PageContext context = new PageContext.Builder().pageCount(1200).pagesProcessed(800).build();
+        page = new Page(new AtomicReference<>(context), "benchmark_crawler"
+                , "https://en.wikipedia.org/wiki/Special:Random/article_name_of_the_page"
+                , "page_article_name_of_the_page", StringUtils.repeat('x', sourceLength), 250, 4, sourceLength
+                , null);
+
+        encodedPage = pageCodec.encode(page);
+        serializedPage = serialize(page);
+    }
+
+    @Benchmark
+    public byte[] encodeCodec(Size size) {
+        byte[] bytes = pageCodec.encode(page);
+        size.bytes += bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] encodeJdk(Size size) throws IOException {
+        byte[] bytes = serialize(page);
+        size.bytes += bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Page decodeCodec() {
+        return pageCodec.decode(encodedPage);
+    }
+
+    @Benchmark
+    public Object decodeJdk() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(serializedPage))) {
+            return inputStream.readObject();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PageCodecBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private static byte[] serialize(Page page) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(page);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * encoded bytes, divided by the number of operations it is the size of the page
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Size {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+}
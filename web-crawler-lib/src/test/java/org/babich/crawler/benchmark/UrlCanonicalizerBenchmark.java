@@ -0,0 +1,67 @@
+package org.babich.crawler.benchmark;
+
+import org.babich.crawler.common.UriUrlNormalizer;
+import org.babich.crawler.interceptor.service.UrlCanonicalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization throughput of the page links with the single pass {@link UrlCanonicalizer}
+ * and with the former {@code java.net.URI} and regex normalization.
+ * The links are the typical ones of a page: canonical, relative dot-segments, fragments and unsorted queries.
+ * Run it with the {@code main} method from the test classpath, {@code -prof gc} reports the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlCanonicalizerBenchmark {
+
+    private final String[] links = {
+            "https://en.wikipedia.org/wiki/Web_crawler",
+            "https://en.wikipedia.org/wiki/Special:Random/../Main_Page#mw-head",
+            "HTTP://Example.COM:80/catalog//items/./index.html?sort=asc&page=2&lang=en",
+            "https://en.wikipedia.org/w/index.php?title=Web_crawler&action=edit&section=1",
+            "http://www.example.com/a/b/c/../../d/e.html#section1",
+            "https://docs.example.org/api/v2/reference/",
+    };
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+    private final UriUrlNormalizer uriNormalizer = new UriUrlNormalizer();
+
+    @Benchmark
+    public void canonicalizer(Blackhole blackhole) {
+        for (String link : links) {
+            blackhole.consume(canonicalizer.canonicalize(link));
+        }
+    }
+
+    @Benchmark
+    public void uriNormalizer(Blackhole blackhole) {
+        for (String link : links) {
+            blackhole.consume(uriNormalizer.normalize(link));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UrlCanonicalizerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
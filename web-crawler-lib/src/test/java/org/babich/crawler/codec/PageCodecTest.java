@@ -0,0 +1,141 @@
+package org.babich.crawler.codec;
+
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.PageSnapshot;
+import org.babich.crawler.api.ProcessingMessage;
+import org.babich.crawler.api.messages.CrawlerStopped;
+import org.babich.crawler.api.messages.PageProcessingComplete;
+import org.babich.crawler.api.messages.PageProcessingSkippe;
+import org.babich.crawler.api.messages.PageRecovered;
+import org.babich.crawler.common.TestHelper;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+class PageCodecTest {
+
+    final PageCodec pageCodec = new PageCodec();
+    final MessageCodec messageCodec = new MessageCodec();
+
+    @Test
+    void givenPageWhenEncodeThenDecodedPageHasSameFields() throws IOException {
+        Page page = createPage();
+
+        byte[] bytes = pageCodec.encode(page);
+        Page decoded = pageCodec.decode(bytes);
+
+        Assert.assertTrue(PageCodec.isEncoded(bytes));
+        assertPageEquals(page, decoded);
+        Assert.assertEquals(7, decoded.getPageContextRef().get().getPageCount());
+        Assert.assertEquals(3, decoded.getPageContextRef().get().getPagesProcessed());
+        Assert.assertNull(decoded.getPageContextRef().get().getPageProcessing());
+        Assert.assertEquals(new ArrayList<>(Arrays.asList(1, 2)), decoded.getPayload());
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(serialized)) {
+            outputStream.writeObject(page);
+        }
+        Assert.assertFalse(PageCodec.isEncoded(serialized.toByteArray()));
+        Assert.assertTrue(bytes.length < serialized.size() / 2);
+    }
+
+    @Test
+    void givenMessagesWhenEncodeThenDecodedMessagesHaveSameFields() {
+        Page page = createPage();
+
+        PageProcessingSkippe skipped = (PageProcessingSkippe) roundTrip(new PageProcessingSkippe(page, () -> "depth"));
+        Assert.assertEquals("depth", skipped.getCause());
+        assertPageEquals(page, skipped.getPage());
+
+        PageRecovered recovered = new PageRecovered(page, true);
+        PageRecovered decodedRecovered = (PageRecovered) roundTrip(recovered);
+        Assert.assertTrue(decodedRecovered.isProcessed());
+        Assert.assertEquals(recovered.getTime(), decodedRecovered.getTime());
+
+        CrawlerStopped stopped = (CrawlerStopped) roundTrip(new CrawlerStopped("crawler", true));
+        Assert.assertEquals("crawler", stopped.getPayload());
+        Assert.assertTrue(stopped.isAbnormal());
+    }
+
+    @Test
+    void givenPageSnapshotWhenPageIsChangedThenMessageKeepsPostedState() {
+        Page page = createPage();
+        PageProcessingComplete message = new PageProcessingComplete(page);
+        page.setPageName("renamed");
+        page.setDepth(5);
+
+        PageSnapshot snapshot = message.getSnapshot();
+        Assert.assertEquals("page_name", snapshot.getPageName());
+        Assert.assertEquals(2, snapshot.getDepth());
+        Assert.assertSame(page.getPageSource(), snapshot.getPageSource());
+
+        //the compatibility page is detached and created once
+        Page detached = message.getPage();
+        Assert.assertSame(detached, message.getPage());
+        Assert.assertEquals("page_name", detached.getPageName());
+        Assert.assertEquals(7, detached.getPageContextRef().get().getPageCount());
+        Assert.assertNull(detached.getPageContextRef().get().getPageProcessing());
+
+        //the snapshot is encoded like the page
+        CodecOutput snapshotOutput = new CodecOutput();
+        pageCodec.write(snapshotOutput, snapshot);
+        CodecOutput pageOutput = new CodecOutput();
+        pageCodec.write(pageOutput, detached);
+        Assert.assertArrayEquals(pageOutput.toByteArray(), snapshotOutput.toByteArray());
+    }
+
+    @Test
+    void givenTruncatedDataWhenDecodeThenCodecException() {
+        byte[] bytes = pageCodec.encode(createPage());
+
+        Assert.assertThrows(CodecException.class, () -> pageCodec.decode(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    @Test
+    void givenNumbersWhenWriteVarintsThenSameNumbersAreRead() {
+        CodecOutput output = new CodecOutput(1);
+        long[] longs = {0, 1, -1, 63, -64, 300, Long.MAX_VALUE, Long.MIN_VALUE};
+        int[] ints = {0, 1, -1, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        Arrays.stream(longs).forEach(output::writeVarLong);
+        Arrays.stream(ints).forEach(output::writeVarInt);
+
+        CodecInput input = new CodecInput(output.toByteArray());
+        for (long value : longs) {
+            Assert.assertEquals(value, input.readVarLong());
+        }
+        for (int value : ints) {
+            Assert.assertEquals(value, input.readVarInt());
+        }
+        Assert.assertFalse(input.hasRemaining());
+    }
+
+    private ProcessingMessage roundTrip(ProcessingMessage message) {
+        return messageCodec.decode(messageCodec.encode(message));
+    }
+
+    private static Page createPage() {
+        PageContext context = new PageContext.Builder().pageCount(7).pagesProcessed(3).build();
+        Page page = TestHelper.createPage(context, "http://example.com/страница?q=1", "page_name", 2);
+        page.setPageSource("<html>текст</html>");
+        page.setDelay(100);
+        page.setSize(18);
+        page.setPayload(new ArrayList<>(Arrays.asList(1, 2)));
+        return page;
+    }
+
+    private static void assertPageEquals(Page expected, Page actual) {
+        Assert.assertEquals(expected.getCrawlerName(), actual.getCrawlerName());
+        Assert.assertEquals(expected.getPageUrl(), actual.getPageUrl());
+        Assert.assertEquals(expected.getPageName(), actual.getPageName());
+        Assert.assertEquals(expected.getPageSource(), actual.getPageSource());
+        Assert.assertEquals(expected.getDelay(), actual.getDelay());
+        Assert.assertEquals(expected.getDepth(), actual.getDepth());
+        Assert.assertEquals(expected.getSize(), actual.getSize());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.common;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.babich.crawler.api.PageFetcher;
+
+/**
+ * In-memory site of the pages {@code http://example.com/<level>/<number>.html}, the landing page links to all
+ * the pages of the first level and every other page links to three pages of the next level, back to the landing
+ * page and to another host. All the paths to a page have the same length, so its depth doesn't depend on the order
+ * of the crawl. The fetches of every url are counted.
+ */
+public class LayeredSiteFetcher implements PageFetcher {
+
+    public static final String LANDING_URL = "http://example.com/";
+
+    private final int levels;
+    private final int width;
+    private final String failingUrl;
+    private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+
+    public LayeredSiteFetcher(int levels, int width) {
+        this(levels, width, null);
+    }
+
+    /**
+     * @param failingUrl the fetch of the url fails
+     */
+    public LayeredSiteFetcher(int levels, int width, String failingUrl) {
+        this.levels = levels;
+        this.width = width;
+        this.failingUrl = failingUrl;
+    }
+
+    public static String pageUrl(int level, int number) {
+        return LANDING_URL + level + "/" + number + ".html";
+    }
+
+    public int getPageCount() {
+        return 1 + levels * width;
+    }
+
+    public Map<String, AtomicInteger> getFetches() {
+        return fetches;
+    }
+
+    @Override
+    public String fetch(String pageUrl) throws IOException {
+        fetches.computeIfAbsent(pageUrl, url -> new AtomicInteger()).incrementAndGet();
+        if (pageUrl.equals(failingUrl)) {
+            throw new IOException("Unable to fetch " + pageUrl);
+        }
+
+        StringBuilder source = new StringBuilder("<html><body>");
+        if (LANDING_URL.equals(pageUrl)) {
+            for (int number = 0; number < width; number++) {
+                appendLink(source, pageUrl(1, number));
+            }
+            return source.append("</body></html>").toString();
+        }
+
+        String[] path = pageUrl.substring(LANDING_URL.length(), pageUrl.length() - ".html".length()).split("/");
+        int level = Integer.parseInt(path[0]);
+        int number = Integer.parseInt(path[1]);
+        if (level < levels) {
+            appendLink(source, pageUrl(level + 1, number));
+            appendLink(source, pageUrl(level + 1, (number + 1) % width));
+            appendLink(source, pageUrl(level + 1, (number + 3) % width));
+        }
+        appendLink(source, LANDING_URL);
+        appendLink(source, "http://other.com/" + level + ".html");
+        return source.append("</body></html>").toString();
+    }
+
+    private static void appendLink(StringBuilder source, String link) {
+        source.append("<a href='").append(link).append("'>").append(link).append("</a>");
+    }
+}
@@ -3,16 +3,19 @@
  */
 package org.babich.crawler.common;
 
-import java.io.File;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.configuration.ApplicationConfig.SourceStore;
+import org.mockito.Mockito;
 
 public class TestHelper {
 
+    public static final String CRAWLER_NAME = "test_crawler";
+
     private TestHelper() {
     }
 
@@ -32,15 +35,49 @@ public class TestHelper {
     }
 
     /**
-     * Converting a URI, represented as a string, to a file
-     * @param uriString URI represented as a string
-     * @return file
+     * @param path directory of the page source store
+     * @return configuration of the page source store
+     */
+    public static SourceStore sourceStore(String path){
+        SourceStore sourceStore = new SourceStore();
+        sourceStore.setPath(path);
+        return sourceStore;
+    }
+
+    /**
+     * @return page of the test crawler with a mock context
+     */
+    public static Page createPage(String pageUrl) {
+        return createPage(pageUrl, 0);
+    }
+
+    /**
+     * @return page of the test crawler with a mock context
+     */
+    public static Page createPage(String pageUrl, int depth) {
+        return createPage(Mockito.mock(PageContext.class), pageUrl, "page_name", depth);
+    }
+
+    /**
+     * @return page of the test crawler with the source and a mock context
+     */
+    public static Page createPageWithSource(String pageUrl, String pageSource) {
+        Page page = createPage(pageUrl);
+        page.setPageSource(pageSource);
+        return page;
+    }
+
+    public static Page createPage(PageContext pageContext, String pageUrl, String pageName, int depth) {
+        return createPage(new AtomicReference<>(pageContext), pageUrl, pageName, depth);
+    }
+
+    /**
+     * @param pageContextRef the reference shared by the pages, e.g. to check that the page keeps it
      */
-    public static File toFile(String uriString){
-        try {
-            return Paths.get(new URI(uriString)).toFile();
-        } catch (URISyntaxException e) {
-            throw new IllegalArgumentException(e);
-        }
+    public static Page createPage(AtomicReference<PageContext> pageContextRef, String pageUrl, String pageName
+            , int depth) {
+        Page page = new Page(pageContextRef, CRAWLER_NAME, pageUrl, pageName);
+        page.setDepth(depth);
+        return page;
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * @author Vadim Babich
+ */
+package org.babich.crawler.common;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The former url normalization of the {@code PageUrlNormalizer} by {@link URI#normalize()} and the regex,
+ * it is the reference of the differential tests and the benchmark of the {@code UrlCanonicalizer}.
+ */
+public class UriUrlNormalizer {
+
+    static final String regexUri = "^((?<scheme>[^:/?#]+):)" +
+            "?(//(?<authority>(((?<user>[^@]+)@)?(?<host>[A-Za-z0-9.\\-_~]+)(:(?<port>\\d*))?)))" +
+            "?(?<path>[^?#]*)" +
+            "(\\?(?<query>[^#]*))" +
+            "?(#(?<fragment>.*))" +
+            "?(?i)";
+
+    static final String queryParamsSeparator = "&";
+    static final Pattern pattern = Pattern.compile(regexUri);
+    static final Pattern queryPattern = Pattern.compile(queryParamsSeparator);
+
+    /**
+     * @return the normalized url or {@code null} if the url cannot be parsed
+     */
+    public String normalize(String url) {
+        try {
+            return normalize(new URI(url));
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private String normalize(URI uri) {
+        uri = uri.normalize();
+        String uriAsString = uri.toString();
+        Matcher matcher = pattern.matcher(uriAsString);
+
+        if (!matcher.find()) {
+            return uriAsString;
+        }
+
+        StringBuilder sourceUriString = new StringBuilder(uriAsString);
+
+        replaceGroupToLowerCase(matcher, "scheme", sourceUriString);
+        replaceGroupToLowerCase(matcher, "host", sourceUriString);
+        sortingQueryParameters(uri, matcher, sourceUriString);
+
+        removingFragment(matcher, sourceUriString);
+        removingQueryMarkWhenQueryIsEmpty(matcher, sourceUriString);
+        removingDefaultPort(matcher, sourceUriString);
+
+        return sourceUriString.toString();
+    }
+
+    private void sortingQueryParameters(URI uri, Matcher matcher, StringBuilder source) {
+        String queryGroupName = "query";
+        Consumer<String> sortQueryParams = queryString ->
+        {
+            String sortedQueryParams = queryPattern.splitAsStream(queryString)
+                    .sorted()
+                    .collect(Collectors.joining(queryParamsSeparator));
+
+            source.replace(matcher.start(queryGroupName), matcher.end(queryGroupName), sortedQueryParams);
+        };
+
+        Optional.ofNullable(uri.getQuery()).ifPresent(sortQueryParams);
+    }
+
+    private void removingFragment(Matcher matcher, StringBuilder source) {
+        String fragmentGroupName = "fragment";
+        String fragment = matcher.group(fragmentGroupName);
+        if (StringUtils.isBlank(fragment)) {
+            return;
+        }
+
+        source.delete(matcher.start(fragmentGroupName) - 1, matcher.end(fragmentGroupName));
+    }
+
+    private void removingDefaultPort(Matcher matcher, StringBuilder source) {
+        String portGroupName = "port";
+        String port = matcher.group(portGroupName);
+        if (!"80".equals(port)) {
+            return;
+        }
+        source.delete(matcher.start(portGroupName) - 1, matcher.end(portGroupName));
+    }
+
+    private void removingQueryMarkWhenQueryIsEmpty(Matcher matcher, StringBuilder source) {
+        if (StringUtils.isNotBlank(matcher.group("query"))) {
+            return;
+        }
+
+        int position;
+        if (-1 == (position = matcher.end("path"))) {
+            return;
+        }
+
+        if (position < source.length() && '?' == source.charAt(position)) {
+            source.delete(position, position + 1);
+        }
+    }
+
+    private static void replaceGroupToLowerCase(Matcher matcher, String groupName, StringBuilder source) {
+        String value = matcher.group(groupName);
+        if (StringUtils.isBlank(value)) {
+            return;
+        }
+        source.replace(matcher.start(groupName), matcher.end(groupName), value.toLowerCase());
+    }
+}
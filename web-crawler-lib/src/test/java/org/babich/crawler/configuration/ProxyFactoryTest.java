@@ -0,0 +1,78 @@
+package org.babich.crawler.configuration;
+
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageProcessing;
+import org.babich.crawler.api.PageProcessingInterceptor;
+import org.babich.crawler.configuration.ApplicationConfig.Limit;
+import org.babich.crawler.configuration.exception.PreProcessingChainException;
+import org.babich.crawler.interceptor.filter.MaximumDepthFilter;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.babich.crawler.common.TestHelper.createPage;
+
+class ProxyFactoryTest {
+
+    final AtomicInteger processed = new AtomicInteger();
+
+    final PageProcessing processing = page -> {
+        processed.incrementAndGet();
+        return new ArrayList<>(Collections.singletonList(createPage("http://example.com/next", 0)));
+    };
+
+    @Test
+    void givenSkippingFilterWhenProcessingThenChainIsInterrupted() {
+        AtomicInteger nextInterceptorCalls = new AtomicInteger();
+        PageProcessingInterceptor nextInterceptor = new PageProcessingInterceptor() {
+            @Override
+            public int getOrder() {
+                return Integer.MAX_VALUE;
+            }
+
+            @Override
+            public void beforeProcessing(Page page) {
+                nextInterceptorCalls.incrementAndGet();
+            }
+        };
+
+        PageProcessing underTest = ProxyFactory.configureProcessingProxy(processing
+                , Arrays.asList(nextInterceptor, new MaximumDepthFilter(limit(1), null)));
+
+        Assert.assertFalse(underTest.process(createPage("http://example.com/deep", 2)).iterator().hasNext());
+        Assert.assertEquals(0, processed.get());
+        Assert.assertEquals(0, nextInterceptorCalls.get());
+
+        Assert.assertTrue(underTest.process(createPage("http://example.com/", 0)).iterator().hasNext());
+        Assert.assertEquals(1, processed.get());
+        Assert.assertEquals(1, nextInterceptorCalls.get());
+    }
+
+    @Test
+    void givenThrowingInterceptorWhenProcessingThenPageIsSkipped() {
+        PageProcessingInterceptor throwingInterceptor = new PageProcessingInterceptor() {
+            @Override
+            public void beforeProcessing(Page page) {
+                throw new PreProcessingChainException("skipped");
+            }
+        };
+
+        PageProcessing underTest = ProxyFactory.configureProcessingProxy(processing
+                , Collections.singletonList(throwingInterceptor));
+
+        Iterable<Page> successorPages = underTest.process(createPage("http://example.com/", 0));
+
+        Assert.assertFalse(successorPages.iterator().hasNext());
+        Assert.assertEquals(0, processed.get());
+    }
+
+    private static Limit limit(int maxDepth) {
+        Limit limit = new Limit();
+        limit.setMaxDepth(maxDepth);
+        return limit;
+    }
+}
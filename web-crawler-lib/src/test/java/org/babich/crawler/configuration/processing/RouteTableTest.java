@@ -0,0 +1,102 @@
+package org.babich.crawler.configuration.processing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageProcessing;
+import org.babich.crawler.api.processing.AssignedPageFilter;
+import org.babich.crawler.api.processing.AssignedPagePostProcessing;
+import org.babich.crawler.api.processing.AssignedPageProcessing;
+import org.babich.crawler.configuration.ApplicationConfig;
+import org.babich.crawler.configuration.processing.CustomPageProcessingConfig.Builder;
+import org.babich.crawler.configuration.processing.CustomPageProcessingConfig.Matchers;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import static org.babich.crawler.common.TestHelper.createPage;
+
+class RouteTableTest {
+
+    final List<CustomPageProcessingConfig> configs = new ArrayList<>();
+    final AtomicInteger evaluations = new AtomicInteger();
+
+    @Test
+    void givenManyRulesWhenRoutedThenFirstMatchIsAppliedAndEachPredicateIsEvaluatedOnce() {
+        PageProcessing wikiProcessing = page -> Collections.emptyList();
+        PageProcessing otherProcessing = page -> Collections.emptyList();
+
+        for (int i = 0; i < 200; i++) {
+            String host = "host" + i + ".com";
+            add(builder -> builder.forPages(Matchers.hostMatcher(host)).processingBy(otherProcessing));
+        }
+        //matches, but without the processing and the filter
+        add(builder -> builder.forPages(counted(Matchers.regexpPageUrlMatcher(".*/wiki/.*"))));
+        add(builder -> builder.forPages(counted(Matchers.hostNameMatcher(".*example\\.com")))
+                .processingBy(wikiProcessing)
+                .skippingPages(when -> when.conditionIsTrue(page -> page.getPageUrl().endsWith("/skip"))));
+        add(builder -> builder.forPages(Matchers.pathPrefixMatcher("/wiki/")).processingBy(otherProcessing)
+                .skippingPages(when -> when.conditionIsTrue(page -> true)));
+
+        RouteTable underTest = new RouteTable(configs);
+        AssignedPageProcessing processing = underTest.pageProcessing();
+        AssignedPageFilter filter = underTest.pageFilter();
+        AssignedPagePostProcessing messageProducer = underTest.messageProducer();
+
+        Page page = createPage("http://www.example.com/wiki/skip");
+        Assert.assertTrue(filter.matches(page));
+        Assert.assertEquals("http://www.example.com/wiki/skip", filter.apply(page).getSnapshot().getPageUrl());
+        Assert.assertTrue(processing.matches(page));
+        Assert.assertSame(wikiProcessing.process(page), processing.process(page));
+        Assert.assertTrue(messageProducer.matches(page));
+        //a copy of the page shares the route
+        Assert.assertTrue(messageProducer.matches(new Page(page)));
+        Assert.assertEquals(2, evaluations.get());
+
+        //the route is resolved again for the changed url, only the path prefix rule matches it
+        page.setPageUrl("http://www.other.org/wiki/page");
+        Assert.assertTrue(filter.matches(page));
+        Assert.assertEquals(4, evaluations.get());
+    }
+
+    @Test
+    void givenIndexedRulesWhenRoutedThenTheyAreFoundWithoutEvaluation() {
+        add(builder -> builder.forPages(Matchers.hostMatcher("Example.com")));
+        add(builder -> builder.forPages(Matchers.pathPrefixMatcher("/docs/api")).processingBy(page -> null));
+        add(builder -> builder.forPages(counted(Matchers.alwaysTrue())).processingBy(page -> null));
+
+        RouteTable underTest = new RouteTable(configs);
+        AssignedPageProcessing processing = underTest.pageProcessing();
+        AssignedPagePostProcessing messageProducer = underTest.messageProducer();
+
+        Page page = createPage("http://example.COM/docs/api/index.html");
+        Assert.assertTrue(messageProducer.matches(page));
+        Assert.assertTrue(processing.matches(page));
+        Assert.assertEquals(0, evaluations.get());
+
+        Page otherPage = createPage("http://example.org/docs/");
+        Assert.assertTrue(processing.matches(otherPage));
+        Assert.assertEquals(1, evaluations.get());
+        Assert.assertFalse(underTest.pageFilter().matches(otherPage));
+
+        Page malformedPage = createPage("not a url");
+        Assert.assertTrue(messageProducer.matches(malformedPage));
+        Assert.assertEquals(2, evaluations.get());
+    }
+
+    private void add(Consumer<Builder> builder) {
+        Builder configBuilder = new Builder(new ApplicationConfig());
+        builder.accept(configBuilder);
+        configs.add(configBuilder.build());
+    }
+
+    private Predicate<Page> counted(Predicate<Page> predicate) {
+        return page -> {
+            evaluations.incrementAndGet();
+            return predicate.test(page);
+        };
+    }
+}
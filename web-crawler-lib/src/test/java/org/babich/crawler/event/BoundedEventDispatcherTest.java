@@ -0,0 +1,133 @@
+package org.babich.crawler.event;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class BoundedEventDispatcherTest {
+
+    @Test
+    void givenSlowListenerWhenPostThenProducerIsThrottledByCapacity() {
+        BoundedEventDispatcher underTest = new BoundedEventDispatcher(10, 2, null);
+        BlockedListener listener = new BlockedListener();
+        listener.release.countDown();
+        underTest.register(listener);
+
+        int maxQueueSize = 0;
+        for (int i = 0; i < 200; i++) {
+            underTest.post(i);
+            maxQueueSize = Math.max(maxQueueSize, underTest.getQueueSize());
+        }
+        underTest.shutdown(Duration.ofSeconds(10));
+
+        Assert.assertTrue(maxQueueSize <= 10);
+        Assert.assertEquals(200, listener.numbers.size());
+    }
+
+    @Test
+    void givenDropPolicyWhenQueueIsFullThenEventsAreDropped() {
+        BoundedEventDispatcher underTest = new BoundedEventDispatcher(5, 1, ImmutableMap.of("Integer", "DROP"));
+        BlockedListener listener = new BlockedListener();
+        underTest.register(listener);
+
+        for (int i = 0; i < 50; i++) {
+            underTest.post(i);
+        }
+        Assert.assertTrue(underTest.getQueueSize() <= 5);
+
+        listener.release.countDown();
+        underTest.shutdown(Duration.ofSeconds(10));
+
+        //the queued events and the one that has been dispatched when the listener got stuck
+        Assert.assertTrue(listener.numbers.size() >= 5);
+        Assert.assertTrue(listener.numbers.size() <= 6);
+    }
+
+    @Test
+    void givenCoalescePolicyWhenPostThenLatestEventIsDispatched() {
+        BoundedEventDispatcher underTest = new BoundedEventDispatcher(5, 1, ImmutableMap.of("String", "COALESCE"));
+        BlockedListener listener = new BlockedListener();
+        underTest.register(listener);
+
+        for (int i = 0; i < 100; i++) {
+            underTest.post("status " + i);
+        }
+        Assert.assertTrue(underTest.getQueueSize() <= 1);
+
+        listener.release.countDown();
+        underTest.shutdown(Duration.ofSeconds(10));
+
+        Assert.assertTrue(listener.strings.size() <= 2);
+        Assert.assertEquals("status 99", listener.strings.get(listener.strings.size() - 1));
+    }
+
+    @Test
+    void givenProducerWaitingForCapacityWhenShutdownThenEventIsDispatchedInPlace() throws InterruptedException {
+        BoundedEventDispatcher underTest = new BoundedEventDispatcher(1, 1, null);
+        BlockedListener listener = new BlockedListener();
+        underTest.register(listener);
+
+        //the first event blocks the worker and the second one takes the capacity
+        underTest.post(1);
+        underTest.post(2);
+        Thread producer = new Thread(() -> underTest.post(3));
+        producer.start();
+        producer.join(200);
+        Assert.assertTrue(producer.isAlive());
+
+        underTest.shutdown(Duration.ofMillis(100));
+        listener.release.countDown();
+        producer.join(5_000);
+
+        Assert.assertFalse(producer.isAlive());
+        Assert.assertTrue(listener.numbers.contains(3));
+    }
+
+    @Test
+    void givenTwoBusesWhenCreatedThenQueueGaugesAreTaggedByBusName() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            BoundedEventDispatcher first = new BoundedEventDispatcher(5, 1, null);
+            BoundedEventDispatcher second = new BoundedEventDispatcher(5, 1, null);
+            first.shutdown(Duration.ofSeconds(1));
+            second.shutdown(Duration.ofSeconds(1));
+
+            Assert.assertNotEquals(first.getName(), second.getName());
+            Assert.assertNotNull(registry.find("crawler.eventbus.queue.size").tag("bus", first.getName()).gauge());
+            Assert.assertNotNull(registry.find("crawler.eventbus.queue.size").tag("bus", second.getName()).gauge());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    static class BlockedListener {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> numbers = new CopyOnWriteArrayList<>();
+        final List<String> strings = new CopyOnWriteArrayList<>();
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onNumber(Integer number) throws InterruptedException {
+            release.await(10, TimeUnit.SECONDS);
+            numbers.add(number);
+        }
+
+        @Subscribe
+        public void onString(String status) throws InterruptedException {
+            release.await(10, TimeUnit.SECONDS);
+            strings.add(status);
+        }
+    }
+}
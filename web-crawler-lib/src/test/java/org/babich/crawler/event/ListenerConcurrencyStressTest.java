@@ -0,0 +1,115 @@
+package org.babich.crawler.event;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.messages.PageProcessingComplete;
+import org.babich.crawler.api.messages.PageRecovered;
+import org.babich.crawler.common.TestHelper;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.babich.crawler.exporters.S3PageSourceExporter;
+import org.babich.crawler.interceptor.SuccessorsMessageProducer;
+import org.babich.crawler.interceptor.filter.CircularLinksFilter;
+import org.babich.crawler.interceptor.service.JournalBackupService;
+import org.babich.crawler.interceptor.service.PageSourceLocalPersister;
+import org.babich.crawler.interceptor.service.SuccessorPagesPostProcessing;
+import org.babich.crawler.interceptor.service.ZipBackupService;
+import org.babich.crawler.metrics.MeterRegistryInitializer;
+import org.babich.crawler.metrics.PageMetricsProducer;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class ListenerConcurrencyStressTest {
+
+    private static final int THREADS = 8;
+    private static final int EVENTS_PER_THREAD = 250_000;
+    private static final int URLS = 1000;
+
+    @Test
+    void givenBuiltInListenersWhenCheckSubscribersThenAllAllowConcurrentEvents() {
+        Class<?>[] listeners = {PageMetricsProducer.class, MeterRegistryInitializer.class, CircularLinksFilter.class
+                , SuccessorsMessageProducer.class, SuccessorPagesPostProcessing.class, PageSourceLocalPersister.class
+                , ZipBackupService.class, JournalBackupService.class, S3PageSourceExporter.class};
+
+        for (Class<?> listener : listeners) {
+            for (Method method : listener.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Subscribe.class)) {
+                    Assert.assertTrue(method.toString(), method.isAnnotationPresent(AllowConcurrentEvents.class));
+                }
+            }
+        }
+    }
+
+    @Test
+    void givenManyProducersWhenPostMillionsOfEventsThenListenersStayConsistent() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            PageConfig pageConfig = new PageConfig();
+            pageConfig.setPageNamePattern("page_${number}");
+
+            PageMetricsProducer metricsProducer = new PageMetricsProducer();
+            CircularLinksFilter circularLinksFilter = new CircularLinksFilter(null);
+            SuccessorPagesPostProcessing postProcessing = new SuccessorPagesPostProcessing(pageConfig);
+            SuccessorsMessageProducer successorsMessageProducer = new SuccessorsMessageProducer(null);
+
+            BoundedEventDispatcher underTest = new BoundedEventDispatcher(10_000, 4, null);
+            underTest.register(metricsProducer);
+            underTest.register(circularLinksFilter);
+            underTest.register(postProcessing);
+            underTest.register(successorsMessageProducer);
+
+            List<Thread> producers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Thread producer = new Thread(() -> {
+                    for (int j = 0; j < EVENTS_PER_THREAD; j++) {
+                        Page page = page("http://localhost/" + (j / 2 % URLS), 10);
+                        underTest.post(j % 2 == 0 ? new PageProcessingComplete(page) : new PageRecovered(page, true));
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            underTest.shutdown(Duration.ofMinutes(1));
+
+            int events = THREADS * EVENTS_PER_THREAD;
+            Assert.assertEquals(events / 2, (long) registry.get("crawler.processing.page.completed.count")
+                    .counter().count());
+            Assert.assertEquals(events / 2, registry.get("crawler.processing.page.size").summary().count());
+
+            //every recovered page takes a page number, no increment is lost
+            List<Page> successors = new ArrayList<>();
+            successors.add(page("http://localhost/new", 0));
+            postProcessing.afterProcessing(page("http://localhost/", 0), successors);
+            Assert.assertEquals("page_" + events / 2, successors.get(0).getPageName());
+
+            //every recovered url is known as found
+            List<Page> recovered = IntStream.range(0, URLS)
+                    .mapToObj(i -> page("http://localhost/" + i, 0))
+                    .collect(Collectors.toList());
+            circularLinksFilter.afterProcessing(page("http://localhost/", 0), recovered);
+            Assert.assertTrue(recovered.isEmpty());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    private static Page page(String url, long size) {
+        Page page = TestHelper.createPage(new PageContext.Builder().build(), url, null, 0);
+        page.setSize(size);
+        return page;
+    }
+}
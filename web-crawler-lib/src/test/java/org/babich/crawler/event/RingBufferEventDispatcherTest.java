@@ -0,0 +1,117 @@
+package org.babich.crawler.event;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import org.babich.crawler.event.RingBufferEventDispatcher.WaitStrategy;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RingBufferEventDispatcherTest {
+
+    @Test
+    void givenProducersWhenPostThenAllEventsAreHandled() throws InterruptedException {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBufferEventDispatcher underTest = new RingBufferEventDispatcher(64, 2, 8, waitStrategy);
+            CountingListener listener = new CountingListener();
+            underTest.register(listener);
+
+            List<Thread> producers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread producer = new Thread(() -> {
+                    for (int j = 0; j < 2_000; j++) {
+                        underTest.post(j);
+                    }
+                    underTest.post("done");
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            underTest.shutdown(Duration.ofSeconds(10));
+
+            Assert.assertEquals(waitStrategy.name(), 8_000, listener.numbers.get());
+            //handlers of supertypes receive the events too
+            Assert.assertEquals(8_004, listener.objects.get());
+            Assert.assertEquals(4, listener.strings);
+            Assert.assertFalse("a handler without @AllowConcurrentEvents is invoked concurrently"
+                    , listener.overlapped.get());
+        }
+    }
+
+    @Test
+    void givenHandlerPostsToFullRingWhenPostThenEventIsHandledInPlace() {
+        RingBufferEventDispatcher underTest = new RingBufferEventDispatcher(2, 1, 1, WaitStrategy.BLOCKING);
+        AtomicInteger handled = new AtomicInteger();
+        underTest.register(new Object() {
+            @Subscribe
+            public void onNumber(Integer number) {
+                handled.incrementAndGet();
+                if (number > 0) {
+                    for (int i = 0; i < 4; i++) {
+                        underTest.post(number - 1);
+                    }
+                }
+            }
+        });
+
+        underTest.post(3);
+        underTest.shutdown(Duration.ofSeconds(10));
+
+        Assert.assertEquals(1 + 4 + 16 + 64, handled.get());
+    }
+
+    @Test
+    void givenUnregisteredListenerWhenPostThenListenerIsNotInvoked() {
+        RingBufferEventDispatcher underTest = new RingBufferEventDispatcher(16, 1, 4, WaitStrategy.SLEEPING);
+        CountingListener listener = new CountingListener();
+        underTest.register(listener);
+        underTest.unregister(listener);
+
+        underTest.post(1);
+        underTest.shutdown(Duration.ofSeconds(10));
+
+        Assert.assertEquals(0, listener.numbers.get());
+    }
+
+    static class BaseListener {
+
+        final AtomicInteger objects = new AtomicInteger();
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onObject(Object event) {
+            objects.incrementAndGet();
+        }
+    }
+
+    static class CountingListener extends BaseListener {
+
+        final AtomicInteger numbers = new AtomicInteger();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        private final AtomicBoolean inside = new AtomicBoolean();
+        int strings;
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onNumber(Integer number) {
+            numbers.incrementAndGet();
+        }
+
+        @Subscribe
+        public void onString(String event) {
+            if (!inside.compareAndSet(false, true)) {
+                overlapped.set(true);
+            }
+            strings++;
+            inside.set(false);
+        }
+    }
+}
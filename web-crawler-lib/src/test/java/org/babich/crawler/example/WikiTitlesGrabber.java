@@ -9,6 +9,7 @@ import org.babich.crawler.configuration.ApplicationConfig;
 import org.babich.crawler.configuration.exception.CrawlerConfigurationException;
 import org.babich.crawler.configuration.processing.CustomPageProcessingConfig;
 import org.babich.crawler.processing.DefaultJsoupPageProcessing;
+import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
 import java.io.PrintStream;
@@ -89,7 +90,7 @@ public class WikiTitlesGrabber {
                              * find in the results all links to the wikipedia.org resource
                              */
                             @Override
-                            protected Collection<String> findSuccessorLinks(Page page) {
+                            protected Collection<String> findSuccessorLinks(Page page, Document doc) {
                                 return doc.selectFirst("div#search").select("a[href*=wikipedia.org]")
                                         .stream()
                                         .map(element -> element.attr("abs:href"))
@@ -107,13 +108,14 @@ public class WikiTitlesGrabber {
                              *  as a serializable list
                              */
                             @Override
-                            protected void parse(Page page) {
-                                super.parse(page);
+                            protected Document parse(Page page) {
+                                Document doc = super.parse(page);
                                 ArrayList<String> tocTitleList = new ArrayList<>();
                                 doc.select("div#toc li").stream()
                                         .map(Element::text)
                                         .forEach(tocTitleList::add);
                                 page.setPayload(tocTitleList);
+                                return doc;
                             }
                         })
                 )
@@ -0,0 +1,62 @@
+package org.babich.crawler.exporters;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import org.apache.commons.io.IOUtils;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.messages.CrawlerStarted;
+import org.babich.crawler.api.messages.CrawlerStopped;
+import org.babich.crawler.api.messages.PageProcessingComplete;
+import org.babich.crawler.configuration.ApplicationConfig.SourceStore;
+import org.babich.crawler.interceptor.service.PageSourceLocalPersister;
+import org.babich.crawler.store.PageSourceStore;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.babich.crawler.common.TestHelper.createPageWithSource;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class S3PageSourceExporterTest {
+
+    private final Map<String, String> bucket = new ConcurrentHashMap<>();
+
+    @Test
+    void givenDefaultSourceStoreWhenPagePersistedThenSourceIsUploaded() {
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        when(s3Client.putObject(any(PutObjectRequest.class))).thenAnswer(invocation -> {
+            PutObjectRequest request = (PutObjectRequest) invocation.getArguments()[0];
+            bucket.put(request.getKey(), IOUtils.toString(request.getInputStream(), StandardCharsets.UTF_8));
+            return null;
+        });
+        Properties properties = new Properties();
+        properties.setProperty("aws.enabled", "true");
+
+        //the persister and the exporter are configured by the same settings with an empty path
+        SourceStore sourceStore = new SourceStore();
+        PageSourceLocalPersister persister = new PageSourceLocalPersister(sourceStore);
+        S3PageSourceExporter underTest = new S3PageSourceExporter(properties::getProperty, s3Client
+                , new PageSourceStore(sourceStore));
+
+        Page page = createPageWithSource("http://example.com/", "<html>страница</html>");
+        persister.afterProcessing(page, Collections.emptyList());
+        Assert.assertTrue(PageSourceStore.isLocator(page.getPageSource()));
+
+        underTest.onStart(new CrawlerStarted("test_crawler"));
+        underTest.onProcess(new PageProcessingComplete(page));
+        persister.tearDown(new CrawlerStopped("test_crawler"));
+        underTest.onStop(new CrawlerStopped("test_crawler"));
+
+        Assert.assertEquals(1, bucket.size());
+        Map.Entry<String, String> object = bucket.entrySet().iterator().next();
+        Assert.assertTrue(object.getKey().endsWith("/page_name.src"));
+        Assert.assertEquals("<html>страница</html>", object.getValue());
+    }
+}
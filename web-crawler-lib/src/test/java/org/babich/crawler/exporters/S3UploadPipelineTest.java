@@ -0,0 +1,181 @@
+package org.babich.crawler.exporters;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class S3UploadPipelineTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private final Map<String, String> bucket = new ConcurrentHashMap<>();
+    private final AtomicBoolean available = new AtomicBoolean(true);
+
+    /**
+     * in-memory stand-in of the S3 endpoint that can be switched off
+     */
+    private AmazonS3 s3Client() {
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        when(s3Client.putObject(any(PutObjectRequest.class))).thenAnswer(invocation -> {
+            if (!available.get()) {
+                throw new AmazonClientException("Unable to execute HTTP request: Connection refused");
+            }
+            PutObjectRequest request = (PutObjectRequest) invocation.getArguments()[0];
+            bucket.put(request.getKey(), null == request.getFile()
+                    ? IOUtils.toString(request.getInputStream(), StandardCharsets.UTF_8)
+                    : new String(Files.readAllBytes(request.getFile().toPath()), StandardCharsets.UTF_8));
+            return null;
+        });
+        return s3Client;
+    }
+
+    @Test
+    void givenAvailableEndpointWhenSubmitThenSourcesAreUploaded() {
+        S3UploadPipeline underTest = new S3UploadPipeline(s3Client(), "crawler", 100, 4
+                , 3, 10, spoolDir, 60_000);
+
+        for (int i = 0; i < 50; i++) {
+            underTest.submit("sources/page" + i, ("<html>" + i + "</html>").getBytes(StandardCharsets.UTF_8));
+        }
+        underTest.close(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(50, bucket.size());
+        Assert.assertEquals("<html>7</html>", bucket.get("sources/page7"));
+    }
+
+    @Test
+    void givenEndpointIsDownWhenSubmitThenSourcesAreSpooledAndUploadedLater() throws Exception {
+        available.set(false);
+        S3UploadPipeline underTest = new S3UploadPipeline(s3Client(), "crawler", 2, 1
+                , 1, 1, spoolDir, 60_000);
+
+        for (int i = 0; i < 10; i++) {
+            underTest.submit("sources/page" + i, ("<html>" + i + "</html>").getBytes(StandardCharsets.UTF_8));
+        }
+        underTest.close(10, TimeUnit.SECONDS);
+
+        //uploads that are rejected by the full queue or failed after retries are spooled to the disk
+        Assert.assertTrue(bucket.isEmpty());
+        Assert.assertEquals(10, countSpooled());
+
+        //the spooled uploads are sent by the next pipeline when the endpoint is up
+        available.set(true);
+        S3UploadPipeline restarted = new S3UploadPipeline(s3Client(), "crawler", 100, 2
+                , 1, 1, spoolDir, 10);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (bucket.size() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        restarted.close(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(10, bucket.size());
+        Assert.assertEquals("<html>3</html>", bucket.get("sources/page3"));
+        Assert.assertEquals(0, countSpooled());
+    }
+
+    @Test
+    void givenEndpointIsDownWhenCloseTimesOutThenQueuedUploadsAreSpooled() throws Exception {
+        available.set(false);
+        S3UploadPipeline underTest = new S3UploadPipeline(s3Client(), "crawler", 100, 1
+                , 1_000, 50, spoolDir, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            underTest.submit("sources/page" + i, ("<html>" + i + "</html>").getBytes(StandardCharsets.UTF_8));
+        }
+        underTest.close(200, TimeUnit.MILLISECONDS);
+
+        //the retried upload is interrupted and the uploads that are not started are returned by the pool
+        Assert.assertEquals(5, countSpooled());
+
+        available.set(true);
+        S3UploadPipeline restarted = new S3UploadPipeline(s3Client(), "crawler", 100, 1
+                , 1, 1, spoolDir, 10);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (countSpooled() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        restarted.close(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(5, bucket.size());
+        Assert.assertEquals("<html>4</html>", bucket.get("sources/page4"));
+    }
+
+    @Test
+    void givenEndpointIsDownWhenSpooledUploadsAreResubmittedThenSpooledFilesAreKept() throws Exception {
+        available.set(false);
+        S3UploadPipeline underTest = new S3UploadPipeline(s3Client(), "crawler", 100, 1
+                , 0, 1, spoolDir, 60_000);
+        for (int i = 0; i < 3; i++) {
+            underTest.submit("sources/page" + i, ("<html>" + i + "</html>").getBytes(StandardCharsets.UTF_8));
+        }
+        underTest.close(10, TimeUnit.SECONDS);
+        Set<Path> spooled = spooledFiles();
+        Assert.assertEquals(3, spooled.size());
+
+        //the failed resubmitted uploads keep their files instead of deleting and writing them again
+        S3UploadPipeline restarted = new S3UploadPipeline(s3Client(), "crawler", 100, 1
+                , 0, 1, spoolDir, 10);
+        Thread.sleep(200);
+        restarted.close(10, TimeUnit.SECONDS);
+
+        Assert.assertTrue(bucket.isEmpty());
+        Assert.assertEquals(spooled, spooledFiles());
+    }
+
+    @Test
+    void givenFilesWhenSubmitThenUploadedFilesAreDeletedAndFailedFilesAreKept(@TempDir Path archiveDir)
+            throws IOException {
+        Path uploaded = Files.write(archiveDir.resolve("uploaded.warc.gz")
+                , "<html>1</html>".getBytes(StandardCharsets.UTF_8));
+        S3UploadPipeline underTest = new S3UploadPipeline(s3Client(), "crawler", 100, 1
+                , 0, 1, spoolDir, 60_000);
+        underTest.submit("sources/uploaded.warc.gz", uploaded);
+        underTest.close(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals("<html>1</html>", bucket.get("sources/uploaded.warc.gz"));
+        Assert.assertFalse(Files.exists(uploaded));
+
+        //the failed file is not copied to the spool, it stays where it is
+        available.set(false);
+        Path failed = Files.write(archiveDir.resolve("failed.warc.gz")
+                , "<html>2</html>".getBytes(StandardCharsets.UTF_8));
+        S3UploadPipeline restarted = new S3UploadPipeline(s3Client(), "crawler", 100, 1
+                , 0, 1, spoolDir, 60_000);
+        restarted.submit("sources/failed.warc.gz", failed);
+        restarted.close(10, TimeUnit.SECONDS);
+
+        Assert.assertTrue(Files.exists(failed));
+        Assert.assertEquals(0, countSpooled());
+    }
+
+    private long countSpooled() throws IOException {
+        return spooledFiles().size();
+    }
+
+    private Set<Path> spooledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.collect(Collectors.toSet());
+        }
+    }
+}
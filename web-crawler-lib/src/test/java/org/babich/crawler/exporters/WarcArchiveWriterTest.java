@@ -0,0 +1,162 @@
+package org.babich.crawler.exporters;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+class WarcArchiveWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenPagesWhenWriteThenArchivesAreRolledBySizeAndIndexed() throws IOException {
+        List<WarcArchiveWriter.Archive> archives = new ArrayList<>();
+        WarcArchiveWriter underTest = new WarcArchiveWriter(directory, "test", 4096, Long.MAX_VALUE, archives::add);
+
+        for (int i = 0; i < 100; i++) {
+            String source = "<html>" + i + StringUtils.repeat(" страница", i) + "</html>";
+            underTest.write("http://localhost/page" + i, "page" + i, 1, source.getBytes(StandardCharsets.UTF_8));
+        }
+        underTest.close();
+
+        //pages are packed to a few archives instead of an object per page
+        Assert.assertTrue(archives.size() > 1);
+        Assert.assertTrue(archives.size() < 20);
+
+        int pages = 0;
+        for (WarcArchiveWriter.Archive archive : archives) {
+            byte[] bytes = Files.readAllBytes(archive.getArchive());
+            for (String line : Files.readAllLines(archive.getIndex(), StandardCharsets.UTF_8)) {
+                String[] fields = line.split(" ");
+                Assert.assertEquals(archive.getArchive().getFileName().toString(), fields[2]);
+
+                //a record is read from its offset without reading the whole archive
+                int offset = Integer.parseInt(fields[3]);
+                int length = Integer.parseInt(fields[4]);
+                String record = IOUtils.toString(new GZIPInputStream(
+                        new ByteArrayInputStream(bytes, offset, length)), StandardCharsets.UTF_8);
+
+                int page = Integer.parseInt(StringUtils.substringAfterLast(fields[0], "page"));
+                Assert.assertTrue(record.startsWith("WARC/1.0\r\n"));
+                Assert.assertTrue(record.contains("WARC-Target-URI: " + fields[0] + "\r\n"));
+                Assert.assertTrue(record.contains("\r\n\r\n<html>" + page + StringUtils.repeat(" страница", page)
+                        + "</html>\r\n\r\n"));
+                pages++;
+            }
+        }
+        Assert.assertEquals(100, pages);
+    }
+
+    @Test
+    void givenOldArchiveWhenWriteThenArchiveIsRolledByAge() throws Exception {
+        List<WarcArchiveWriter.Archive> archives = new ArrayList<>();
+        WarcArchiveWriter underTest = new WarcArchiveWriter(directory, "test", Long.MAX_VALUE, 50, archives::add);
+
+        underTest.write("http://localhost/page1", "page1", 0, "<html/>".getBytes(StandardCharsets.UTF_8));
+        Thread.sleep(100);
+        underTest.write("http://localhost/page2", "page2", 0, "<html/>".getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertEquals(1, archives.size());
+        underTest.close();
+        Assert.assertEquals(2, archives.size());
+    }
+
+    @Test
+    void givenRolledArchiveWhenConsumerIsBusyThenPagesAreWritten() throws Exception {
+        CountDownLatch uploading = new CountDownLatch(1);
+        CountDownLatch uploaded = new CountDownLatch(1);
+        WarcArchiveWriter underTest = new WarcArchiveWriter(directory, "test", 1, Long.MAX_VALUE, archive -> {
+            //only the upload of the first archive is slow
+            if (0 == uploading.getCount()) {
+                return;
+            }
+            uploading.countDown();
+            try {
+                uploaded.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        underTest.write("http://localhost/page1", "page1", 0, "<html/>".getBytes(StandardCharsets.UTF_8));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            //the second page rolls the first archive and waits for its upload
+            Future<Boolean> rolling = executor.submit(() -> underTest.write("http://localhost/page2", "page2", 0
+                    , "<html/>".getBytes(StandardCharsets.UTF_8)));
+            Assert.assertTrue(uploading.await(10, TimeUnit.SECONDS));
+
+            //the writer lock is not held by the upload
+            Assert.assertTrue(underTest.write("http://localhost/page3", "page3", 0
+                    , "<html/>".getBytes(StandardCharsets.UTF_8)));
+            uploaded.countDown();
+            Assert.assertTrue(rolling.get(10, TimeUnit.SECONDS));
+        } finally {
+            uploaded.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenClosedWriterWhenWriteThenPageIsRejected() throws IOException {
+        List<WarcArchiveWriter.Archive> archives = new ArrayList<>();
+        WarcArchiveWriter underTest = new WarcArchiveWriter(directory, "test", Long.MAX_VALUE, Long.MAX_VALUE
+                , archives::add);
+
+        Assert.assertTrue(underTest.write("http://localhost/page1", "page1", 0
+                , "<html/>".getBytes(StandardCharsets.UTF_8)));
+        underTest.close();
+        Assert.assertFalse(underTest.write("http://localhost/page2", "page2", 0
+                , "<html/>".getBytes(StandardCharsets.UTF_8)));
+        underTest.close();
+
+        //no archive is opened after the close
+        Assert.assertEquals(1, archives.size());
+        try (Stream<Path> files = Files.list(directory)) {
+            Assert.assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void givenArchivesOfEarlierRunWhenRollLeftoversThenTheyArePassedToConsumer() throws IOException {
+        WarcArchiveWriter earlierRun = new WarcArchiveWriter(directory, "test", Long.MAX_VALUE, Long.MAX_VALUE
+                , archive -> { });
+        earlierRun.write("http://localhost/page1", "page1", 0, "<html/>".getBytes(StandardCharsets.UTF_8));
+        earlierRun.close();
+        new WarcArchiveWriter(directory, "other", Long.MAX_VALUE, Long.MAX_VALUE, archive -> { })
+                .write("http://localhost/page2", "page2", 0, "<html/>".getBytes(StandardCharsets.UTF_8));
+
+        List<WarcArchiveWriter.Archive> archives = new ArrayList<>();
+        WarcArchiveWriter underTest = new WarcArchiveWriter(directory, "test", Long.MAX_VALUE, Long.MAX_VALUE
+                , archives::add);
+        underTest.write("http://localhost/page3", "page3", 0, "<html/>".getBytes(StandardCharsets.UTF_8));
+        underTest.rollLeftovers();
+
+        //only the archive of the prefix that is left by the earlier run is passed
+        Assert.assertEquals(1, archives.size());
+        List<String> index = Files.readAllLines(archives.get(0).getIndex(), StandardCharsets.UTF_8);
+        Assert.assertEquals(1, index.size());
+        Assert.assertTrue(index.get(0).startsWith("http://localhost/page1 "));
+
+        underTest.close();
+        Assert.assertEquals(2, archives.size());
+    }
+}
@@ -0,0 +1,144 @@
+package org.babich.crawler.fetcher;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.HttpResponseException;
+import org.babich.crawler.configuration.ApplicationConfig.Connection;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PooledHttpPageFetcherTest {
+
+    private static final String PAGE_SOURCE = "<html><body><a href=\"/next\">next</a></body></html>";
+    private static final String CYRILLIC_PAGE_SOURCE = "<html><head><meta charset=\"windows-1251\"></head>"
+            + "<body><a href=\"/next\">\u0414\u0430\u043b\u0435\u0435</a></body></html>";
+
+    HttpServer server;
+    PooledHttpPageFetcher underTest;
+
+    final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    final Set<String> userAgents = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/page", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            userAgents.add(exchange.getRequestHeaders().getFirst("User-Agent"));
+
+            byte[] body = gzip(PAGE_SOURCE);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.createContext("/image", exchange -> respond(exchange, "image/png", new byte[]{(byte) 0x89, 'P', 'N', 'G'}));
+        server.createContext("/large", exchange -> respond(exchange, "text/html"
+                , StringUtils.repeat('x', 10_000).getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/cyrillic", exchange -> respond(exchange, "text/html"
+                , CYRILLIC_PAGE_SOURCE.getBytes(Charset.forName("windows-1251"))));
+        server.createContext("/koi8", exchange -> respond(exchange, "text/html; charset=KOI8-R"
+                , CYRILLIC_PAGE_SOURCE.getBytes(Charset.forName("KOI8-R"))));
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        PageConfig pageConfig = new PageConfig();
+        pageConfig.setUserAgent("test-agent");
+        Connection connection = new Connection();
+        connection.setMaxBodySize(1024);
+        underTest = new PooledHttpPageFetcher(pageConfig, connection);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        underTest.close();
+        server.stop(0);
+    }
+
+    @Test
+    void givenCompressedPageWhenFetchThenDecompressedSourceInResult() throws IOException {
+        Assert.assertEquals(PAGE_SOURCE, underTest.fetch(url("/page")));
+        Assert.assertEquals(1, userAgents.size());
+        Assert.assertTrue(userAgents.contains("test-agent"));
+    }
+
+    @Test
+    void givenSeveralPagesOfSameHostWhenFetchThenConnectionIsReused() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            underTest.fetch(url("/page"));
+        }
+
+        Assert.assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    void givenMissingPageWhenFetchThenExceptionWithStatusCode() {
+        Executable fetch = () -> underTest.fetch(url("/missing"));
+
+        HttpResponseException exception = assertThrows(HttpResponseException.class, fetch);
+        Assert.assertEquals(404, exception.getStatusCode());
+    }
+
+    @Test
+    void givenNotHtmlContentWhenFetchThenUnsupportedMimeTypeException() {
+        Executable fetch = () -> underTest.fetch(url("/image"));
+
+        UnsupportedMimeTypeException exception = assertThrows(UnsupportedMimeTypeException.class, fetch);
+        Assert.assertEquals("image/png", exception.getMimeType());
+    }
+
+    @Test
+    void givenLargePageWhenFetchThenBodyIsTruncatedToMaxSize() throws IOException {
+        Assert.assertEquals(1024, underTest.fetch(url("/large")).length());
+    }
+
+    @Test
+    void givenNoCharsetInContentTypeWhenFetchThenCharsetOfMetaIsUsed() throws IOException {
+        Assert.assertEquals(CYRILLIC_PAGE_SOURCE, underTest.fetch(url("/cyrillic")));
+        //the charset of the header takes precedence over the meta
+        Assert.assertEquals(CYRILLIC_PAGE_SOURCE, underTest.fetch(url("/koi8")));
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,152 @@
+package org.babich.crawler.fetcher;
+
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.configuration.ApplicationConfig.Limit;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.babich.crawler.interceptor.service.PageSourcePreloader;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.babich.crawler.common.TestHelper.createPage;
+
+class PrefetchingPageFetcherTest {
+
+    final Map<String, AtomicInteger> fetchCount = new ConcurrentHashMap<>();
+
+    @Test
+    void givenPrefetchInFlightWhenFetchThenWaitsInsteadOfLoadingAgain() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PrefetchingPageFetcher underTest = new PrefetchingPageFetcher(pageUrl -> {
+            count(pageUrl);
+            started.countDown();
+            awaitQuietly(release);
+            return "source of " + pageUrl;
+        }, 2, 1024L);
+
+        Assert.assertTrue(underTest.prefetch("http://example.com/a"));
+        Assert.assertFalse(underTest.prefetch("http://example.com/a"));
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        new Thread(() -> {
+            sleepQuietly(50);
+            release.countDown();
+        }).start();
+        Assert.assertEquals("source of http://example.com/a", underTest.fetch("http://example.com/a"));
+        Assert.assertEquals(1, fetchCount.get("http://example.com/a").get());
+        Assert.assertEquals(0, underTest.size());
+
+        //the taken page is loaded by the delegate
+        Assert.assertEquals("source of http://example.com/a", underTest.fetch("http://example.com/a"));
+        Assert.assertEquals(2, fetchCount.get("http://example.com/a").get());
+    }
+
+    @Test
+    void givenClosedFetcherWhenPrefetchThenItIsNotIssuedAndDelegateIsClosed() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        PooledHttpPageFetcher delegate = new PooledHttpPageFetcher() {
+            @Override
+            public void close() throws IOException {
+                closed.incrementAndGet();
+                super.close();
+            }
+        };
+        PrefetchingPageFetcher underTest = new PrefetchingPageFetcher(delegate, 1, 1024L);
+
+        underTest.close();
+
+        Assert.assertEquals(1, closed.get());
+        Assert.assertFalse(underTest.prefetch("http://example.com/a"));
+        Assert.assertEquals(0, underTest.size());
+    }
+
+    @Test
+    void givenBudgetExceededWhenPrefetchThenOldestSourcesAreEvicted() throws Exception {
+        //every source takes 2 * 100 + 1 bytes, so the budget fits 2 of them
+        PrefetchingPageFetcher underTest = new PrefetchingPageFetcher(pageUrl -> {
+            count(pageUrl);
+            return StringUtils.repeat('x', 100);
+        }, 1, 450L);
+
+        for (int i = 0; i < 5; i++) {
+            underTest.prefetch("http://example.com/" + i);
+            awaitLoaded(underTest, Math.min(i + 1, 2));
+        }
+
+        Assert.assertTrue(underTest.getLoadedBytes() <= 450);
+        Assert.assertEquals(2, underTest.size());
+        //the latest pages are cached, the evicted ones are loaded again
+        Assert.assertTrue(underTest.take("http://example.com/4").isPresent());
+        Assert.assertFalse(underTest.take("http://example.com/0").isPresent());
+    }
+
+    @Test
+    void givenPreloaderWhenSuccessorsProcessedThenOnlyAllowedDepthIsPrefetchedAndSourceIsSetBeforeProcessing()
+            throws Exception {
+        PrefetchingPageFetcher fetcher = new PrefetchingPageFetcher(pageUrl -> {
+            count(pageUrl);
+            return "source of " + pageUrl;
+        }, 2, 1024L * 1024);
+        PageConfig pageConfig = new PageConfig();
+        pageConfig.setPreLoad(true);
+        Limit limit = new Limit();
+        limit.setMaxDepth(1);
+        PageSourcePreloader preloader = new PageSourcePreloader(pageConfig, 2, fetcher, limit);
+
+        Page landingPage = createPage("http://example.com/");
+        List<Page> successorPages = new ArrayList<>(Arrays.asList(createPage("http://example.com/1")
+                , createPage("http://example.com/2")));
+        preloader.afterProcessing(landingPage, successorPages);
+
+        Page successorPage = successorPages.get(0);
+        successorPage.setDepth(1);
+        preloader.beforeProcessing(successorPage);
+        Assert.assertEquals("source of http://example.com/1", successorPage.getPageSource());
+        Assert.assertEquals("source of http://example.com/1", fetcher.fetch("http://example.com/1"));
+
+        //the successors of the page at the maximum depth would be filtered, so they are not prefetched
+        preloader.afterProcessing(successorPage, new ArrayList<>(Arrays.asList(createPage("http://example.com/3"))));
+        Assert.assertNull(fetchCount.get("http://example.com/3"));
+        Assert.assertEquals("source of http://example.com/2", fetcher.fetch("http://example.com/2"));
+        Assert.assertEquals(1, fetchCount.get("http://example.com/2").get());
+    }
+
+    private void count(String pageUrl) {
+        fetchCount.computeIfAbsent(pageUrl, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static void awaitLoaded(PrefetchingPageFetcher fetcher, int count) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((fetcher.size() != count || fetcher.getLoadedBytes() != count * 201L)
+                && System.currentTimeMillis() < deadline) {
+            sleepQuietly(1);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.babich.crawler.interceptor;
+
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageProcessing;
+import org.babich.crawler.api.messages.CrawlerStopped;
+import org.babich.crawler.api.messages.SuccessorsProcessingComplete;
+import org.babich.crawler.configuration.ApplicationConfig.Limit;
+import org.babich.crawler.configuration.ProxyFactory;
+import org.babich.crawler.event.LocalEventBus;
+import org.babich.crawler.interceptor.filter.MaximumDepthFilter;
+import org.junit.Assert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.babich.crawler.common.TestHelper.createPage;
+
+class SuccessorsMessageProducerTest {
+
+    LocalEventBus eventBus;
+    SuccessorsMessageProducer underTest;
+
+    @BeforeEach
+    public void setup() {
+        eventBus = Mockito.mock(LocalEventBus.class);
+        underTest = new SuccessorsMessageProducer(eventBus);
+    }
+
+    @Test
+    void givenPageWithSuccessorsWhenLastSuccessorIsProcessedThenMessageIsPosted() {
+        underTest.afterProcessing(createPage("http://example.com/a")
+                , createPages("http://example.com/b", "http://example.com/c"));
+        underTest.afterProcessing(createPage("http://example.com/b"), createPages("http://example.com/d"));
+        Mockito.verify(eventBus, Mockito.never()).post(Mockito.any());
+
+        underTest.afterProcessing(createPage("http://example.com/c"), Collections.emptyList());
+        underTest.afterProcessing(createPage("http://example.com/d"), Collections.emptyList());
+
+        Assert.assertEquals(Arrays.asList("http://example.com/a", "http://example.com/b"), postedUrls());
+        //the completed pages are not retained
+        Assert.assertEquals(0, underTest.getPendingCount());
+    }
+
+    @Test
+    void givenSuccessorOfSeveralPagesWhenProcessedThenEveryParentIsCompleted() {
+        underTest.afterProcessing(createPage("http://example.com/a"), createPages("http://example.com/c"));
+        underTest.afterProcessing(createPage("http://example.com/b")
+                , createPages("http://example.com/c", "http://example.com/d"));
+
+        underTest.afterProcessing(createPage("http://example.com/c"), Collections.emptyList());
+        Assert.assertEquals(Collections.singletonList("http://example.com/a"), postedUrls());
+        Assert.assertEquals(1, underTest.getPendingCount());
+
+        underTest.afterProcessing(createPage("http://example.com/d"), Collections.emptyList());
+        Assert.assertEquals(Arrays.asList("http://example.com/a", "http://example.com/b"), postedUrls());
+        Assert.assertEquals(0, underTest.getPendingCount());
+    }
+
+    @Test
+    void givenSkippedAndFailedSuccessorsWhenProcessedThenParentIsCompleted() {
+        Limit limit = new Limit();
+        limit.setMaxDepth(1);
+        PageProcessing processing = page -> {
+            if (page.getPageUrl().endsWith("/failed")) {
+                throw new IllegalStateException("Unable to fetch " + page.getPageUrl());
+            }
+            if (!page.getPageUrl().endsWith("/a")) {
+                return new ArrayList<>();
+            }
+            List<Page> successorPages = createPages("http://example.com/b", "http://example.com/deep"
+                    , "http://example.com/failed");
+            successorPages.forEach(successorPage -> successorPage.setDepth(1));
+            successorPages.get(1).setDepth(2);
+            return successorPages;
+        };
+        PageProcessing chain = ProxyFactory.configureProcessingProxy(processing
+                , Arrays.asList(underTest, new MaximumDepthFilter(limit, null)));
+
+        List<Page> successorPages = new ArrayList<>();
+        chain.process(createPage("http://example.com/a")).forEach(successorPages::add);
+        Assert.assertEquals(1, underTest.getPendingCount());
+
+        //the deep successor is skipped by the filter and the last one fails
+        Assert.assertFalse(chain.process(successorPages.get(1)).iterator().hasNext());
+        Assert.assertThrows(IllegalStateException.class, () -> chain.process(successorPages.get(2)));
+        Assert.assertEquals(1, underTest.getPendingCount());
+
+        chain.process(successorPages.get(0));
+        Assert.assertEquals(Collections.singletonList("http://example.com/a"), postedUrls());
+        Assert.assertEquals(0, underTest.getPendingCount());
+    }
+
+    @Test
+    void givenUnprocessedSuccessorsWhenCrawlerIsStoppedThenPendingPagesAreDropped() {
+        underTest.afterProcessing(createPage("http://example.com/a")
+                , createPages("http://example.com/b", "http://example.com/c"));
+        Assert.assertEquals(1, underTest.getPendingCount());
+
+        underTest.onStop(new CrawlerStopped("test"));
+
+        Assert.assertEquals(0, underTest.getPendingCount());
+        underTest.afterProcessing(createPage("http://example.com/b"), Collections.emptyList());
+        Mockito.verify(eventBus, Mockito.never()).post(Mockito.any());
+    }
+
+    private List<String> postedUrls() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(eventBus, Mockito.atLeastOnce()).post(captor.capture());
+        return captor.getAllValues().stream()
+                .map(message -> ((SuccessorsProcessingComplete) message).getPage().getPageUrl())
+                .collect(Collectors.toList());
+    }
+
+    private static List<Page> createPages(String... urls) {
+        List<Page> pages = new ArrayList<>();
+        for (String url : urls) {
+            pages.add(createPage(url));
+        }
+        return pages;
+    }
+}
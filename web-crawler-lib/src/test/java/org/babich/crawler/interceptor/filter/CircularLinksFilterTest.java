@@ -0,0 +1,117 @@
+package org.babich.crawler.interceptor.filter;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.messages.PageRecovered;
+import org.babich.crawler.common.TestHelper;
+import org.babich.crawler.configuration.ApplicationConfig.Limit;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.babich.crawler.common.TestHelper.createPage;
+
+class CircularLinksFilterTest {
+
+    SimpleMeterRegistry registry;
+    CircularLinksFilter underTest;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        underTest = new CircularLinksFilter(null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void givenDuplicateSuccessorsWhenAfterProcessingThenEveryUrlIsQueuedOnce() {
+        List<Page> successorPages = createPages("http://example.com/b", "http://example.com/c"
+                , "http://example.com/b", "http://example.com/a");
+        underTest.afterProcessing(createPage("http://example.com/a"), successorPages);
+
+        Assert.assertEquals(Arrays.asList("http://example.com/b", "http://example.com/c"), toUrls(successorPages));
+
+        successorPages = createPages("http://example.com/c", "http://example.com/d");
+        underTest.afterProcessing(createPage("http://example.com/b"), successorPages);
+
+        Assert.assertEquals(Arrays.asList("http://example.com/d"), toUrls(successorPages));
+        Assert.assertEquals(3.0, registry.counter("crawler.processing.page.duplicate.count").count(), 0);
+    }
+
+    @Test
+    void givenRecoveredPagesWhenAfterProcessingThenRecoveredUrlsAreNotQueued() {
+        underTest.pageOnRecovered(new PageRecovered(createPage("http://example.com/b"), true));
+        underTest.pageOnRecovered(new PageRecovered(createPage("http://example.com/c")));
+
+        List<Page> successorPages = createPages("http://example.com/b", "http://example.com/c"
+                , "http://example.com/d");
+        underTest.afterProcessing(createPage("http://example.com/a"), successorPages);
+
+        Assert.assertEquals(Arrays.asList("http://example.com/d"), toUrls(successorPages));
+    }
+
+    @Test
+    void givenDepthTraversalWhenUrlIsFoundBeyondMaxDepthFirstThenItIsCrawledFromShallowerPath() {
+        Map<String, List<String>> links = new HashMap<>();
+        links.put("http://example.com/", Arrays.asList("http://example.com/b", "http://example.com/d"));
+        links.put("http://example.com/d", Collections.singletonList("http://example.com/e"));
+        links.put("http://example.com/e", Collections.singletonList("http://example.com/x"));
+        links.put("http://example.com/b", Arrays.asList("http://example.com/x", "http://example.com/e"));
+        MaximumDepthFilter depthFilter = new MaximumDepthFilter(limit(2), null);
+
+        //the last found page is processed first like the DEPTH traversal does
+        List<String> crawled = new ArrayList<>();
+        Deque<Page> stack = new ArrayDeque<>(Collections.singleton(createPage("http://example.com/")));
+        while (!stack.isEmpty()) {
+            Page page = stack.pop();
+            if (depthFilter.decide(page).isSkipped() || underTest.decide(page).isSkipped()) {
+                continue;
+            }
+            crawled.add(page.getPageUrl() + "@" + page.getDepth());
+
+            List<Page> successorPages = createPages(links.getOrDefault(page.getPageUrl(), Collections.emptyList())
+                    .toArray(new String[0]));
+            underTest.afterProcessing(page, successorPages);
+            successorPages.forEach(successorPage -> {
+                successorPage.setDepth(page.getDepth() + 1);
+                stack.push(successorPage);
+            });
+        }
+
+        Assert.assertEquals(Arrays.asList("http://example.com/@0", "http://example.com/d@1", "http://example.com/e@2"
+                , "http://example.com/b@1", "http://example.com/x@2"), crawled);
+    }
+
+    private static Limit limit(int maxDepth) {
+        Limit limit = new Limit();
+        limit.setMaxDepth(maxDepth);
+        return limit;
+    }
+
+    private static List<Page> createPages(String... pageUrls) {
+        return Arrays.stream(pageUrls)
+                .map(TestHelper::createPage)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static List<String> toUrls(List<Page> pages) {
+        return pages.stream().map(Page::getPageUrl).collect(Collectors.toList());
+    }
+}
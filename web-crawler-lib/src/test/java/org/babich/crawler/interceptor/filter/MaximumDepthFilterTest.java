@@ -0,0 +1,28 @@
+package org.babich.crawler.interceptor.filter;
+
+import org.babich.crawler.api.FilterDecision;
+import org.babich.crawler.configuration.ApplicationConfig.Limit;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import static org.babich.crawler.common.TestHelper.createPage;
+
+class MaximumDepthFilterTest {
+
+    @Test
+    void givenDeepPageWhenDecideThenSkippedWithoutException() {
+        MaximumDepthFilter underTest = new MaximumDepthFilter(limit(1), null);
+
+        FilterDecision decision = underTest.decide(createPage("http://example.com/deep", 2));
+
+        Assert.assertTrue(decision.isSkipped());
+        Assert.assertTrue(decision.getReason().contains("http://example.com/deep"));
+        Assert.assertFalse(underTest.decide(createPage("http://example.com/", 1)).isSkipped());
+    }
+
+    private static Limit limit(int maxDepth) {
+        Limit limit = new Limit();
+        limit.setMaxDepth(maxDepth);
+        return limit;
+    }
+}
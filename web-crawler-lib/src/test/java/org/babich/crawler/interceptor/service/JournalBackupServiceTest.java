@@ -0,0 +1,224 @@
+package org.babich.crawler.interceptor.service;
+
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.PageProcessing;
+import org.babich.crawler.api.messages.CrawlerStopped;
+import org.babich.crawler.api.messages.PageRecovered;
+import org.babich.crawler.common.TestHelper;
+import org.babich.crawler.configuration.ApplicationConfig.Journal;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.babich.crawler.configuration.ProxyFactory;
+import org.babich.crawler.event.LocalEventBus;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+class JournalBackupServiceTest {
+
+    final PageContext context = Mockito.mock(PageContext.class);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenHardCrashWhenRestoreThenFoundPagesThatAreNotProcessedAreReturned() throws IOException {
+        JournalBackupService crashed = new JournalBackupService(null, journal(3, 1000));
+        crashed.afterProcessing(createPage("a", 0), createPages(1, "b", "c"));
+        crashed.afterProcessing(createPage("b", 1), createPages(2, "c", "d"));
+        //the last batch is not written yet
+        crashed.afterProcessing(createPage("c", 1), createPages(2, "e"));
+        crashed.awaitWriter();
+
+        //torn record at the end of the journal
+        Files.write(directory.resolve("journal.log"), new byte[]{0, 0, 0, 20, 1, 2}, StandardOpenOption.APPEND);
+
+        LocalEventBus eventBus = Mockito.mock(LocalEventBus.class);
+        JournalBackupService underTest = new JournalBackupService(eventBus, journal(3, 1000));
+        Collection<Page> startPages = underTest.restoreFor(context);
+
+        Assert.assertEquals(Arrays.asList("c", "d"), toNames(startPages));
+        Page page = startPages.stream().filter(item -> "d".equals(item.getPageName())).findFirst().get();
+        Assert.assertEquals("test_crawler", page.getCrawlerName());
+        Assert.assertEquals("http://example.com/d", page.getPageUrl());
+        Assert.assertEquals(2, page.getDepth());
+
+        ArgumentCaptor<PageRecovered> messages = ArgumentCaptor.forClass(PageRecovered.class);
+        Mockito.verify(eventBus, Mockito.times(4)).post(messages.capture());
+        Assert.assertEquals(Arrays.asList("a", "b"), messages.getAllValues().stream()
+                .filter(PageRecovered::isProcessed)
+                .map(message -> message.getPage().getPageName())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void givenSlowWriterWhenPagesAreProcessedThenOnlyOneBatchIsNotWritten() throws Exception {
+        JournalBackupService underTest = new JournalBackupService(null, journal(2, 1000));
+        CountDownLatch resume = new CountDownLatch(1);
+        underTest.submitToWriter(() -> {
+            try {
+                resume.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        AtomicInteger processed = new AtomicInteger();
+        Thread processing = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                underTest.afterProcessing(createPage("page_" + i, 0), new ArrayList<>());
+                processed.incrementAndGet();
+            }
+        });
+        processing.start();
+        Thread.sleep(200);
+
+        //the first batch waits for the writer, the processing waits for the first batch
+        //before the second one is handed off, so a crash loses at most two batches
+        Assert.assertEquals(3, processed.get());
+        Assert.assertFalse(Files.exists(directory.resolve("journal.log")));
+
+        resume.countDown();
+        processing.join(10_000);
+        Assert.assertEquals(20, processed.get());
+        underTest.awaitWriter();
+
+        //every page is journaled once the writer is resumed
+        LocalEventBus eventBus = Mockito.mock(LocalEventBus.class);
+        new JournalBackupService(eventBus, journal(2, 1000)).restoreFor(context);
+        Mockito.verify(eventBus, Mockito.times(20)).post(Mockito.any(PageRecovered.class));
+    }
+
+    @Test
+    void givenSnapshotIntervalWhenJournalIsCompactedThenStateIsKept() {
+        JournalBackupService crashed = new JournalBackupService(null, journal(1, 10));
+        for (int i = 1; i < 30; i++) {
+            crashed.afterProcessing(createPage("page_" + (i - 1), 0), createPages(1, "page_" + i, "page_" + i));
+        }
+        crashed.awaitWriter();
+
+        Assert.assertTrue(Files.exists(directory.resolve("snapshot.log")));
+
+        JournalBackupService underTest = new JournalBackupService(Mockito.mock(LocalEventBus.class)
+                , journal(1, 10));
+        Assert.assertEquals(Arrays.asList("page_29"), toNames(underTest.restoreFor(context)));
+    }
+
+    @Test
+    void givenNormalStopWhenRestoreThenNothingIsRestored() {
+        JournalBackupService underTest = new JournalBackupService(null, journal(1, 1000));
+        underTest.afterProcessing(createPage("a", 0), createPages(1, "b"));
+        underTest.onStopCrawler(new CrawlerStopped("test_crawler"));
+
+        Assert.assertTrue(new JournalBackupService(null, journal(1, 1000)).restoreFor(context).isEmpty());
+    }
+
+    @Test
+    void givenInterceptorChainWhenPageIsProcessedThenSuccessorsAreJournaledWithDepthAndName() {
+        PageConfig pageConfig = new PageConfig();
+        pageConfig.setPageNamePattern("page_${number}");
+        JournalBackupService crashed = new JournalBackupService(null, journal(100, 1000));
+        PageProcessing processing = ProxyFactory.configureProcessingProxy(
+                page -> Arrays.asList(new Page(page.getPageContextRef(), page.getCrawlerName()
+                                , "http://example.com/b", StringUtils.EMPTY)
+                        , new Page(page.getPageContextRef(), page.getCrawlerName()
+                                , "http://example.com/c", StringUtils.EMPTY))
+                , Arrays.asList(crashed, new SuccessorPagesPostProcessing(pageConfig)));
+
+        Page landingPage = new Page(new AtomicReference<>(new PageContext.Builder().build()), "test_crawler"
+                , "http://example.com/a", "a");
+        landingPage.setDepth(2);
+        processing.process(landingPage);
+        crashed.backup();
+
+        Collection<Page> startPages = new JournalBackupService(Mockito.mock(LocalEventBus.class), journal(100, 1000))
+                .restoreFor(context);
+        Assert.assertEquals(Arrays.asList("page_0", "page_1"), toNames(startPages));
+        Assert.assertTrue(startPages.stream().allMatch(page -> 3 == page.getDepth()));
+    }
+
+    @Test
+    void givenJournalOfFormerVersionWhenRestoreThenPagesAreRestored() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(0x434A524E);
+        output.writeByte(1);
+        output.writeUTF("test_crawler");
+        writeLegacyRecord(output, 1, 0, "a");
+        writeLegacyRecord(output, 2, 1, "a");
+        writeLegacyRecord(output, 2, 1, "b");
+        Files.write(directory.resolve("journal.log"), bytes.toByteArray());
+
+        Collection<Page> startPages = new JournalBackupService(Mockito.mock(LocalEventBus.class), journal(3, 1000))
+                .restoreFor(context);
+
+        Assert.assertEquals(Arrays.asList("b"), toNames(startPages));
+        Page page = startPages.iterator().next();
+        Assert.assertEquals("http://example.com/b", page.getPageUrl());
+        Assert.assertEquals(1, page.getDepth());
+        Assert.assertSame(context, page.getPageContextRef().get());
+    }
+
+    private static void writeLegacyRecord(DataOutputStream output, int type, int depth, String name)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeByte(type);
+        record.writeInt(depth);
+        for (String value : new String[]{"http://example.com/" + name, name}) {
+            byte[] chars = value.getBytes(StandardCharsets.UTF_8);
+            record.writeInt(chars.length);
+            record.write(chars);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        output.writeInt(bytes.size());
+        output.writeInt((int) crc.getValue());
+        output.write(bytes.toByteArray());
+    }
+
+    private Journal journal(int batchSize, long snapshotInterval) {
+        Journal journal = new Journal();
+        journal.setPath(directory.toString());
+        journal.setBatchSize(batchSize);
+        journal.setSnapshotInterval(snapshotInterval);
+        journal.setCapacity(1000);
+        return journal;
+    }
+
+    private List<Page> createPages(int depth, String... names) {
+        return Arrays.stream(names)
+                .map(name -> createPage(name, depth))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private Page createPage(String name, int depth) {
+        return TestHelper.createPage(context, "http://example.com/" + name, name, depth);
+    }
+
+    private static List<String> toNames(Collection<Page> pages) {
+        return pages.stream().map(Page::getPageName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,63 @@
+package org.babich.crawler.interceptor.service;
+
+import org.babich.crawler.api.Page;
+import org.babich.crawler.configuration.ApplicationConfig.Delay;
+import org.junit.Assert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.babich.crawler.common.TestHelper.createPage;
+
+class PageProcessingDelayTest {
+
+    PageProcessingDelay underTest;
+
+    @BeforeEach
+    public void setup() {
+        underTest = new PageProcessingDelay(delay(10_000));
+    }
+
+    @Test
+    void givenFetchedPageWhenPageOfSameHostAcquiredThenItWaitsForDelay() {
+        Page page = createPage("http://example.com/a");
+        Assert.assertEquals(0, underTest.tryAcquire(page));
+        underTest.beforeProcessing(page);
+        Assert.assertFalse(underTest.release(page));
+
+        long waitMs = underTest.tryAcquire(createPage("http://example.com/b"));
+        Assert.assertTrue("wait " + waitMs + " ms", waitMs > 9_000 && waitMs <= 10_000);
+        Assert.assertEquals(0, underTest.tryAcquire(createPage("http://other.com/a")));
+    }
+
+    @Test
+    void givenSkippedPageWhenReleasedThenHostIsAvailable() {
+        //the page is skipped by a filter, so the interceptor is not called for it
+        Page skippedPage = createPage("http://example.com/skipped");
+        Assert.assertEquals(0, underTest.tryAcquire(skippedPage));
+        Assert.assertTrue(underTest.release(skippedPage));
+
+        Assert.assertEquals(0, underTest.tryAcquire(createPage("http://example.com/a")));
+    }
+
+    @Test
+    void givenWaitingPagesWhenReleasedThenTheyAreForgotten() {
+        Page page = createPage("http://example.com/a");
+        underTest.tryAcquire(page);
+        underTest.beforeProcessing(page);
+
+        Page waitingPage = createPage("http://example.com/b");
+        Assert.assertTrue(underTest.tryAcquire(waitingPage) > 0);
+        Assert.assertTrue(underTest.tryAcquire(waitingPage) > 0);
+        Assert.assertEquals(1, underTest.getWaitingPageCount());
+
+        underTest.release(waitingPage);
+        Assert.assertEquals(0, underTest.getWaitingPageCount());
+    }
+
+    private static Delay delay(int delayMs) {
+        Delay delay = new Delay();
+        delay.setMin(delayMs);
+        delay.setMax(delayMs);
+        return delay;
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.net.URI;
 import java.util.concurrent.atomic.AtomicReference;
 
 class PageUrlNormalizerTest {
@@ -95,5 +96,13 @@ class PageUrlNormalizerTest {
         Assert.assertEquals("http://example.com/display", page.getPageUrl());
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    void givenUriWhenDeprecatedNormalizationThenSameUrlAsForString(){
+        URI uri = URI.create("HTTP://Example.com:80/foo/./bar?b=2&a=1#section1");
+
+        Assert.assertEquals(underTest.normalize(uri.toString()), underTest.normalize(uri));
+        Assert.assertEquals("http://example.com/foo/bar?a=1&b=2", underTest.normalize(uri));
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package org.babich.crawler.interceptor.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import org.babich.crawler.api.CrawlStatistics;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+class SuccessorPagesPostProcessingTest {
+
+    @Test
+    void givenCopiedAndTransformedContextsWhenPagesProcessedConcurrentlyThenCrawlStatisticsAreExact() throws Exception {
+        CrawlStatistics statistics = new CrawlStatistics();
+        PageContext pageContext = new PageContext.Builder().statistics(statistics).build();
+        Page landingPage = new Page(new AtomicReference<>(pageContext), "test", "http://example.com", "landing");
+
+        //the copies of the page and the transformed contexts share the crawl statistics
+        List<Page> pages = Arrays.asList(landingPage, new Page(landingPage)
+                , new Page(new AtomicReference<>(pageContext.transform(builder -> {
+                })), "test", "http://example.com/other", "other"));
+        pages.forEach(page -> page.setSize(10));
+
+        SuccessorPagesPostProcessing postProcessing = new SuccessorPagesPostProcessing(new PageConfig());
+        int threads = 4;
+        int iterations = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Page page = pages.get(i % pages.size());
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < iterations; j++) {
+                        postProcessing.updateStatistic(page, 2);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long processed = (long) threads * iterations;
+        Assert.assertEquals(processed, statistics.getProcessed());
+        Assert.assertEquals(processed * 2, statistics.getDiscovered());
+        Assert.assertEquals(processed * 10, statistics.getBytes());
+        Assert.assertEquals(processed, pages.get(1).getPageContextRef().get().getPagesProcessed());
+        Assert.assertSame(pageContext, landingPage.getPageContextRef().get());
+    }
+
+    @Test
+    void givenRestoredCountersWhenRestoreThenStatisticsContinueFromThem() {
+        CrawlStatistics statistics = new CrawlStatistics();
+        statistics.pageProcessed(100, 3);
+
+        statistics.restore(new PageContext.Builder().pageCount(20).pagesProcessed(7).build().getStatistics());
+        Assert.assertEquals(7, statistics.getProcessed());
+        Assert.assertEquals(20, statistics.getDiscovered());
+
+        //the counters are never decreased
+        statistics.restore(new CrawlStatistics(2, 5));
+        Assert.assertEquals(7, statistics.getProcessed());
+        Assert.assertEquals(20, statistics.getDiscovered());
+    }
+}
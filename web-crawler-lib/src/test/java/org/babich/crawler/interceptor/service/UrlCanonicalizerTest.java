@@ -0,0 +1,108 @@
+package org.babich.crawler.interceptor.service;
+
+import java.util.Random;
+import org.babich.crawler.common.UriUrlNormalizer;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+class UrlCanonicalizerTest {
+
+    static final String[] schemes = {"http", "HTTP", "https", "Https"};
+    static final String[] users = {"", "user@", "User:Secret@"};
+    static final String[] hosts = {"example.com", "Example.COM", "www.wiki-site.org", "127.0.0.1"};
+    static final String[] segments = {"a", "B", "wiki", "index.html", ".", "..", "", "...", "%7Euser", "Page_(x)"};
+    static final String[] parameters = {"a=1", "b=2", "lang=en", "A=z", "x", "article=fred", "a=10"};
+    static final String[] fragments = {"", "#section1", "#a/b?c"};
+
+    final UrlCanonicalizer underTest = new UrlCanonicalizer();
+    final UriUrlNormalizer reference = new UriUrlNormalizer();
+
+    @Test
+    void givenGeneratedUrlsWhenCanonicalizedThenResultIsTheSameAsOfUriNormalization() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            String url = randomUrl(random);
+            Assert.assertEquals(url, reference.normalize(url), underTest.canonicalize(url));
+        }
+    }
+
+    @Test
+    void givenCanonicalUrlWhenCanonicalizedThenSameInstanceIsReturned() {
+        String url = "https://en.wikipedia.org/wiki/Web_crawler?action=edit&section=1";
+        Assert.assertSame(url, underTest.canonicalize(url));
+        Assert.assertEquals("https://en.wikipedia.org/wiki/Web_crawler?action=edit&section=1"
+                , underTest.canonicalize("HTTPS://en.Wikipedia.org/wiki/./Web_crawler?section=1&action=edit#top"));
+    }
+
+    @Test
+    void givenOptionalRulesWhenCanonicalizedThenEncodingAndHttpsPortAreNormalized() {
+        UrlCanonicalizer canonicalizer = new UrlCanonicalizer(true, true);
+
+        Assert.assertEquals("https://example.com/~user/a%2Fb?q=%C3%A9"
+                , canonicalizer.canonicalize("https://example.com:443/%7euser/a%2fb?q=%c3%a9"));
+        Assert.assertEquals("http://example.com:443/"
+                , canonicalizer.canonicalize("http://example.com:443/"));
+        Assert.assertEquals("https://example.com:443/"
+                , underTest.canonicalize("https://example.com:443/"));
+    }
+
+    /**
+     * the former normalization has quirks that are not kept
+     */
+    @Test
+    void givenUrlsWithQuirksOfUriNormalizationWhenCanonicalizedThenTheyAreFixed() {
+        //the empty fragment is removed
+        Assert.assertEquals("http://example.com/a", underTest.canonicalize("http://example.com/a#"));
+        //the escapes of the query are not decoded while the parameters are sorted
+        Assert.assertEquals("http://example.com/?a=%26b&c=d", underTest.canonicalize("http://example.com/?c=d&a=%26b"));
+        //the empty parameters are removed
+        Assert.assertEquals("http://example.com/?a=1&b=2", underTest.canonicalize("http://example.com/?b=2&&a=1&"));
+        //the port 80 is the default one only for the http scheme
+        Assert.assertEquals("https://example.com:80/", underTest.canonicalize("https://example.com:80/"));
+    }
+
+    @Test
+    void givenInvalidUrlWhenCanonicalizedThenNullIsReturned() {
+        Assert.assertNull(underTest.canonicalize("http://example.com/a b"));
+        Assert.assertNull(underTest.canonicalize("http://example.com/%zz"));
+        Assert.assertNull(underTest.canonicalize("http://example.com/{page}"));
+        Assert.assertNull(reference.normalize("http://example.com/{page}"));
+    }
+
+    private static String randomUrl(Random random) {
+        StringBuilder url = new StringBuilder();
+        String scheme = pick(random, schemes);
+        url.append(scheme).append("://").append(pick(random, users)).append(pick(random, hosts));
+
+        int port = random.nextInt(4);
+        if (1 == port && scheme.equalsIgnoreCase("http")) {
+            url.append(":80");
+        } else if (2 == port) {
+            url.append(":8080");
+        }
+
+        int depth = random.nextInt(6);
+        for (int i = 0; i < depth; i++) {
+            url.append('/').append(pick(random, segments));
+        }
+        if (random.nextBoolean()) {
+            url.append('/');
+        }
+
+        int query = random.nextInt(5);
+        if (1 == query) {
+            url.append('?');
+        } else if (query > 1) {
+            url.append('?');
+            for (int i = 0; i < query; i++) {
+                url.append(0 == i ? "" : "&").append(pick(random, parameters));
+            }
+        }
+
+        return url.append(pick(random, fragments)).toString();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
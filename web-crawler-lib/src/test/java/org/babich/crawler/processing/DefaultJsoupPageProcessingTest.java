@@ -0,0 +1,119 @@
+package org.babich.crawler.processing;
+
+import com.sun.net.httpserver.HttpServer;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.configuration.ApplicationConfig.PageConfig;
+import org.junit.Assert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.babich.crawler.common.TestHelper.createPage;
+import static org.babich.crawler.common.TestHelper.createPageWithSource;
+
+class DefaultJsoupPageProcessingTest {
+
+    DefaultJsoupPageProcessing underTest;
+
+    @BeforeEach
+    public void setup() {
+        underTest = new DefaultJsoupPageProcessing(pageUrl -> {
+            throw new AssertionError("The page source must not be loaded.");
+        });
+    }
+
+    @Test
+    void givenPageSourceWhenProcessingThenLinksOfSameHostInResult() {
+        Page page = createPageWithSource("http://example.com/index.html"
+                , "<a href='/a.html'>a</a><a href='b.html'>b</a><a href='http://other.com/c.html'>c</a>");
+
+        Assert.assertEquals(toSet("http://example.com/a.html", "http://example.com/b.html"), successorLinks(page));
+    }
+
+    @Test
+    void givenSingleInstanceWhenProcessingConcurrentlyThenEveryPageGetsItsOwnLinks() throws Exception {
+        int threads = 8;
+        int pagesPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < pagesPerThread; j++) {
+                        String link = "http://example.com/" + thread + "/" + j + ".html";
+                        Page page = createPageWithSource("http://example.com/index.html"
+                                , "<a href='" + link + "'>link</a>");
+                        if (!Collections.singleton(link).equals(successorLinks(page))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            start.countDown();
+
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenPageConfigWhenPageIsLoadedThenConfiguredUserAgentIsSent() throws IOException {
+        Set<String> userAgents = ConcurrentHashMap.newKeySet();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/index.html", exchange -> {
+            userAgents.add(exchange.getRequestHeaders().getFirst("User-Agent"));
+            byte[] body = "<a href='/a.html'>a</a>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        try {
+            PageConfig pageConfig = new PageConfig();
+            pageConfig.setUserAgent("test-agent");
+            underTest = new DefaultJsoupPageProcessing(pageConfig);
+
+            String host = "http://localhost:" + server.getAddress().getPort();
+            Assert.assertEquals(toSet(host + "/a.html"), successorLinks(createPage(host + "/index.html")));
+            Assert.assertEquals(Collections.singleton("test-agent"), userAgents);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private Set<String> successorLinks(Page page) {
+        return StreamSupport.stream(underTest.process(page).spliterator(), false)
+                .map(Page::getPageUrl)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> toSet(String... links) {
+        return Stream.of(links).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,124 @@
+package org.babich.crawler.processing;
+
+import org.apache.commons.io.IOUtils;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.interceptor.service.UrlCanonicalizer;
+import org.jsoup.Jsoup;
+import org.junit.Assert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.babich.crawler.common.TestHelper.createPageWithSource;
+
+class StreamingLinkPageProcessingTest {
+
+    final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+
+    StreamingLinkPageProcessing underTest;
+
+    @BeforeEach
+    public void setup() {
+        underTest = new StreamingLinkPageProcessing(pageUrl -> {
+            throw new AssertionError("The page source must not be loaded.");
+        });
+    }
+
+    @Test
+    void givenRealPagesWhenProcessingThenLinksAreTheSameAsOfJsoupDocument() throws IOException {
+        assertSameLinksAsJsoup("https://en.wikipedia.org/wiki/Web_crawler", readPage("wiki-article.html"));
+        assertSameLinksAsJsoup("https://shop.example.com/shop/catalog/index.html?page=2"
+                , readPage("catalog-listing.html"));
+    }
+
+    @Test
+    void givenPageSourceWhenProcessingThenLinksOfSameHostInResult() {
+        Page page = createPageWithSource("http://example.com/dir/index.html"
+                , "<a href='/a.html'>a</a><a href=b.html>b</a><a href='http://other.com/c.html'>c</a>"
+                        + "<a href=\"HTTP://Example.COM/d.html\">d</a><a href='mailto:me@example.com'>e</a>");
+
+        Assert.assertEquals(Arrays.asList("http://example.com/a.html", "http://example.com/dir/b.html"
+                , "HTTP://Example.COM/d.html"), successorLinks(page));
+    }
+
+    @Test
+    void givenLinksOutOfAnchorsWhenProcessingThenCanonicalNextAndRefreshLinksInResult() {
+        Page page = createPageWithSource("http://example.com/list/page1.html"
+                , "<head><base href='/catalog/'><link rel='stylesheet' href='/style.css'>"
+                        + "<link rel='Canonical' href='page1.html'><link href='page2.html' rel='prefetch next'>"
+                        + "<meta http-equiv='Refresh' content=\"30; URL='/catalog/latest.html'\">"
+                        + "<script>var link = '<a href=\"/script.html\">';</script></head>"
+                        + "<body><!-- <a href='/comment.html'> --><a href='?sort=name&amp;page=1'>sorted</a>"
+                        + "<a href='../help/./faq.html#top'>faq</a></body>");
+
+        Assert.assertEquals(Arrays.asList("http://example.com/catalog/page1.html"
+                , "http://example.com/catalog/page2.html", "http://example.com/catalog/latest.html"
+                , "http://example.com/catalog/?sort=name&page=1", "http://example.com/help/faq.html#top")
+                , successorLinks(page));
+    }
+
+    @Test
+    void givenRelativeLinksWhenResolvedThenDotSegmentsAreRemoved() {
+        String base = "http://user@example.com:8080/a/b/c.html?q=1#f";
+
+        Assert.assertEquals("http://user@example.com:8080/a/d.html", LinkResolver.resolve(base, "../d.html"));
+        Assert.assertEquals("http://user@example.com:8080/", LinkResolver.resolve(base, "../../.."));
+        Assert.assertEquals("http://user@example.com:8080/a/b/", LinkResolver.resolve(base, "."));
+        Assert.assertEquals("http://user@example.com:8080/a/b/c.html?q=1#g", LinkResolver.resolve(base, "#g"));
+        Assert.assertEquals("http://user@example.com:8080/a/b/c.html?p=2", LinkResolver.resolve(base, " ?p=2 "));
+        Assert.assertEquals("http://other.org/x", LinkResolver.resolve(base, "//other.org/x"));
+        Assert.assertNull(LinkResolver.resolve(base, "javascript:void(0)"));
+
+        Assert.assertEquals("example.com", LinkResolver.hostOf(base));
+        Assert.assertTrue(LinkResolver.hasHost("https://EXAMPLE.com?x", "example.com"));
+        Assert.assertFalse(LinkResolver.hasHost("https://example.com.evil.org/", "example.com"));
+        Assert.assertEquals("[::1]", LinkResolver.hostOf("http://[::1]:8080/"));
+    }
+
+    private void assertSameLinksAsJsoup(String pageUrl, String pageSource) throws MalformedURLException {
+        String pageHost = new URL(pageUrl).getHost();
+        Set<String> expected = Jsoup.parse(pageSource, pageUrl)
+                .select("a[href], link[href][rel~=(?i)^(canonical|next)$]").stream()
+                .map(element -> element.attr("abs:href"))
+                .filter(link -> pageHost.equalsIgnoreCase(hostOf(link)))
+                .map(canonicalizer::canonicalize)
+                .collect(Collectors.toSet());
+
+        Set<String> actual = successorLinks(createPageWithSource(pageUrl, pageSource)).stream()
+                .map(canonicalizer::canonicalize)
+                .collect(Collectors.toSet());
+
+        Assert.assertTrue(expected.size() > 10);
+        Assert.assertEquals(expected, actual);
+    }
+
+    private List<String> successorLinks(Page page) {
+        return StreamSupport.stream(underTest.process(page).spliterator(), false)
+                .map(Page::getPageUrl)
+                .collect(Collectors.toList());
+    }
+
+    private static String hostOf(String link) {
+        try {
+            return new URL(link).getHost();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private static String readPage(String name) throws IOException {
+        try (InputStream inputStream = StreamingLinkPageProcessingTest.class.getResourceAsStream("/pages/" + name)) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+}
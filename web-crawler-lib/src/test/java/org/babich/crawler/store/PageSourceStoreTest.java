@@ -0,0 +1,87 @@
+package org.babich.crawler.store;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.configuration.ApplicationConfig.SourceStore;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class PageSourceStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenPageSourcesWhenAppendThenSourcesAreReadByLocators() throws IOException {
+        PageSourceStore underTest = new PageSourceStore(sourceStore(1024));
+
+        List<String> sources = new ArrayList<>();
+        List<String> locators = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String source = "<html>страница " + i + StringUtils.repeat('x', i * 10) + "</html>";
+            sources.add(source);
+            locators.add(underTest.append(source));
+        }
+
+        //sources are appended to a few rolling segments instead of a file per page
+        Assert.assertTrue(countSegments() > 1);
+        Assert.assertTrue(countSegments() < 20);
+
+        PageSourceStore reader = new PageSourceStore(sourceStore(1024));
+        for (int i = 0; i < sources.size(); i++) {
+            String locator = locators.get(i);
+            Assert.assertTrue(PageSourceStore.isLocator(locator));
+            Assert.assertTrue(reader.contains(locator));
+            Assert.assertEquals(sources.get(i), reader.read(locator));
+
+            try (InputStream inputStream = reader.openStream(locator)) {
+                Assert.assertEquals(sources.get(i), IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+            }
+
+            ByteBuffer buffer = reader.map(locator);
+            Assert.assertEquals(PageSourceStore.lengthOf(locator), buffer.remaining());
+        }
+        reader.close();
+    }
+
+    @Test
+    void givenTwoStoresInDirectoryWhenDeleteThenOnlyOwnSegmentsAreRemoved() throws IOException {
+        PageSourceStore crashed = new PageSourceStore(sourceStore(1024));
+        String crashedLocator = crashed.append("crashed");
+        crashed.close();
+
+        PageSourceStore underTest = new PageSourceStore(sourceStore(1024));
+        String locator = underTest.append("proceeding");
+        Assert.assertNotEquals(crashedLocator, locator);
+
+        underTest.delete();
+
+        Assert.assertTrue(underTest.contains(crashedLocator));
+        Assert.assertFalse(underTest.contains(locator));
+        Assert.assertEquals(1, countSegments());
+    }
+
+    private SourceStore sourceStore(long segmentSize) {
+        SourceStore sourceStore = new SourceStore();
+        sourceStore.setPath(directory.toString());
+        sourceStore.setSegmentSize(segmentSize);
+        return sourceStore;
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package org.babich.crawler.traversal;
+
+import org.apache.commons.lang3.StringUtils;
+import org.babich.crawler.api.FilterDecision;
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.api.PageProcessing;
+import org.babich.crawler.api.PageProcessingInterceptor;
+import org.babich.crawler.common.LayeredSiteFetcher;
+import org.babich.crawler.configuration.ApplicationConfig.Delay;
+import org.babich.crawler.configuration.ApplicationConfig.Traverser.Mode;
+import org.babich.crawler.interceptor.filter.CircularLinksFilter;
+import org.babich.crawler.interceptor.service.PageProcessingDelay;
+import org.babich.crawler.processing.DefaultJsoupPageProcessing;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ConcurrentPageTraverserTest {
+
+    private static final String URL_PREFIX = "http://example.com/page/";
+
+    @Test
+    void givenMillionPagesGraphWhenStreamingTraversalThenHeapIsFlat() {
+        int pageCount = 1_000_000;
+        //binary tree of pages, every page gets its own page source that is not externalized
+        PageProcessing processing = page -> {
+            long id = Long.parseLong(page.getPageUrl().substring(URL_PREFIX.length()));
+            page.setPageSource(StringUtils.repeat('x', 512));
+
+            List<Page> successorPages = new ArrayList<>(2);
+            for (long successorId = id * 2 + 1; successorId <= id * 2 + 2 && successorId < pageCount; successorId++) {
+                successorPages.add(new Page(page.getPageContextRef(), page.getCrawlerName()
+                        , URL_PREFIX + successorId, "page_" + successorId));
+            }
+            return successorPages;
+        };
+
+        PageContext context = new PageContext.Builder().interceptors().pageProcessing(processing).build();
+        Page landingPage = new Page(new AtomicReference<>(context), "test_crawler", URL_PREFIX + 0, "landing");
+
+        long[] processed = new long[1];
+        long[] usedHeap = new long[2];
+        new ConcurrentPageTraverser("test_crawler", Frontier.inMemory(Mode.DEPTH), 1, -1)
+                .traverse(Collections.singleton(landingPage), page -> {
+                    processed[0]++;
+                    if (processed[0] == pageCount / 10) {
+                        usedHeap[0] = usedHeap();
+                    } else if (processed[0] == pageCount) {
+                        usedHeap[1] = usedHeap();
+                    }
+                });
+
+        Assert.assertEquals(pageCount, processed[0]);
+        long growth = usedHeap[1] - usedHeap[0];
+        Assert.assertTrue("heap growth " + growth + " bytes", growth < 16 * 1024 * 1024);
+    }
+
+    @Test
+    void givenSharedLinksWhenTraversedByWorkersThenEveryPageIsProcessedOnce() {
+        LayeredSiteFetcher site = new LayeredSiteFetcher(4, 50);
+        Map<String, Integer> consumed = new ConcurrentHashMap<>();
+
+        new ConcurrentPageTraverser("test_crawler", Frontier.inMemory(Mode.BREADTH), 4, -1)
+                .traverse(landingPages(site), page -> consumed.merge(page.getPageUrl(), 1, Integer::sum));
+
+        Assert.assertEquals(site.getPageCount(), consumed.size());
+        Assert.assertTrue(consumed.values().stream().allMatch(count -> 1 == count));
+        Assert.assertEquals(site.getPageCount(), site.getFetches().size());
+        Assert.assertTrue(site.getFetches().values().stream().allMatch(count -> 1 == count.get()));
+    }
+
+    @Test
+    void givenLimitWhenTraversedByWorkersThenLimitIsNotExceeded() {
+        LayeredSiteFetcher site = new LayeredSiteFetcher(4, 50);
+        AtomicInteger consumed = new AtomicInteger();
+
+        new ConcurrentPageTraverser("test_crawler", Frontier.inMemory(Mode.DEPTH), 4, 30)
+                .traverse(landingPages(site), page -> consumed.incrementAndGet());
+
+        Assert.assertEquals(30, consumed.get());
+        Assert.assertEquals(30, site.getFetches().size());
+    }
+
+    @Test
+    void givenFailingPageWhenTraversedByWorkersThenFailureIsRethrown() {
+        //the site is large enough, so the other workers cannot complete it while the failure is reported
+        LayeredSiteFetcher site = new LayeredSiteFetcher(6, 200, LayeredSiteFetcher.pageUrl(2, 7));
+        ConcurrentPageTraverser underTest = new ConcurrentPageTraverser("test_crawler"
+                , Frontier.inMemory(Mode.BREADTH), 4, -1);
+
+        UncheckedIOException exception = Assert.assertThrows(UncheckedIOException.class
+                , () -> underTest.traverse(landingPages(site), page -> {
+                }));
+
+        Assert.assertEquals("Unable to fetch " + LayeredSiteFetcher.pageUrl(2, 7), exception.getCause().getMessage());
+        //the workers stop taking pages after the failure
+        Assert.assertTrue("fetched " + site.getFetches().size(), site.getFetches().size() < site.getPageCount());
+    }
+
+    @Test
+    void givenBusyHostWhenTraversedByWorkersThenPagesAreParkedAndOtherHostIsProcessed() {
+        Delay delay = new Delay();
+        delay.setMin(200);
+        delay.setMax(200);
+        PageProcessingDelay scheduler = new PageProcessingDelay(delay);
+
+        //the landing page links to three pages of its host and three pages of another host
+        Map<String, List<Long>> fetchTimes = new ConcurrentHashMap<>();
+        PageProcessing processing = page -> {
+            fetchTimes.computeIfAbsent(hostOf(page), host -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(System.currentTimeMillis());
+            if (!page.getPageName().equals("landing")) {
+                return Collections.emptyList();
+            }
+
+            List<Page> successorPages = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                successorPages.add(new Page(page.getPageContextRef(), page.getCrawlerName()
+                        , "http://a.example.com/" + i, "page_a" + i));
+                successorPages.add(new Page(page.getPageContextRef(), page.getCrawlerName()
+                        , "http://b.example.com/" + i, "page_b" + i));
+            }
+            return successorPages;
+        };
+        PageContext context = new PageContext.Builder().interceptors(scheduler).pageProcessing(processing).build();
+        Page landingPage = new Page(new AtomicReference<>(context), "test_crawler", "http://a.example.com/"
+                , "landing");
+
+        long start = System.currentTimeMillis();
+        AtomicInteger consumed = new AtomicInteger();
+        new ConcurrentPageTraverser("test_crawler", Frontier.inMemory(Mode.BREADTH), 2, -1, scheduler)
+                .traverse(Collections.singleton(landingPage), page -> consumed.incrementAndGet());
+        long duration = System.currentTimeMillis() - start;
+
+        Assert.assertEquals(7, consumed.get());
+        for (List<Long> times : fetchTimes.values()) {
+            for (int i = 1; i < times.size(); i++) {
+                Assert.assertTrue("host fetches " + times, times.get(i) - times.get(i - 1) >= 195);
+            }
+        }
+        //the hosts are fetched in parallel: 4 fetches of the landing host take 600 ms, all 7 in a row 1200 ms
+        Assert.assertTrue("duration " + duration + " ms", duration < 1_000);
+    }
+
+    @Test
+    void givenSkippedPageWhenHostIsGivenBackThenParkedPageOfHostIsNotDelayed() {
+        Delay delay = new Delay();
+        delay.setMin(10_000);
+        delay.setMax(10_000);
+        PageProcessingDelay scheduler = new PageProcessingDelay(delay);
+
+        //the filter skips the first page after the second one has been parked for the host reserved by the first
+        PageProcessingInterceptor slowFilter = new PageProcessingInterceptor() {
+            @Override
+            public FilterDecision decide(Page page) {
+                if (!"skipped".equals(page.getPageName())) {
+                    return FilterDecision.proceed();
+                }
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return FilterDecision.skip(() -> "skipped by the test");
+            }
+        };
+        Set<String> fetched = ConcurrentHashMap.newKeySet();
+        PageContext context = new PageContext.Builder()
+                .interceptors(slowFilter, scheduler)
+                .pageProcessing(page -> {
+                    fetched.add(page.getPageName());
+                    return Collections.emptyList();
+                })
+                .build();
+        AtomicReference<PageContext> contextRef = new AtomicReference<>(context);
+
+        long start = System.currentTimeMillis();
+        new ConcurrentPageTraverser("test_crawler", Frontier.inMemory(Mode.BREADTH), 2, -1, scheduler)
+                .traverse(Arrays.asList(new Page(contextRef, "test_crawler", "http://example.com/a", "skipped")
+                        , new Page(contextRef, "test_crawler", "http://example.com/b", "fetched")), page -> {
+                });
+        long duration = System.currentTimeMillis() - start;
+
+        Assert.assertEquals(Collections.singleton("fetched"), fetched);
+        Assert.assertTrue("duration " + duration + " ms", duration < 5_000);
+    }
+
+    @Test
+    void givenLimitWhenPagesAreParkedThenTheyAreReleasedAfterTraversal() {
+        Set<String> parked = ConcurrentHashMap.newKeySet();
+        Set<String> released = ConcurrentHashMap.newKeySet();
+        //the pages of the busy host never become available
+        PolitenessScheduler scheduler = new PolitenessScheduler() {
+            @Override
+            public long tryAcquire(Page page) {
+                if (page.getPageUrl().startsWith("http://busy.example.com/")) {
+                    parked.add(page.getPageUrl());
+                    return 60_000;
+                }
+                return 0;
+            }
+
+            @Override
+            public boolean release(Page page) {
+                released.add(page.getPageUrl());
+                return false;
+            }
+        };
+
+        PageProcessing processing = page -> {
+            List<Page> successorPages = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                successorPages.add(new Page(page.getPageContextRef(), page.getCrawlerName()
+                        , "http://busy.example.com/" + page.getPageName() + i, "busy" + i));
+            }
+            successorPages.add(new Page(page.getPageContextRef(), page.getCrawlerName()
+                    , page.getPageUrl() + "0", page.getPageName() + "0"));
+            return successorPages;
+        };
+        PageContext context = new PageContext.Builder().interceptors().pageProcessing(processing).build();
+        Page landingPage = new Page(new AtomicReference<>(context), "test_crawler", "http://example.com/", "p");
+
+        AtomicInteger consumed = new AtomicInteger();
+        new ConcurrentPageTraverser("test_crawler", Frontier.inMemory(Mode.BREADTH), 2, 5, scheduler)
+                .traverse(Collections.singleton(landingPage), page -> consumed.incrementAndGet());
+
+        Assert.assertEquals(5, consumed.get());
+        Assert.assertFalse(parked.isEmpty());
+        Assert.assertTrue(released.containsAll(parked));
+    }
+
+    private static String hostOf(Page page) {
+        return page.getPageUrl().substring("http://".length(), page.getPageUrl().indexOf('/', "http://".length()));
+    }
+
+    /**
+     * the pages of the site are processed by the shared jsoup processing and deduplicated by the circular links filter
+     */
+    private static Collection<Page> landingPages(LayeredSiteFetcher site) {
+        PageContext context = new PageContext.Builder()
+                .interceptors(new CircularLinksFilter(null))
+                .pageProcessing(new DefaultJsoupPageProcessing(site))
+                .build();
+        return Collections.singleton(new Page(new AtomicReference<>(context), "test_crawler"
+                , LayeredSiteFetcher.LANDING_URL, "landing"));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
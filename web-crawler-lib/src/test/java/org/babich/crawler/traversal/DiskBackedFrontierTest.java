@@ -0,0 +1,127 @@
+package org.babich.crawler.traversal;
+
+import org.babich.crawler.api.Page;
+import org.babich.crawler.api.PageContext;
+import org.babich.crawler.common.TestHelper;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+class DiskBackedFrontierTest {
+
+    private static final String URL_PREFIX = "http://example.com/page/";
+
+    final AtomicReference<PageContext> pageContextRef = new AtomicReference<>(Mockito.mock(PageContext.class));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenPagesOverSeveralSegmentsWhenPollThenFifoOrderIsKept() throws IOException {
+        DiskBackedFrontier underTest = new DiskBackedFrontier(directory, 1024, 8, false, pageContextRef, "test_crawler");
+
+        for (int i = 0; i < 500; i++) {
+            underTest.push(createPage(i));
+        }
+        Assert.assertEquals(500, underTest.size());
+        Assert.assertTrue(countSegments() > 1);
+
+        for (int i = 0; i < 500; i++) {
+            Page page = underTest.poll();
+            underTest.complete(page);
+            Assert.assertEquals(URL_PREFIX + i, page.getPageUrl());
+            Assert.assertEquals("page_" + i, page.getPageName());
+            Assert.assertEquals(i % 3, page.getDepth());
+            Assert.assertSame(pageContextRef, page.getPageContextRef());
+
+            //pages pushed while polling are queued after the previous ones
+            if (i == 100) {
+                underTest.push(createPage(500));
+            }
+        }
+        Page lastPage = underTest.poll();
+        underTest.complete(lastPage);
+        Assert.assertEquals(URL_PREFIX + 500, lastPage.getPageUrl());
+        Assert.assertNull(underTest.poll());
+        Assert.assertTrue(underTest.isEmpty());
+
+        underTest.close();
+        Assert.assertEquals(0, countSegments());
+    }
+
+    @Test
+    void givenClosedNonEmptyFrontierWhenResumeThenNotPolledPagesAreReturned() throws IOException {
+        DiskBackedFrontier frontier = new DiskBackedFrontier(directory, 1024, 4, false, pageContextRef, "test_crawler");
+        for (int i = 0; i < 100; i++) {
+            frontier.push(createPage(i));
+        }
+        for (int i = 0; i < 60; i++) {
+            frontier.complete(frontier.poll());
+        }
+        frontier.close();
+
+        DiskBackedFrontier underTest = new DiskBackedFrontier(directory, 1024, 4, true, pageContextRef, "test_crawler");
+        Assert.assertEquals(40, underTest.size());
+
+        underTest.push(createPage(100));
+        for (int i = 60; i <= 100; i++) {
+            Page page = underTest.poll();
+            underTest.complete(page);
+            Assert.assertEquals(URL_PREFIX + i, page.getPageUrl());
+        }
+        Assert.assertTrue(underTest.isEmpty());
+
+        DiskBackedFrontier restarted = new DiskBackedFrontier(directory, 1024, 4, false, pageContextRef, "test_crawler");
+        Assert.assertTrue(restarted.isEmpty());
+    }
+
+    @Test
+    void givenPagesCompletedOutOfOrderWhenResumeThenNotCompletedPagesArePolledAgain() throws IOException {
+        DiskBackedFrontier frontier = new DiskBackedFrontier(directory, 1024, 4, false, pageContextRef
+                , "test_crawler");
+        for (int i = 0; i < 100; i++) {
+            frontier.push(createPage(i));
+        }
+        List<Page> polledPages = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            polledPages.add(frontier.poll());
+        }
+        //the workers complete the pages 0..49 and 55..59, the pages 50..54 are still being processed
+        for (int i = 59; i >= 0; i--) {
+            if (i < 50 || i >= 55) {
+                frontier.complete(polledPages.get(i));
+            }
+        }
+        frontier.close();
+
+        //the resumed pages get the context of the frontier without any page pushed
+        AtomicReference<PageContext> resumedContextRef = new AtomicReference<>(Mockito.mock(PageContext.class));
+        DiskBackedFrontier underTest = new DiskBackedFrontier(directory, 1024, 4, true, resumedContextRef
+                , "resumed_crawler");
+        Assert.assertEquals(50, underTest.size());
+
+        Page page = underTest.poll();
+        Assert.assertEquals(URL_PREFIX + 50, page.getPageUrl());
+        Assert.assertSame(resumedContextRef, page.getPageContextRef());
+        Assert.assertEquals("resumed_crawler", page.getCrawlerName());
+    }
+
+    private Page createPage(int id) {
+        return TestHelper.createPage(pageContextRef, URL_PREFIX + id, "page_" + id, id % 3);
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".segment")).count();
+        }
+    }
+}
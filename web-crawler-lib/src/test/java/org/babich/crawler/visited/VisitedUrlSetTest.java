@@ -0,0 +1,106 @@
+package org.babich.crawler.visited;
+
+import org.babich.crawler.configuration.ApplicationConfig.VisitedUrls;
+import org.babich.crawler.configuration.ApplicationConfig.VisitedUrls.Mode;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+class VisitedUrlSetTest {
+
+    @Test
+    void givenFingerprintModeWhenAddingMoreUrlsThanCapacityThenAllUrlsAreFound() {
+        VisitedUrlSet underTest = VisitedUrlSet.create(config(Mode.FINGERPRINT, 1000, null));
+
+        for (int i = 0; i < 100_000; i++) {
+            Assert.assertTrue(underTest.add(url(i)));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            Assert.assertFalse(underTest.add(url(i)));
+            Assert.assertTrue(underTest.contains(url(i)));
+        }
+
+        Assert.assertFalse(underTest.contains(url(100_001)));
+        Assert.assertEquals(100_000, underTest.size());
+    }
+
+    @Test
+    void givenMappedFileWhenAddingUrlsThenAllUrlsAreFound(@TempDir Path directory) {
+        VisitedUrlSet underTest = VisitedUrlSet.create(config(Mode.FINGERPRINT, 1000, directory.toString()));
+
+        for (int i = 0; i < 10_000; i++) {
+            underTest.add(url(i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            Assert.assertTrue(underTest.contains(url(i)));
+        }
+        Assert.assertFalse(underTest.contains(url(10_001)));
+    }
+
+    @Test
+    void givenBloomModeWhenCheckingNewUrlsThenFalsePositiveRateIsKept() {
+        int capacity = 100_000;
+        VisitedUrlSet underTest = VisitedUrlSet.create(config(Mode.BLOOM, capacity, null));
+
+        for (int i = 0; i < capacity; i++) {
+            underTest.add(url(i));
+        }
+        for (int i = 0; i < capacity; i++) {
+            Assert.assertTrue(underTest.contains(url(i)));
+        }
+
+        int falsePositives = 0;
+        for (int i = capacity; i < capacity * 2; i++) {
+            if (underTest.contains(url(i))) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("false positives: " + falsePositives, falsePositives < capacity * 0.02);
+    }
+
+    @Test
+    void givenNoConfigurationWhenCreateThenExactSetInResult() {
+        VisitedUrlSet underTest = VisitedUrlSet.create(null);
+
+        Assert.assertTrue(underTest instanceof ExactVisitedUrlSet);
+        Assert.assertTrue(underTest.add(url(1)));
+        Assert.assertFalse(underTest.add(url(1)));
+    }
+
+    @Test
+    void givenFoundUrlsWhenLoweringDepthThenOnlySmallerDepthIsKept() {
+        for (Mode mode : Mode.values()) {
+            UrlDepthMap underTest = UrlDepthMap.create(config(mode, 1000, null));
+
+            for (int i = 0; i < 10_000; i++) {
+                Assert.assertTrue(underTest.lower(url(i), 3));
+            }
+            for (int i = 0; i < 10_000; i++) {
+                Assert.assertFalse(underTest.lower(url(i), 3));
+                Assert.assertFalse(underTest.lower(url(i), 4));
+                Assert.assertTrue(underTest.lower(url(i), 2));
+                Assert.assertFalse(underTest.lower(url(i), 2));
+            }
+            Assert.assertEquals(10_000, underTest.size());
+
+            //the fingerprint table keeps the depths above its limit as the limit
+            Assert.assertTrue(underTest.lower(url(10_001), 300));
+            Assert.assertTrue(underTest.lower(url(10_001), 254));
+        }
+    }
+
+    private static VisitedUrls config(Mode mode, long capacity, String path) {
+        VisitedUrls config = new VisitedUrls();
+        config.setMode(mode);
+        config.setCapacity(capacity);
+        config.setPath(path);
+        return config;
+    }
+
+    private static String url(int i) {
+        return "http://example.com/page/" + i + ".html";
+    }
+}
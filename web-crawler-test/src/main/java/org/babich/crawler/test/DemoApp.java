@@ -31,6 +31,7 @@ import org.babich.crawler.configuration.ApplicationConfig;
 import org.babich.crawler.configuration.exception.CrawlerConfigurationException;
 import org.babich.crawler.configuration.processing.CustomPageProcessingConfig;
 import org.babich.crawler.processing.DefaultJsoupPageProcessing;
+import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
 
@@ -247,7 +248,7 @@ public class DemoApp {
                * find in the results all links to the wikipedia.org resource
                */
               @Override
-              protected Collection<String> findSuccessorLinks(Page page) {
+              protected Collection<String> findSuccessorLinks(Page page, Document doc) {
                 return doc.selectFirst("div#search").select("a[href*=wikipedia.org]")
                     .stream()
                     .map(element -> element.attr("abs:href"))
@@ -265,19 +266,24 @@ public class DemoApp {
                *  as a serializable list
                */
               @Override
-              protected void parse(Page page) {
-                super.parse(page);
+              protected Document parse(Page page) {
+                Document doc = super.parse(page);
                 ArrayList<String> tocTitleList = new ArrayList<>();
                 doc.select("div#toc li").stream()
                     .map(Element::text)
                     .forEach(tocTitleList::add);
                 page.setPayload(tocTitleList);
+                return doc;
               }
             })
         )
         .build();
 
-    crawler.start();
+    try {
+      crawler.start();
+    } finally {
+      crawler.close();
+    }
   }
 
   /**